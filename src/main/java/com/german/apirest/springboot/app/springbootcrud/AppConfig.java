@@ -2,6 +2,7 @@ package com.german.apirest.springboot.app.springbootcrud;
 
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Clase de configuración global de la aplicación.
@@ -9,6 +10,7 @@ import org.springframework.context.annotation.PropertySource;
  * Anotada con {@link Configuration} para declarar beans de configuración,
  * y con {@link PropertySource} para cargar el archivo de mensajes
  * <code>messages.properties</code> desde el classpath.
+ * Habilita además las tareas programadas ({@link EnableScheduling}).
  * </p>
  *
  * @version 1.0
@@ -16,6 +18,7 @@ import org.springframework.context.annotation.PropertySource;
  */
 @Configuration
 @PropertySource("classpath:messages.properties")
+@EnableScheduling
 public class AppConfig {
     // Configuración adicional de beans puede añadirse aquí
 }
\ No newline at end of file
@@ -0,0 +1,121 @@
+package com.german.apirest.springboot.app.springbootcrud;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.UUID;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración de la caché de segundo nivel de Hibernate.
+ * <p>
+ * Usa Ehcache como proveedor JCache local con una región por entidad
+ * cacheada ({@link #PRODUCTS_REGION}, {@link #ROLES_REGION}) más las
+ * regiones de la caché de consultas. El tamaño y el TTL de cada región se
+ * configuran con <code>cache.&lt;región&gt;.max-entries</code> y
+ * <code>cache.&lt;región&gt;.ttl</code>. La región de marcas de tiempo no
+ * expira: es la que invalida las consultas cacheadas cuando cambia una
+ * tabla.
+ * </p>
+ * <p>
+ * Con <code>hibernate.generate_statistics</code> las estadísticas por
+ * región se publican en Micrometer como <code>hibernate.second.level.cache.*</code>.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    /**
+     * Región de la entidad {@code Product}.
+     */
+    public static final String PRODUCTS_REGION = "products";
+
+    /**
+     * Región de la entidad {@code Role}.
+     */
+    public static final String ROLES_REGION = "roles";
+
+    private static final String QUERY_RESULTS_REGION = "default-query-results-region";
+
+    private static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    /**
+     * Crea el {@link CacheManager} JCache con las regiones configuradas.
+     * <p>
+     * Cada contexto de Spring obtiene su propio gestor (URI única), de
+     * modo que varios contextos en la misma JVM no comparten regiones.
+     * </p>
+     *
+     * @param productsMaxEntries productos en caché como máximo.
+     * @param productsTtl        vida de un producto en caché.
+     * @param rolesMaxEntries    roles en caché como máximo.
+     * @param rolesTtl           vida de un rol en caché.
+     * @param queriesMaxEntries  resultados de consultas en caché como máximo.
+     * @param queriesTtl         vida de un resultado de consulta en caché.
+     * @return el gestor de cachés que usará Hibernate.
+     */
+    @Bean(destroyMethod = "close")
+    CacheManager hibernateCacheManager(
+            @Value("${cache.products.max-entries:10000}") long productsMaxEntries,
+            @Value("${cache.products.ttl:PT10M}") Duration productsTtl,
+            @Value("${cache.roles.max-entries:100}") long rolesMaxEntries,
+            @Value("${cache.roles.ttl:PT1H}") Duration rolesTtl,
+            @Value("${cache.queries.max-entries:1000}") long queriesMaxEntries,
+            @Value("${cache.queries.ttl:PT10M}") Duration queriesTtl) {
+        org.ehcache.config.Configuration configuration = ConfigurationBuilder.newConfigurationBuilder()
+            .withCache(PRODUCTS_REGION, region(productsMaxEntries, productsTtl))
+            .withCache(ROLES_REGION, region(rolesMaxEntries, rolesTtl))
+            .withCache(QUERY_RESULTS_REGION, region(queriesMaxEntries, queriesTtl))
+            .withCache(UPDATE_TIMESTAMPS_REGION, CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(1000))
+                .withExpiry(ExpiryPolicyBuilder.noExpiration())
+                .build())
+            .build();
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(
+            EhcacheCachingProvider.class.getName());
+        return provider.getCacheManager(URI.create("urn:springbootcrud:hibernate:" + UUID.randomUUID()),
+            configuration);
+    }
+
+    /**
+     * Activa la caché de segundo nivel y la de consultas sobre el gestor
+     * anterior; una región no declarada hace fallar el arranque.
+     *
+     * @param hibernateCacheManager gestor de cachés JCache.
+     * @return el personalizador de propiedades de Hibernate.
+     */
+    @Bean
+    HibernatePropertiesCustomizer hibernateSecondLevelCache(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    private static CacheConfiguration<Object, Object> region(long maxEntries, Duration ttl) {
+        return CacheConfigurationBuilder
+            .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries))
+            .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(ttl))
+            .build();
+    }
+}
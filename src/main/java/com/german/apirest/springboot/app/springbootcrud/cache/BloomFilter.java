@@ -0,0 +1,127 @@
+package com.german.apirest.springboot.app.springbootcrud.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom concurrente para cadenas.
+ * <p>
+ * Responde si un elemento <em>puede</em> estar en el conjunto: nunca da
+ * falsos negativos y los falsos positivos se acotan con la probabilidad
+ * indicada al crearlo, siempre que no se supere el número de elementos
+ * esperado. No admite borrados; para retirar elementos se construye un
+ * filtro nuevo y se sustituye el anterior.
+ * </p>
+ * <p>
+ * Usa un hash de 64 bits (FNV-1a con mezcla final) y <em>double hashing</em>
+ * para derivar las <code>k</code> posiciones, de modo que cada consulta
+ * cuesta un recorrido de la cadena y <code>k</code> lecturas de bits.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+
+    private final long bitCount;
+
+    private final int hashFunctions;
+
+    /**
+     * Crea un filtro dimensionado para el número de elementos y la tasa de
+     * falsos positivos dados.
+     *
+     * @param expectedInsertions número de elementos esperado (mayor que cero).
+     * @param falsePositiveRate  probabilidad de falso positivo (entre 0 y 1).
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Parámetros del filtro de Bloom no válidos");
+        }
+        long m = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (m + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    /**
+     * Añade un elemento.
+     *
+     * @param value elemento a añadir.
+     */
+    public void add(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            long index = bitIndex(h1 + i * h2);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    /**
+     * Indica si el elemento puede estar en el conjunto.
+     *
+     * @param value elemento a consultar.
+     * @return {@code false} si seguro que no está; {@code true} si puede estar.
+     */
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            long index = bitIndex(h1 + i * h2);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return número de funciones hash usadas.
+     */
+    public int getHashFunctions() {
+        return hashFunctions;
+    }
+
+    /**
+     * @return tamaño del filtro en bits.
+     */
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    private long bitIndex(int combined) {
+        return (combined & 0x7fffffffL) % bitCount;
+    }
+
+    /**
+     * Hash FNV-1a de 64 bits sobre los bytes UTF-8, con la mezcla final de
+     * MurmurHash3 para repartir bien los bits altos y bajos.
+     */
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
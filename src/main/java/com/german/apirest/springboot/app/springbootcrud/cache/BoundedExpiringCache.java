@@ -0,0 +1,202 @@
+package com.german.apirest.springboot.app.springbootcrud.cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Caché concurrente, acotada en número de entradas y con expiración
+ * individual por entrada.
+ * <p>
+ * Cada valor se almacena junto a su instante de expiración (epoch en ms).
+ * Cuando se alcanza la capacidad máxima se purgan primero las entradas
+ * caducadas y, si no es suficiente, se expulsan entradas arbitrarias.
+ * Expone contadores de aciertos, fallos y expulsiones.
+ * </p>
+ *
+ * @param <K> tipo de la clave.
+ * @param <V> tipo del valor almacenado.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+public class BoundedExpiringCache<K, V> {
+
+    /**
+     * Valor almacenado junto a su instante de expiración.
+     */
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    private final int maxEntries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Crea una caché con la capacidad máxima indicada.
+     *
+     * @param maxEntries número máximo de entradas (mayor que cero).
+     */
+    public BoundedExpiringCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries debe ser mayor que cero");
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Obtiene el valor asociado a la clave si existe y no ha expirado.
+     *
+     * @param key clave a buscar.
+     * @param now instante actual en ms.
+     * @return el valor, o {@code null} si no existe o ha caducado.
+     */
+    public V get(K key, long now) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt() <= now) {
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    /**
+     * Almacena un valor hasta el instante de expiración indicado.
+     *
+     * @param key       clave.
+     * @param value     valor a almacenar.
+     * @param expiresAt instante de expiración en ms.
+     * @param now       instante actual en ms.
+     */
+    public void put(K key, V value, long expiresAt, long now) {
+        if (expiresAt <= now) {
+            return;
+        }
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            makeRoom(now);
+        }
+        entries.put(key, new Entry<>(value, expiresAt));
+    }
+
+    /**
+     * Elimina la entrada asociada a la clave.
+     *
+     * @param key clave a invalidar.
+     */
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Elimina todas las entradas.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Elimina todas las entradas caducadas.
+     *
+     * @param now instante actual en ms.
+     */
+    public void purgeExpired(long now) {
+        Iterator<Entry<V>> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().expiresAt() <= now) {
+                it.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Libera espacio purgando caducadas y, si sigue llena, expulsando
+     * entradas arbitrarias hasta quedar por debajo del límite.
+     */
+    private void makeRoom(long now) {
+        purgeExpired(now);
+        Iterator<K> it = entries.keySet().iterator();
+        while (entries.size() >= maxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Publica las métricas de la caché en el registro dado:
+     * <code>&lt;name&gt;.hits</code>, <code>.misses</code>,
+     * <code>.evictions</code>, <code>.size</code> y <code>.hit.ratio</code>.
+     *
+     * @param registry registro de métricas.
+     * @param name     prefijo de las métricas.
+     */
+    public void bindTo(MeterRegistry registry, String name) {
+        FunctionCounter.builder(name + ".hits", this, BoundedExpiringCache::getHits).register(registry);
+        FunctionCounter.builder(name + ".misses", this, BoundedExpiringCache::getMisses).register(registry);
+        FunctionCounter.builder(name + ".evictions", this, BoundedExpiringCache::getEvictions).register(registry);
+        Gauge.builder(name + ".size", this, BoundedExpiringCache::size).register(registry);
+        Gauge.builder(name + ".hit.ratio", this, BoundedExpiringCache::getHitRatio).register(registry);
+    }
+
+    /**
+     * @return proporción de aciertos sobre el total de consultas (0 si no hay consultas).
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * @return número actual de entradas.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return capacidad máxima de la caché.
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * @return número total de aciertos.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return número total de fallos.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return número total de expulsiones (por caducidad o por capacidad).
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+}
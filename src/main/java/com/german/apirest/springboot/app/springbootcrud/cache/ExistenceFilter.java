@@ -0,0 +1,139 @@
+package com.german.apirest.springboot.app.springbootcrud.cache;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Filtro de existencia en memoria para un espacio de claves únicas (SKU,
+ * nombre de usuario...) respaldado por la base de datos.
+ * <p>
+ * Un {@link BloomFilter} responde "seguro que no existe" sin consultar la
+ * base de datos; solo los "quizá" deben confirmarse con una consulta.
+ * Mientras no se ha cargado, todas las respuestas son "quizá".
+ * </p>
+ * <p>
+ * Como el filtro no admite borrados, las claves eliminadas solo aumentan
+ * los falsos positivos hasta la siguiente reconstrucción, que además lo
+ * redimensiona si el conjunto ha crecido. Las altas confirmadas durante
+ * una reconstrucción se añaden también al filtro nuevo, de modo que no se
+ * pierde ninguna siempre que {@link #add(String)} se llame después del
+ * commit. Las altas de otros nodos solo se ven tras la siguiente
+ * reconstrucción: la unicidad la garantiza el índice único de la base de
+ * datos, no este filtro.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+public class ExistenceFilter {
+
+    private final Supplier<? extends Collection<String>> loader;
+
+    private final long expectedInsertions;
+
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+
+    private volatile BloomFilter rebuilding;
+
+    private volatile long count;
+
+    /**
+     * Crea un filtro vacío, aún sin cargar.
+     *
+     * @param loader             lectura de todas las claves existentes.
+     * @param expectedInsertions número de claves esperado, para dimensionar el filtro.
+     * @param falsePositiveRate  tasa de falsos positivos del filtro.
+     */
+    public ExistenceFilter(Supplier<? extends Collection<String>> loader, long expectedInsertions,
+            double falsePositiveRate) {
+        this.loader = loader;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * Indica si la clave puede existir.
+     *
+     * @param key clave a consultar.
+     * @return {@code false} si seguro que no existe; {@code true} si puede
+     *         existir o el filtro aún no se ha cargado.
+     */
+    public boolean mightContain(String key) {
+        BloomFilter current = filter;
+        return key == null || current == null || current.mightContain(key);
+    }
+
+    /**
+     * Registra una clave nueva. Debe llamarse tras confirmar la transacción
+     * que la guarda.
+     *
+     * @param key clave añadida.
+     */
+    public void add(String key) {
+        if (key == null) {
+            return;
+        }
+        // En este orden: si no hay reconstrucción en curso, o no ha empezado
+        // (y su lectura verá la clave) o ya ha sustituido el filtro
+        BloomFilter next = rebuilding;
+        BloomFilter current = filter;
+        if (next != null) {
+            next.add(key);
+        }
+        if (current != null) {
+            current.add(key);
+        }
+    }
+
+    /**
+     * Registra una clave nueva al confirmar la transacción actual, o
+     * inmediatamente si no hay ninguna.
+     *
+     * @param key clave que se está guardando.
+     */
+    public void addAfterCommit(String key) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(key);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(key);
+            }
+        });
+    }
+
+    /**
+     * Construye un filtro nuevo con las claves actuales de la base de datos
+     * y sustituye al anterior. No debe llamarse dentro de una transacción de
+     * escritura.
+     */
+    public synchronized void rebuild() {
+        // Se publica antes de leer: una alta confirmada tras empezar la lectura
+        // llega por add(); una confirmada antes, por la propia lectura.
+        // Con margen para el doble de las claves de la última carga
+        BloomFilter next = new BloomFilter(Math.max(expectedInsertions, 2 * count), falsePositiveRate);
+        rebuilding = next;
+        try {
+            Collection<String> keys = loader.get();
+            keys.forEach(next::add);
+            filter = next;
+            count = keys.size();
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    /**
+     * @return número de claves leídas en la última reconstrucción.
+     */
+    public long size() {
+        return count;
+    }
+}
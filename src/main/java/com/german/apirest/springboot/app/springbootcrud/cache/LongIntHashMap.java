@@ -0,0 +1,142 @@
+package com.german.apirest.springboot.app.springbootcrud.cache;
+
+/**
+ * Mapa de claves <code>long</code> a valores <code>int</code> sin objetos
+ * intermedios (direccionamiento abierto con sondeo lineal).
+ * <p>
+ * Ocupa unos 12 bytes por hueco, frente a los más de 60 de una entrada
+ * de {@code HashMap<Long, Integer>}, y las búsquedas no reservan memoria.
+ * No es seguro para escrituras concurrentes: el uso previsto es
+ * <em>copy-on-write</em>, es decir, construir o modificar una copia con
+ * {@link #copy()} y publicarla en un campo {@code volatile}; las lecturas
+ * sobre una instancia ya publicada sí son seguras.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+public class LongIntHashMap {
+
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+
+    private int[] values;
+
+    private int size;
+
+    private boolean hasZeroKey;
+
+    private int zeroValue;
+
+    /**
+     * Crea un mapa con capacidad para el número de entradas indicado sin
+     * necesidad de crecer.
+     *
+     * @param expectedSize número de entradas esperado.
+     */
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+    }
+
+    private LongIntHashMap(LongIntHashMap other) {
+        this.keys = other.keys.clone();
+        this.values = other.values.clone();
+        this.size = other.size;
+        this.hasZeroKey = other.hasZeroKey;
+        this.zeroValue = other.zeroValue;
+    }
+
+    /**
+     * Obtiene el valor asociado a la clave.
+     *
+     * @param key          clave.
+     * @param defaultValue valor devuelto si la clave no existe.
+     * @return el valor asociado, o {@code defaultValue}.
+     */
+    public int get(long key, int defaultValue) {
+        if (key == EMPTY) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        long[] k = keys;
+        int mask = k.length - 1;
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            if (k[i] == key) {
+                return values[i];
+            }
+            if (k[i] == EMPTY) {
+                return defaultValue;
+            }
+        }
+    }
+
+    /**
+     * Asocia el valor a la clave, sustituyendo el anterior si existía.
+     *
+     * @param key   clave.
+     * @param value valor.
+     */
+    public void put(long key, int value) {
+        if (key == EMPTY) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            resize();
+        }
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == EMPTY) {
+            keys[i] = key;
+            size++;
+        }
+        values[i] = value;
+    }
+
+    /**
+     * @return número de entradas.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return copia independiente del mapa.
+     */
+    public LongIntHashMap copy() {
+        return new LongIntHashMap(this);
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            long key = oldKeys[j];
+            if (key != EMPTY) {
+                int i = slot(key, mask);
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
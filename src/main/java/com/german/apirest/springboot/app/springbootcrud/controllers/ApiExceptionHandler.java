@@ -0,0 +1,81 @@
+package com.german.apirest.springboot.app.springbootcrud.controllers;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import com.german.apirest.springboot.app.springbootcrud.entities.Product;
+import com.german.apirest.springboot.app.springbootcrud.entities.User;
+import com.german.apirest.springboot.app.springbootcrud.security.PasswordHashingRejectedException;
+
+/**
+ * Manejador global de excepciones para los controladores REST.
+ *
+ * <p>
+ * Traduce las excepciones de infraestructura en respuestas HTTP
+ * con cuerpo JSON, del mismo formato que el resto de la API.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    /**
+     * Responde <strong>503 Service Unavailable</strong> con
+     * <code>Retry-After</code> cuando el pool de hashing de contraseñas
+     * está saturado (p.ej. en el registro de usuarios).
+     *
+     * @param e rechazo del pool de hashing.
+     * @return {@link ResponseEntity} con estado 503 y mensaje de error.
+     */
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<Map<String, String>> passwordHashingRejected(PasswordHashingRejectedException e) {
+        Map<String, String> body = new HashMap<>();
+        body.put("message", "Servicio saturado, inténtelo de nuevo más tarde");
+        body.put("error", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .body(body);
+    }
+
+    /**
+     * Responde <strong>409 Conflict</strong>, con el mismo formato que los
+     * errores de validación, cuando el índice único de SKU o de username
+     * rechaza un valor repetido que los filtros de existencia no pudieron
+     * detectar (p.ej. dos altas concurrentes). Cualquier otra violación de
+     * integridad se propaga sin cambios.
+     *
+     * @param e violación de integridad de la base de datos.
+     * @return {@link ResponseEntity} con estado 409 y el campo duplicado.
+     * @throws DataIntegrityViolationException si no es un valor único repetido.
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Map<String, String>> dataIntegrityViolation(DataIntegrityViolationException e) {
+        String field = null;
+        if (e.getCause() instanceof ConstraintViolationException violation
+                && violation.getConstraintName() != null) {
+            String constraint = violation.getConstraintName().toLowerCase(Locale.ROOT);
+            if (constraint.contains(Product.SKU_UNIQUE_CONSTRAINT)) {
+                field = "sku";
+            } else if (constraint.contains(User.USERNAME_UNIQUE_CONSTRAINT)) {
+                field = "username";
+            }
+        }
+        if (field == null) {
+            throw e;
+        }
+        Map<String, String> body = new HashMap<>();
+        body.put(field, "El campo " + field + " ya existe en la base de datos");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+    }
+}
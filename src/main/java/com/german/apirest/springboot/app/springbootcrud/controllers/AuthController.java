@@ -0,0 +1,143 @@
+package com.german.apirest.springboot.app.springbootcrud.controllers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.german.apirest.springboot.app.springbootcrud.security.JwtKeyRing;
+import com.german.apirest.springboot.app.springbootcrud.security.JwtTokenCodec.VerifiedToken;
+import com.german.apirest.springboot.app.springbootcrud.security.TokenRevocationStore;
+import com.german.apirest.springboot.app.springbootcrud.services.InvalidRefreshTokenException;
+import com.german.apirest.springboot.app.springbootcrud.services.RefreshTokenService;
+import com.german.apirest.springboot.app.springbootcrud.services.RefreshTokenService.IssuedTokens;
+
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+
+/**
+ * REST controller for authentication support endpoints.
+ *
+ * <p>
+ * Exposes endpoints under <code>/api/auth</code>:
+ * <ul>
+ *   <li>Exchanging a refresh token for a new access token without
+ *       re-sending the password</li>
+ *   <li>Logging out, which revokes the current access token and,
+ *       optionally, its refresh token session</li>
+ *   <li>Publishing the public verification keys (JWKS) so that other
+ *       services can validate tokens without sharing the signing secret.</li>
+ * </ul>
+ * The login itself is handled by
+ * {@link com.german.apirest.springboot.app.springbootcrud.security.filter.JwtAuthenticationFilter}.</p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+@RestController
+@RequestMapping("/api/auth")
+public class AuthController {
+
+    /**
+     * Anillo de claves JWT de la aplicación.
+     */
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    /**
+     * Servicio de tokens de refresco.
+     */
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    /**
+     * Lista de tokens de acceso revocados.
+     */
+    @Autowired
+    private TokenRevocationStore revocationStore;
+
+    /**
+     * Canjea un token de refresco por un nuevo token de acceso.
+     *
+     * <p>No requiere autenticación. El token de refresco recibido queda
+     * consumido y se devuelve uno nuevo; reutilizar uno ya consumido
+     * revoca toda la sesión.</p>
+     *
+     * @param request cuerpo JSON con el campo <code>refreshToken</code>.
+     * @return {@link ResponseEntity} con:
+     *         <ul>
+     *           <li><strong>200 OK</strong> y los nuevos <code>token</code> y <code>refreshToken</code>.</li>
+     *           <li><strong>400 Bad Request</strong> si falta el token de refresco.</li>
+     *           <li><strong>401 Unauthorized</strong> si el token no es válido.</li>
+     *         </ul>
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody Map<String, String> request) {
+        String refreshToken = request.get("refreshToken");
+        if (refreshToken == null || refreshToken.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("refreshToken", "El campo refreshToken es requerido"));
+        }
+        try {
+            IssuedTokens tokens = refreshTokenService.refresh(refreshToken);
+            Map<String, String> body = new HashMap<>();
+            body.put("token", tokens.accessToken());
+            body.put("refreshToken", tokens.refreshToken());
+            body.put("username", tokens.username());
+            return ResponseEntity.ok(body);
+        } catch (InvalidRefreshTokenException e) {
+            Map<String, String> body = new HashMap<>();
+            body.put("message", "El token de refresco no es válido");
+            body.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(body);
+        }
+    }
+
+    /**
+     * Cierra la sesión revocando el token de acceso actual hasta su
+     * expiración.
+     *
+     * <p>Requiere autenticación. Si el cuerpo incluye
+     * <code>refreshToken</code>, se revoca también su sesión de refresco.</p>
+     *
+     * @param authentication autenticación construida por el filtro de validación.
+     * @param request        cuerpo JSON opcional con el campo <code>refreshToken</code>.
+     * @return {@link ResponseEntity} con <strong>200 OK</strong> y un mensaje.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(Authentication authentication,
+            @RequestBody(required = false) Map<String, String> request) {
+        if (authentication.getDetails() instanceof VerifiedToken token && token.jti() != null) {
+            revocationStore.revoke(token.jti(), token.expiresAt());
+        }
+        if (request != null && request.get("refreshToken") != null) {
+            refreshTokenService.revoke(request.get("refreshToken"));
+        }
+        return ResponseEntity.ok(Map.of("message", "Sesión cerrada"));
+    }
+
+    /**
+     * Publica las claves públicas de verificación en formato JWK Set.
+     *
+     * <p>No requiere autenticación. Solo incluye las claves asimétricas
+     * (ES256, EdDSA); las claves HMAC nunca se publican.</p>
+     *
+     * @return mapa con la clave <code>keys</code> y la lista de JWK públicas.
+     */
+    @GetMapping("/jwks")
+    public Map<String, List<PublicJwk<?>>> jwks() {
+        List<PublicJwk<?>> keys = new ArrayList<>();
+        keyRing.publicKeys().forEach((kid, publicKey) ->
+            keys.add(Jwks.builder().key(publicKey).id(kid).build()));
+        return Map.of("keys", keys);
+    }
+}
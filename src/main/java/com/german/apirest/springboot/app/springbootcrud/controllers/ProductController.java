@@ -1,28 +1,67 @@
 package com.german.apirest.springboot.app.springbootcrud.controllers;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.german.apirest.springboot.app.springbootcrud.dto.ProductBatchRequest;
+import com.german.apirest.springboot.app.springbootcrud.dto.ProductBatchResult;
+import com.german.apirest.springboot.app.springbootcrud.dto.ProductCursor;
+import com.german.apirest.springboot.app.springbootcrud.dto.ProductImportResult;
+import com.german.apirest.springboot.app.springbootcrud.dto.ProductLookupResult;
+import com.german.apirest.springboot.app.springbootcrud.dto.ProductPage;
 import com.german.apirest.springboot.app.springbootcrud.entities.Product;
+import com.german.apirest.springboot.app.springbootcrud.services.ProductImportService;
 import com.german.apirest.springboot.app.springbootcrud.services.ProductService;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 
 /**
  * REST controller for managing CRUD operations on {@link Product} entities.
@@ -42,6 +81,20 @@ import jakarta.validation.Valid;
 @RequestMapping("/api/products")
 public class ProductController {
 
+    /**
+     * Tipo de contenido de JSON Merge Patch (RFC 7396).
+     */
+    private static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+
+    /**
+     * Atributos que admite <code>PATCH</code>, con su lector sobre el producto deserializado.
+     */
+    private static final Map<String, Function<Product, Object>> PATCHABLE = Map.of(
+        "sku", Product::getSku,
+        "name", Product::getName,
+        "price", Product::getPrice,
+        "description", Product::getDescription);
+
     /**
      * Servicio que implementa la lógica de negocio y acceso a datos para {@link Product}.
      */
@@ -49,27 +102,290 @@ public class ProductController {
     private ProductService service;
 
     /**
-     * Obtiene todos los productos disponibles.
+     * Servicio de importación masiva de productos.
+     */
+    @Autowired
+    private ProductImportService importService;
+
+    /**
+     * Mapper JSON de la aplicación, usado para escribir la exportación NDJSON.
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Validador de Bean Validation, para validar los atributos de un <code>PATCH</code>.
+     */
+    @Autowired
+    private Validator validator;
+
+    /**
+     * Tamaño de página cuando no se indica <code>size</code>.
+     */
+    @Value("${products.page.default-size:20}")
+    private int defaultPageSize;
+
+    /**
+     * Tamaño de página máximo; los valores mayores se recortan.
+     */
+    @Value("${products.page.max-size:100}")
+    private int maxPageSize;
+
+    /**
+     * Desplazamiento máximo (<code>page * size</code>) admitido en la
+     * paginación por número de página.
+     */
+    @Value("${products.page.max-offset:1000}")
+    private int maxPageOffset;
+
+    /**
+     * Si es {@code true}, <code>GET /api/products</code> sin parámetros
+     * devuelve el catálogo completo como antes de la paginación.
+     */
+    @Value("${products.list.unpaged-enabled:false}")
+    private boolean unpagedListEnabled;
+
+    /**
+     * Número máximo de ids en una consulta por lista de ids.
+     */
+    @Value("${products.lookup.max-ids:100}")
+    private int maxLookupIds;
+
+    /**
+     * Número máximo de operaciones en un lote.
+     */
+    @Value("${products.batch.max-operations:1000}")
+    private int maxBatchOperations;
+
+    /**
+     * Resultados de una búsqueda cuando no se indica <code>limit</code>.
+     */
+    @Value("${products.search.default-limit:10}")
+    private int defaultSearchLimit;
+
+    /**
+     * Resultados máximos de una búsqueda; los valores mayores se recortan.
+     */
+    @Value("${products.search.max-limit:50}")
+    private int maxSearchLimit;
+
+    /**
+     * Longitud máxima del texto de búsqueda.
+     */
+    @Value("${products.search.max-query-length:200}")
+    private int maxSearchQueryLength;
+
+    /**
+     * Obtiene los productos disponibles.
      *
      * <p>Requiere rol <code>ADMIN</code> o <code>USER</code> para acceder.</p>
+     * <p>Devuelve una {@link ProductPage} paginada por clave: la respuesta
+     * incluye <code>nextCursor</code>, que se envía como <code>cursor</code>
+     * para obtener la página siguiente. Sin parámetros devuelve la primera
+     * página de <code>products.page.max-size</code> productos por id, o el
+     * catálogo completo si <code>products.list.unpaged-enabled</code> está
+     * activo; para descargar el catálogo completo está
+     * {@link #export(String)}. Con
+     * <code>page</code> se pagina por desplazamiento, solo hasta
+     * <code>products.page.max-offset</code> filas. Con <code>ids</code>
+     * devuelve esos productos en el orden pedido (ver {@link #lookup(List)}).</p>
+     * <p>La respuesta lleva como ETag la versión del catálogo: si el cliente
+     * la envía en <code>If-None-Match</code> y el catálogo no ha cambiado,
+     * se responde <strong>304</strong> sin consultar la base de datos.</p>
      *
-     * @return lista de todos los {@link Product} persistidos.
+     * @param cursor token de continuación de la página anterior.
+     * @param sort   orden del listado: <code>id</code> (por defecto) o <code>price</code>.
+     * @param size   productos por página (como máximo <code>products.page.max-size</code>).
+     * @param page    número de página (desde 0) para paginar por desplazamiento.
+     * @param ids     ids de los productos a devolver, separados por comas.
+     * @param request petición, para evaluar <code>If-None-Match</code>.
+     * @return {@link ResponseEntity} con:
+     *         <ul>
+     *           <li><strong>200 OK</strong> y la página, la lista completa o los productos solicitados.</li>
+     *           <li><strong>304 Not Modified</strong> si el catálogo no ha cambiado.</li>
+     *           <li><strong>400 Bad Request</strong> si el cursor, el orden, la página o los ids no son válidos.</li>
+     *         </ul>
      */
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
-    public List<Product> list() {
-        return service.findAll();
+    public ResponseEntity<?> list(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) List<Long> ids,
+            WebRequest request) {
+        if (ids != null) {
+            if (cursor != null || sort != null || size != null || page != null) {
+                return badRequest("ids no se puede combinar con la paginación");
+            }
+            String error = lookupError(ids);
+            if (error != null) {
+                return badRequest(error);
+            }
+            return catalogResponse(request, () -> service.findAllById(ids));
+        }
+        boolean unpaged = cursor == null && sort == null && size == null && page == null;
+        if (unpaged && unpagedListEnabled) {
+            return catalogResponse(request, service::findAll);
+        }
+        int pageSize = unpaged ? maxPageSize
+            : size == null ? defaultPageSize : Math.min(Math.max(size, 1), maxPageSize);
+
+        ProductCursor after;
+        ProductCursor.Sort order;
+        try {
+            after = cursor == null ? null : ProductCursor.decode(cursor);
+            order = sort == null ? null : ProductCursor.Sort.fromParameter(sort);
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+        if (after != null && order != null && after.sort() != order) {
+            return badRequest("El cursor no corresponde al orden solicitado");
+        }
+        ProductCursor.Sort pageOrder = order != null ? order
+            : after != null ? after.sort() : ProductCursor.Sort.ID;
+
+        if (page != null) {
+            if (after != null) {
+                return badRequest("No se pueden combinar page y cursor");
+            }
+            if (page < 0 || (long) page * pageSize > maxPageOffset) {
+                return badRequest("Página fuera de rango; use cursor para avanzar más allá de "
+                    + maxPageOffset + " productos");
+            }
+            return catalogResponse(request, () -> service.findPage(pageOrder, page, pageSize));
+        }
+        return catalogResponse(request, () -> service.scroll(pageOrder, after, pageSize));
+    }
+
+    /**
+     * Obtiene varios productos por id en una sola operación.
+     *
+     * <p>Requiere rol <code>ADMIN</code> o <code>USER</code> para acceder.</p>
+     * <p>Variante de <code>GET /api/products?ids=...</code> para listas
+     * largas: el cuerpo es un array JSON de ids. Los productos que no están
+     * en la caché de segundo nivel se leen con una única consulta
+     * <code>IN</code>; se devuelven en el orden pedido (los ids repetidos
+     * una sola vez) y los ids que no existen se indican en
+     * <code>missing</code>.</p>
+     *
+     * @param ids ids de los productos (como máximo <code>products.lookup.max-ids</code>).
+     * @return {@link ResponseEntity} con:
+     *         <ul>
+     *           <li><strong>200 OK</strong> y un {@link ProductLookupResult}.</li>
+     *           <li><strong>400 Bad Request</strong> si la lista tiene ids nulos o demasiados ids.</li>
+     *         </ul>
+     */
+    @PostMapping("/lookup")
+    @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
+    public ResponseEntity<?> lookup(@RequestBody List<Long> ids) {
+        String error = lookupError(ids);
+        if (error != null) {
+            return badRequest(error);
+        }
+        return ResponseEntity.ok(service.findAllById(ids));
     }
-    
+
+    /**
+     * Busca productos por texto en el nombre y la descripción.
+     *
+     * <p>Requiere rol <code>ADMIN</code> o <code>USER</code> para acceder.</p>
+     * <p>La búsqueda usa un índice invertido en memoria, sin recorrer la
+     * tabla: basta con que coincida un término, sin distinguir mayúsculas ni
+     * tildes, y los productos se ordenan por relevancia (BM25), con más peso
+     * para el nombre. Los productos encontrados se leen de la caché de
+     * segundo nivel o con una única consulta <code>IN</code>. Como el
+     * listado, la respuesta lleva la versión del catálogo como ETag.</p>
+     *
+     * @param q       texto a buscar.
+     * @param limit   resultados máximos (como máximo <code>products.search.max-limit</code>).
+     * @param request petición, para evaluar <code>If-None-Match</code>.
+     * @return {@link ResponseEntity} con:
+     *         <ul>
+     *           <li><strong>200 OK</strong> y los productos, del más al menos relevante.</li>
+     *           <li><strong>304 Not Modified</strong> si el catálogo no ha cambiado.</li>
+     *           <li><strong>400 Bad Request</strong> si el texto está vacío o es demasiado largo.</li>
+     *         </ul>
+     */
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
+    public ResponseEntity<?> search(@RequestParam String q,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        if (q.isBlank()) {
+            return badRequest("El texto de búsqueda no puede estar vacío");
+        }
+        if (q.length() > maxSearchQueryLength) {
+            return badRequest("El texto de búsqueda admite como máximo " + maxSearchQueryLength + " caracteres");
+        }
+        int resultLimit = limit == null ? defaultSearchLimit : Math.min(Math.max(limit, 1), maxSearchLimit);
+        return catalogResponse(request, () -> service.search(q, resultLimit));
+    }
+
+    /**
+     * Exporta el catálogo completo como NDJSON (un producto JSON por línea),
+     * ordenado por id.
+     *
+     * <p>Requiere rol <code>ADMIN</code> o <code>USER</code> para acceder.</p>
+     * <p>Las filas se leen en streaming y se escriben según llegan, de modo
+     * que la memoria usada no depende del tamaño del catálogo. Si el cliente
+     * acepta <code>gzip</code> en <code>Accept-Encoding</code> (explícitamente
+     * o con <code>*</code>, y con <code>q</code> mayor que 0) la respuesta se
+     * comprime.</p>
+     *
+     * @param acceptEncoding cabecera <code>Accept-Encoding</code> de la petición.
+     * @return {@link ResponseEntity} con estado <strong>200 OK</strong> y el
+     *         cuerpo <code>application/x-ndjson</code> en streaming.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        ObjectWriter writer = objectMapper.writerFor(Product.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(target)) {
+                // Sin separador entre valores: cada línea termina en '\n'
+                generator.setRootValueSeparator(null);
+                service.forEachProduct(product -> {
+                    try {
+                        writer.writeValue(generator, product);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
     /**
      * Recupera un producto por su identificador.
      *
      * <p>Requiere rol <code>ADMIN</code> o <code>USER</code> para acceder.</p>
+     * <p>La respuesta lleva un ETag fuerte con la versión del producto. Si
+     * coincide con <code>If-None-Match</code> se responde <strong>304</strong>
+     * sin serializar; el producto suele salir de la caché de segundo nivel,
+     * sin consultar la base de datos.</p>
      *
      * @param id identificador único del producto a recuperar.
      * @return {@link ResponseEntity} con:
      *         <ul>
      *           <li><strong>200 OK</strong> y el producto en el cuerpo si existe.</li>
+     *           <li><strong>304 Not Modified</strong> si el producto no ha cambiado.</li>
      *           <li><strong>404 Not Found</strong> si no se encuentra.</li>
      *         </ul>
      */
@@ -78,7 +394,12 @@ public class ProductController {
     public ResponseEntity<?> view(@PathVariable Long id) {
         Optional<Product> productOptional = service.findById(id);
         if (productOptional.isPresent()) {
-            return ResponseEntity.ok(productOptional.orElseThrow());
+            Product product = productOptional.orElseThrow();
+            // Para GET, Spring compara el ETag con If-None-Match antes de escribir el cuerpo
+            return ResponseEntity.ok()
+                .eTag(etag(product))
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(product);
         }
         return ResponseEntity.notFound().build();
     }
@@ -107,6 +428,82 @@ public class ProductController {
         return ResponseEntity.status(HttpStatus.CREATED).body(service.save(product));
     }
 
+    /**
+     * Importa productos de forma masiva desde NDJSON o CSV.
+     *
+     * <p>Requiere rol <code>ADMIN</code> para acceder.</p>
+     * <p>El formato se elige con <code>Content-Type</code>:
+     * <code>application/x-ndjson</code> (un producto JSON por línea) o
+     * <code>text/csv</code> (con cabecera <code>sku,name,price,description</code>).
+     * Las filas se validan en paralelo y se guardan por bloques con INSERT
+     * en lote; las filas no válidas se omiten y se informan en la respuesta
+     * junto con el rendimiento (filas/s).</p>
+     *
+     * @param contentType tipo de contenido del cuerpo.
+     * @param body        cuerpo de la petición, leído en streaming.
+     * @return {@link ResponseEntity} con:
+     *         <ul>
+     *           <li><strong>200 OK</strong> y un {@link ProductImportResult} con los errores por fila.</li>
+     *           <li><strong>400 Bad Request</strong> si la cabecera CSV no es válida.</li>
+     *         </ul>
+     * @throws IOException si falla la lectura del cuerpo.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(path = "/import", consumes = { MediaType.APPLICATION_NDJSON_VALUE, "text/csv" })
+    public ResponseEntity<?> importProducts(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) throws IOException {
+        ProductImportService.Format format = contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)
+            ? ProductImportService.Format.NDJSON
+            : ProductImportService.Format.CSV;
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        try {
+            return ResponseEntity.ok(importService.importProducts(new InputStreamReader(body, charset), format));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+    }
+
+    /**
+     * Aplica un lote de altas, modificaciones y borrados en una transacción.
+     *
+     * <p>Requiere rol <code>ADMIN</code> para acceder.</p>
+     * <p>Las operaciones (<code>create</code>, <code>update</code> con
+     * <code>id</code>, <code>delete</code> con <code>id</code>, y
+     * <code>version</code> opcional en ambas) se aplican en orden. Los
+     * productos afectados se leen con una sola consulta y los cambios se
+     * escriben en lotes JDBC al confirmar. Con <code>mode</code>
+     * <code>atomic</code> (por defecto) una operación fallida deshace todo el
+     * lote; con <code>best-effort</code> solo se omite esa operación.</p>
+     *
+     * @param request operaciones (como máximo <code>products.batch.max-operations</code>) y modo.
+     * @return {@link ResponseEntity} con:
+     *         <ul>
+     *           <li><strong>200 OK</strong> y un {@link ProductBatchResult} si se guardó el lote.</li>
+     *           <li><strong>400 Bad Request</strong> si el lote está vacío o es demasiado grande.</li>
+     *           <li><strong>409 Conflict</strong> si no se guardó: con el resultado de cada
+     *               operación en modo <code>atomic</code>, o con un mensaje si la base de
+     *               datos rechazó el lote por una restricción o un cambio concurrente.</li>
+     *         </ul>
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/batch")
+    public ResponseEntity<?> batch(@RequestBody ProductBatchRequest request) {
+        if (request.operations() == null || request.operations().isEmpty()) {
+            return badRequest("El lote no contiene operaciones");
+        }
+        if (request.operations().size() > maxBatchOperations) {
+            return badRequest("Se admiten como máximo " + maxBatchOperations + " operaciones por lote");
+        }
+        try {
+            ProductBatchResult result = service.batch(request);
+            return ResponseEntity.status(result.committed() ? HttpStatus.OK : HttpStatus.CONFLICT).body(result);
+        } catch (DataIntegrityViolationException | OptimisticLockingFailureException e) {
+            // Solo los conflictos de datos; los fallos de la base de datos siguen como 5xx
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("message", "La base de datos ha rechazado el lote; no se ha aplicado ninguna operación"));
+        }
+    }
+
     /**
      * Actualiza un producto existente.
      *
@@ -114,26 +511,109 @@ public class ProductController {
      * <p>Valida el objeto {@link Product} y, si hay errores,
      * devuelve <strong>400 Bad Request</strong> con detalles. Si el producto no existe,
      * devuelve <strong>404 Not Found</strong>.</p>
+     * <p>Con <code>If-Match</code> solo se actualiza si el ETag del producto
+     * coincide, de modo que un cliente no pisa cambios que no ha visto.</p>
      *
      * @param product objeto {@link Product} con datos para actualizar.
      * @param result  contenedor de errores de validación tras aplicar {@code @Valid}.
      * @param id      identificador del producto a actualizar.
+     * @param ifMatch cabecera <code>If-Match</code> de la petición.
      * @return {@link ResponseEntity} con:
      *         <ul>
      *           <li><strong>201 Created</strong> y el producto actualizado si existe y pasa validación.</li>
      *           <li><strong>400 Bad Request</strong> y mapa de errores si falla validación.</li>
      *           <li><strong>404 Not Found</strong> si no existe producto con ese id.</li>
+     *           <li><strong>412 Precondition Failed</strong> si el producto ha cambiado, o si no existe y se envió <code>If-Match</code>.</li>
      *         </ul>
      */
     @PreAuthorize("hasRole('ADMIN')")
     @PutMapping("/{id}")
-    public ResponseEntity<?> update(@Valid @RequestBody Product product, BindingResult result, @PathVariable Long id) {
+    public ResponseEntity<?> update(@Valid @RequestBody Product product, BindingResult result, @PathVariable Long id,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         if (result.hasFieldErrors()) {
             return validation(result);
         }
-        Optional<Product> productOptional = service.update(id, product);
+        List<Long> expectedVersions = ifMatchVersions(ifMatch);
+        if (expectedVersions != null && expectedVersions.isEmpty()) {
+            return preconditionFailed();
+        }
+        Optional<Product> productOptional;
+        try {
+            productOptional = service.update(id, product, expectedVersions);
+        } catch (OptimisticLockingFailureException e) {
+            return preconditionFailed();
+        }
+        if (productOptional.isPresent()) {
+            Product updated = productOptional.orElseThrow();
+            return ResponseEntity.status(HttpStatus.CREATED).eTag(etag(updated)).body(updated);
+        }
+        return notFound(ifMatch);
+    }
+
+    /**
+     * Modifica parcialmente un producto con JSON Merge Patch.
+     *
+     * <p>Requiere rol <code>ADMIN</code> para acceder.</p>
+     * <p>Solo se modifican los atributos presentes en el documento
+     * (<code>sku</code>, <code>name</code>, <code>price</code>,
+     * <code>description</code>), que se validan con las mismas reglas que en
+     * la creación; <code>null</code> no está permitido porque todos son
+     * obligatorios. Los cambios se aplican con un único <code>UPDATE</code>
+     * de esas columnas, sin leer antes el producto. Con <code>If-Match</code>
+     * el <code>UPDATE</code> solo afecta al producto si su versión coincide.
+     * Con <code>Prefer: return=minimal</code> se responde sin cuerpo y no se
+     * lee el producto en ningún momento.</p>
+     *
+     * @param id      identificador del producto a modificar.
+     * @param patch   documento de cambios.
+     * @param ifMatch cabecera <code>If-Match</code> de la petición.
+     * @param prefer  cabecera <code>Prefer</code> de la petición.
+     * @return {@link ResponseEntity} con:
+     *         <ul>
+     *           <li><strong>200 OK</strong> y el producto modificado.</li>
+     *           <li><strong>204 No Content</strong> si se pidió <code>return=minimal</code>.</li>
+     *           <li><strong>400 Bad Request</strong> y mapa de errores si el documento no es válido.</li>
+     *           <li><strong>404 Not Found</strong> si no existe producto con ese id.</li>
+     *           <li><strong>412 Precondition Failed</strong> si el producto ha cambiado, o si no existe y se envió <code>If-Match</code>.</li>
+     *         </ul>
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PatchMapping(path = "/{id}", consumes = { MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<?> patch(@PathVariable Long id, @RequestBody Map<String, Object> patch,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(name = "Prefer", required = false) String prefer) {
+        Map<String, String> errors = new HashMap<>();
+        Map<String, Object> changes = patchChanges(patch, errors);
+        if (!errors.isEmpty()) {
+            return ResponseEntity.badRequest().body(errors);
+        }
+
+        List<Long> expectedVersions = ifMatchVersions(ifMatch);
+        if (expectedVersions != null && expectedVersions.isEmpty()) {
+            return preconditionFailed();
+        }
+
+        try {
+            if (!service.patch(id, changes, expectedVersions)) {
+                return notFound(ifMatch);
+            }
+        } catch (OptimisticLockingFailureException e) {
+            return preconditionFailed();
+        }
+
+        if (prefersMinimal(prefer)) {
+            ResponseEntity.HeadersBuilder<?> response = ResponseEntity.noContent()
+                .header("Preference-Applied", "return=minimal");
+            // Con una sola versión esperada, la nueva se conoce sin leer el producto
+            if (expectedVersions != null && expectedVersions.size() == 1 && !changes.isEmpty()) {
+                response.eTag("\"" + (expectedVersions.get(0) + 1) + "\"");
+            }
+            return response.build();
+        }
+        Optional<Product> productOptional = service.findById(id);
         if (productOptional.isPresent()) {
-            return ResponseEntity.status(HttpStatus.CREATED).body(productOptional.orElseThrow());
+            Product product = productOptional.orElseThrow();
+            return ResponseEntity.ok().eTag(etag(product)).body(product);
         }
         return ResponseEntity.notFound().build();
     }
@@ -142,22 +622,239 @@ public class ProductController {
      * Elimina un producto por su identificador.
      *
      * <p>Requiere rol <code>ADMIN</code> para acceder.</p>
+     * <p>Con <code>If-Match</code> solo se elimina si el ETag del producto
+     * coincide.</p>
      *
-     * @param id identificador del producto a eliminar.
+     * @param id      identificador del producto a eliminar.
+     * @param ifMatch cabecera <code>If-Match</code> de la petición.
      * @return {@link ResponseEntity} con:
      *         <ul>
      *           <li><strong>200 OK</strong> y el producto eliminado en el cuerpo si existía.</li>
      *           <li><strong>404 Not Found</strong> si no se encuentra el producto.</li>
+     *           <li><strong>412 Precondition Failed</strong> si el producto ha cambiado, o si no existe y se envió <code>If-Match</code>.</li>
      *         </ul>
      */
     @PreAuthorize("hasRole('ADMIN')")
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> delete(@PathVariable Long id) {
-        Optional<Product> productOptional = service.delete(id);
+    public ResponseEntity<?> delete(@PathVariable Long id,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        List<Long> expectedVersions = ifMatchVersions(ifMatch);
+        if (expectedVersions != null && expectedVersions.isEmpty()) {
+            return preconditionFailed();
+        }
+        Optional<Product> productOptional;
+        try {
+            productOptional = service.delete(id, expectedVersions);
+        } catch (OptimisticLockingFailureException e) {
+            return preconditionFailed();
+        }
         if (productOptional.isPresent()) {
             return ResponseEntity.ok(productOptional.orElseThrow());
         }
-        return ResponseEntity.notFound().build();
+        return notFound(ifMatch);
+    }
+
+    /**
+     * Comprueba una lista de ids de una consulta por ids.
+     *
+     * @param ids ids solicitados.
+     * @return el mensaje de error, o {@code null} si la lista es válida.
+     */
+    private String lookupError(List<Long> ids) {
+        if (ids.size() > maxLookupIds) {
+            return "Se admiten como máximo " + maxLookupIds + " ids por petición";
+        }
+        if (ids.contains(null)) {
+            return "La lista de ids contiene valores vacíos";
+        }
+        return null;
+    }
+
+    /**
+     * Convierte y valida un documento JSON Merge Patch.
+     *
+     * @param patch  documento recibido.
+     * @param errors mapa donde se añaden los errores por campo.
+     * @return valores tipados por atributo, en el orden del documento.
+     */
+    private Map<String, Object> patchChanges(Map<String, Object> patch, Map<String, String> errors) {
+        patch.keySet().stream()
+            .filter(field -> !PATCHABLE.containsKey(field))
+            .forEach(field -> errors.put(field, "El campo " + field + " no se puede modificar"));
+        if (!errors.isEmpty()) {
+            return Map.of();
+        }
+        Product values;
+        try {
+            values = objectMapper.convertValue(patch, Product.class);
+        } catch (IllegalArgumentException e) {
+            errors.put("patch", "El documento de cambios no tiene el formato esperado");
+            return Map.of();
+        }
+        Map<String, Object> changes = new LinkedHashMap<>();
+        for (String field : patch.keySet()) {
+            Object value = PATCHABLE.get(field).apply(values);
+            for (ConstraintViolation<Product> violation : validator.validateValue(Product.class, field, value)) {
+                errors.put(field, "El campo " + field + " " + violation.getMessage());
+            }
+            changes.put(field, value);
+        }
+        return changes;
+    }
+
+    /**
+     * Responde con la versión del catálogo como ETag, o con
+     * <strong>304 Not Modified</strong> sin ejecutar la consulta si coincide
+     * con <code>If-None-Match</code>.
+     *
+     * @param request petición en curso.
+     * @param query   consulta que produce el cuerpo.
+     * @return la respuesta, o {@code null} si ya se ha respondido 304.
+     */
+    private ResponseEntity<?> catalogResponse(WebRequest request, Supplier<?> query) {
+        // La versión se lee antes de consultar: si el catálogo cambia entre
+        // medias, el ETag queda antiguo y el cliente volverá a descargarlo
+        String etag = ETag.quoteETagIfNecessary(service.catalogVersion());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        // checkNotModified ya ha puesto la cabecera ETag en la respuesta
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.noCache().cachePrivate())
+            .body(query.get());
+    }
+
+    /**
+     * Indica si <code>Accept-Encoding</code> admite gzip. Una codificación
+     * nombrada explícitamente prevalece sobre <code>*</code>, y
+     * <code>q=0</code> la rechaza.
+     *
+     * @param acceptEncoding cabecera <code>Accept-Encoding</code>, o {@code null}.
+     * @return {@code true} si se puede responder con gzip.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        double gzip = -1;
+        double wildcard = -1;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim().toLowerCase(Locale.ROOT);
+                if (parameter.startsWith("q=")) {
+                    quality = quality(parameter.substring(2));
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = Math.max(gzip, quality);
+            } else if (coding.equals("*")) {
+                wildcard = Math.max(wildcard, quality);
+            }
+        }
+        return (gzip >= 0 ? gzip : wildcard) > 0;
+    }
+
+    /**
+     * Lee un valor <code>q</code>; uno mal formado cuenta como 0.
+     */
+    private static double quality(String value) {
+        try {
+            double quality = Double.parseDouble(value.trim());
+            return quality >= 0 && quality <= 1 ? quality : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Indica si <code>Prefer</code> pide <code>return=minimal</code>.
+     *
+     * @param prefer cabecera <code>Prefer</code>, o {@code null}.
+     * @return {@code true} si alguna preferencia es <code>return=minimal</code>.
+     */
+    static boolean prefersMinimal(String prefer) {
+        if (prefer == null) {
+            return false;
+        }
+        for (String preference : prefer.split(",")) {
+            // Los parámetros de la preferencia (tras ';') no cambian su valor
+            String[] pair = preference.split(";")[0].split("=", 2);
+            if (pair.length == 2 && pair[0].trim().equalsIgnoreCase("return")
+                    && pair[1].trim().replace("\"", "").equalsIgnoreCase("minimal")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Extrae de <code>If-Match</code> las versiones que acepta el cliente,
+     * sin leer el producto.
+     *
+     * @param ifMatch cabecera <code>If-Match</code>, o {@code null}.
+     * @return las versiones de los ETag fuertes (vacía si ninguno puede
+     *         coincidir), o {@code null} si no hay cabecera o es <code>*</code>.
+     */
+    private static List<Long> ifMatchVersions(String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        List<Long> versions = new ArrayList<>();
+        for (ETag tag : ETag.parse(ifMatch)) {
+            if (tag.isWildcard()) {
+                return null;
+            }
+            // Solo los ETag fuertes generados por etag(Product) pueden coincidir
+            if (!tag.weak() && tag.tag().matches("\\d{1,18}")) {
+                versions.add(Long.valueOf(tag.tag()));
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * ETag fuerte de un producto, derivado de su versión.
+     *
+     * @param product producto guardado.
+     * @return el ETag entre comillas.
+     */
+    private static String etag(Product product) {
+        return "\"" + product.getVersion() + "\"";
+    }
+
+    /**
+     * Construye una respuesta <strong>412 Precondition Failed</strong>.
+     *
+     * @return {@link ResponseEntity} con cuerpo <code>{"message": ...}</code>.
+     */
+    private ResponseEntity<?> preconditionFailed() {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+            .body(Map.of("message", "El producto ha cambiado; vuelva a leerlo antes de modificarlo"));
+    }
+
+    /**
+     * Responde a una escritura sobre un producto que no existe. Con
+     * <code>If-Match</code> la precondición no se cumple, así que se responde
+     * <strong>412</strong> antes que <strong>404</strong> (RFC 9110, 13.1.1).
+     *
+     * @param ifMatch cabecera <code>If-Match</code>, o {@code null}.
+     * @return {@link ResponseEntity} con estado 412 o 404.
+     */
+    private ResponseEntity<?> notFound(String ifMatch) {
+        return ifMatch != null ? preconditionFailed() : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Construye una respuesta <strong>400 Bad Request</strong> con un mensaje.
+     *
+     * @param message descripción del error.
+     * @return {@link ResponseEntity} con cuerpo <code>{"message": ...}</code>.
+     */
+    private ResponseEntity<?> badRequest(String message) {
+        return ResponseEntity.badRequest().body(Map.of("message", message));
     }
 
     /**
@@ -3,6 +3,7 @@ package com.german.apirest.springboot.app.springbootcrud.controllers;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -11,6 +12,8 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -29,6 +32,8 @@ import jakarta.validation.Valid;
  *   <li>Listing all users</li>
  *   <li>Creating new users (ADMIN only)</li>
  *   <li>Self-registration of non-admin users</li>
+ *   <li>Enabling/disabling users and granting/revoking ADMIN (ADMIN only);
+ *       both invalidate the user's issued tokens within seconds</li>
  * </ul>
  * Business logic is delegated to {@link UserService}.</p>
  *
@@ -102,6 +107,64 @@ public class UserController {
         return create(user, result);
     }
 
+    /**
+     * Habilita o deshabilita un usuario.
+     *
+     * <p>Requiere rol <code>ADMIN</code>. Los tokens ya emitidos al
+     * usuario dejan de ser válidos en todos los nodos en pocos segundos.</p>
+     *
+     * @param id      identificador del usuario.
+     * @param request cuerpo JSON con el campo booleano <code>enabled</code>.
+     * @return {@link ResponseEntity} con:
+     *         <ul>
+     *           <li><strong>200 OK</strong> y el usuario actualizado.</li>
+     *           <li><strong>400 Bad Request</strong> si falta el campo <code>enabled</code>.</li>
+     *           <li><strong>404 Not Found</strong> si el usuario no existe.</li>
+     *         </ul>
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PutMapping("/{id}/enabled")
+    public ResponseEntity<?> setEnabled(@PathVariable Long id, @RequestBody Map<String, Boolean> request) {
+        Boolean enabled = request.get("enabled");
+        if (enabled == null) {
+            return ResponseEntity.badRequest().body(Map.of("enabled", "El campo enabled es requerido"));
+        }
+        Optional<User> userOptional = service.setEnabled(id, enabled);
+        if (userOptional.isPresent()) {
+            return ResponseEntity.ok(userOptional.orElseThrow());
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Concede o retira el rol <code>ADMIN</code> a un usuario.
+     *
+     * <p>Requiere rol <code>ADMIN</code>. Los tokens ya emitidos al
+     * usuario dejan de ser válidos en todos los nodos en pocos segundos.</p>
+     *
+     * @param id      identificador del usuario.
+     * @param request cuerpo JSON con el campo booleano <code>admin</code>.
+     * @return {@link ResponseEntity} con:
+     *         <ul>
+     *           <li><strong>200 OK</strong> y el usuario actualizado.</li>
+     *           <li><strong>400 Bad Request</strong> si falta el campo <code>admin</code>.</li>
+     *           <li><strong>404 Not Found</strong> si el usuario no existe.</li>
+     *         </ul>
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PutMapping("/{id}/admin")
+    public ResponseEntity<?> setAdmin(@PathVariable Long id, @RequestBody Map<String, Boolean> request) {
+        Boolean admin = request.get("admin");
+        if (admin == null) {
+            return ResponseEntity.badRequest().body(Map.of("admin", "El campo admin es requerido"));
+        }
+        Optional<User> userOptional = service.setAdmin(id, admin);
+        if (userOptional.isPresent()) {
+            return ResponseEntity.ok(userOptional.orElseThrow());
+        }
+        return ResponseEntity.notFound().build();
+    }
+
     /**
      * Construye la respuesta de error en caso de validación fallida.
      *
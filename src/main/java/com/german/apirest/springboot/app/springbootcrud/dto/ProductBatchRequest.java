@@ -0,0 +1,62 @@
+package com.german.apirest.springboot.app.springbootcrud.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.german.apirest.springboot.app.springbootcrud.entities.Product;
+
+/**
+ * Lote de operaciones de <code>POST /api/products/batch</code>.
+ *
+ * @param mode       modo de ejecución; {@link Mode#ATOMIC} si se omite.
+ * @param operations operaciones, que se aplican en orden.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+public record ProductBatchRequest(Mode mode, List<Operation> operations) {
+
+    /**
+     * Modo de ejecución del lote.
+     */
+    public enum Mode {
+
+        /**
+         * Todo o nada: si falla una operación no se aplica ninguna.
+         */
+        @JsonProperty("atomic")
+        ATOMIC,
+
+        /**
+         * Se aplican las operaciones válidas y se omiten las que fallan.
+         */
+        @JsonProperty("best-effort")
+        BEST_EFFORT
+    }
+
+    /**
+     * Tipo de operación.
+     */
+    public enum Type {
+
+        @JsonProperty("create")
+        CREATE,
+
+        @JsonProperty("update")
+        UPDATE,
+
+        @JsonProperty("delete")
+        DELETE
+    }
+
+    /**
+     * Operación del lote.
+     *
+     * @param op      tipo de operación.
+     * @param id      producto afectado (<code>update</code> y <code>delete</code>).
+     * @param version versión esperada del producto, o {@code null} para no comprobarla.
+     * @param product datos del producto (<code>create</code> y <code>update</code>).
+     */
+    public record Operation(Type op, Long id, Long version, Product product) {
+    }
+}
@@ -0,0 +1,50 @@
+package com.german.apirest.springboot.app.springbootcrud.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.german.apirest.springboot.app.springbootcrud.entities.Product;
+
+/**
+ * Resultado de un lote de operaciones sobre productos.
+ *
+ * @param committed {@code true} si se guardaron las operaciones aplicadas.
+ * @param results   resultado de cada operación, en el orden del lote.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+public record ProductBatchResult(boolean committed, List<OperationResult> results) {
+
+    /**
+     * Resultado de una operación.
+     *
+     * @param status  código HTTP equivalente: 201, 200, 400, 404, 412, o 424
+     *                si no se aplicó porque falló otra operación del lote.
+     * @param product producto creado, actualizado o eliminado, si se aplicó.
+     * @param errors  mensajes por campo si falló.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record OperationResult(int status, Product product, Map<String, String> errors) {
+
+        /**
+         * @param status  código de la operación aplicada.
+         * @param product producto afectado.
+         * @return el resultado de una operación aplicada.
+         */
+        public static OperationResult applied(int status, Product product) {
+            return new OperationResult(status, product, null);
+        }
+
+        /**
+         * @param status  código del error.
+         * @param field   campo afectado, o <code>operation</code> para la operación completa.
+         * @param message descripción del error.
+         * @return el resultado de una operación fallida.
+         */
+        public static OperationResult failed(int status, String field, String message) {
+            return new OperationResult(status, null, Map.of(field, message));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.german.apirest.springboot.app.springbootcrud.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import com.german.apirest.springboot.app.springbootcrud.entities.Product;
+
+/**
+ * Posición de continuación de un listado paginado de productos por clave
+ * (keyset).
+ * <p>
+ * Guarda la clave de ordenación del último producto devuelto; la página
+ * siguiente empieza justo después de ella, de modo que el coste no crece
+ * con la profundidad y las inserciones o borrados no desplazan filas entre
+ * páginas. Se expone al cliente como un token opaco en Base64 URL.
+ * </p>
+ *
+ * @param sort  orden del listado al que pertenece el cursor.
+ * @param price precio del último producto (solo con {@link Sort#PRICE}).
+ * @param id    id del último producto.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+public record ProductCursor(Sort sort, int price, long id) {
+
+    /**
+     * Órdenes estables admitidos por el listado paginado.
+     */
+    public enum Sort {
+
+        /**
+         * Por <code>id</code> ascendente.
+         */
+        ID,
+
+        /**
+         * Por <code>price</code> ascendente y, a igual precio, por <code>id</code>.
+         */
+        PRICE;
+
+        /**
+         * Convierte el parámetro <code>sort</code> de la petición.
+         *
+         * @param value valor del parámetro (<code>id</code> o <code>price</code>).
+         * @return el orden correspondiente.
+         * @throws IllegalArgumentException si el valor no es un orden admitido.
+         */
+        public static Sort fromParameter(String value) {
+            for (Sort sort : values()) {
+                if (sort.name().equalsIgnoreCase(value)) {
+                    return sort;
+                }
+            }
+            throw new IllegalArgumentException("Orden no admitido: " + value);
+        }
+    }
+
+    /**
+     * Crea el cursor que apunta justo después de un producto.
+     *
+     * @param sort    orden del listado.
+     * @param product último producto de la página.
+     * @return cursor de la página siguiente.
+     */
+    public static ProductCursor after(Sort sort, Product product) {
+        int price = sort == Sort.PRICE ? product.getPrice() : 0;
+        return new ProductCursor(sort, price, product.getId());
+    }
+
+    /**
+     * Codifica el cursor como token opaco.
+     *
+     * @return token en Base64 URL sin relleno.
+     */
+    public String encode() {
+        String raw = sort == Sort.PRICE ? "p:" + price + ":" + id : "i:" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Decodifica un token generado por {@link #encode()}.
+     *
+     * @param token token opaco recibido del cliente.
+     * @return el cursor.
+     * @throws IllegalArgumentException si el token no es válido.
+     */
+    public static ProductCursor decode(String token) {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+        String[] parts = raw.split(":", -1);
+        try {
+            if (parts.length == 2 && parts[0].equals("i")) {
+                return new ProductCursor(Sort.ID, 0, Long.parseLong(parts[1]));
+            }
+            if (parts.length == 3 && parts[0].equals("p")) {
+                return new ProductCursor(Sort.PRICE, Integer.parseInt(parts[1]), Long.parseLong(parts[2]));
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor no válido", e);
+        }
+        throw new IllegalArgumentException("Cursor no válido");
+    }
+}
@@ -0,0 +1,31 @@
+package com.german.apirest.springboot.app.springbootcrud.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resultado de una importación masiva de productos.
+ *
+ * @param received      filas de datos recibidas.
+ * @param imported      productos guardados.
+ * @param failed        filas rechazadas.
+ * @param elapsedMillis duración de la importación en ms.
+ * @param rowsPerSecond filas procesadas por segundo.
+ * @param errors        errores por fila (como máximo
+ *                      <code>products.import.max-reported-errors</code>).
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+public record ProductImportResult(int received, int imported, int failed, long elapsedMillis,
+        double rowsPerSecond, List<RowError> errors) {
+
+    /**
+     * Errores de una fila rechazada.
+     *
+     * @param row    número de línea en el fichero (desde 1).
+     * @param errors mensajes por campo; <code>row</code> para errores de la fila completa.
+     */
+    public record RowError(int row, Map<String, String> errors) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.german.apirest.springboot.app.springbootcrud.dto;
+
+import java.util.List;
+
+import com.german.apirest.springboot.app.springbootcrud.entities.Product;
+
+/**
+ * Resultado de una consulta de productos por lista de ids.
+ *
+ * @param items   productos encontrados, en el orden en que se pidieron
+ *                (sin repetidos).
+ * @param missing ids solicitados que no existen, en el orden en que se pidieron.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+public record ProductLookupResult(List<Product> items, List<Long> missing) {
+}
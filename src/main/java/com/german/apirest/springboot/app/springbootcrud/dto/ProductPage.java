@@ -0,0 +1,37 @@
+package com.german.apirest.springboot.app.springbootcrud.dto;
+
+import java.util.List;
+
+import com.german.apirest.springboot.app.springbootcrud.entities.Product;
+
+/**
+ * Página de productos devuelta por <code>GET /api/products</code> cuando
+ * se solicita paginación.
+ *
+ * @param items      productos de la página, en el orden solicitado.
+ * @param nextCursor token opaco de la página siguiente, o {@code null} si
+ *                   es la última.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+public record ProductPage(List<Product> items, String nextCursor) {
+
+    /**
+     * Construye la página a partir de una consulta que ha leído hasta
+     * <code>size + 1</code> filas: la fila adicional solo indica que hay
+     * más resultados y no se devuelve.
+     *
+     * @param rows filas leídas.
+     * @param size tamaño de página solicitado.
+     * @param sort orden del listado.
+     * @return la página con su cursor de continuación.
+     */
+    public static ProductPage of(List<Product> rows, int size, ProductCursor.Sort sort) {
+        if (rows.size() <= size) {
+            return new ProductPage(rows, null);
+        }
+        List<Product> items = rows.subList(0, size);
+        return new ProductPage(items, ProductCursor.after(sort, items.get(size - 1)).encode());
+    }
+}
@@ -1,11 +1,20 @@
 package com.german.apirest.springboot.app.springbootcrud.entities;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.german.apirest.springboot.app.springbootcrud.HibernateCacheConfig;
 import com.german.apirest.springboot.app.springbootcrud.validation.IsRequired;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -17,25 +26,45 @@ import jakarta.validation.constraints.Size;
  * Cada instancia contiene información de SKU, nombre, precio y descripción,
  * con validaciones aplicadas sobre los campos.
  * </p>
+ * <p>
+ * Se guarda en la caché de segundo nivel (región <code>products</code>);
+ * las actualizaciones y borrados a través de Hibernate la mantienen al día.
+ * </p>
  *
  * @author German
  * @version 1.0
  */
 @Entity
-@Table(name = "products")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.PRODUCTS_REGION)
+@Table(name = "products", indexes = @Index(name = "idx_products_price_id", columnList = "price, id"),
+    uniqueConstraints = @UniqueConstraint(name = Product.SKU_UNIQUE_CONSTRAINT, columnNames = "sku"))
 public class Product {
 
+    /**
+     * Nombre del índice único sobre <code>sku</code>, para reconocer sus
+     * violaciones.
+     */
+    public static final String SKU_UNIQUE_CONSTRAINT = "uk_products_sku";
+
     /**
      * Identificador único generado automáticamente.
+     * <p>
+     * Se obtiene de la secuencia <code>products_seq</code> en bloques de 50
+     * (optimizador pooled), de modo que Hibernate puede agrupar los INSERT
+     * en lotes JDBC. En MySQL la secuencia se emula con una tabla.
+     * </p>
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
 
     /**
      * SKU (Stock Keeping Unit) único del producto.
      * <p>
-     * Validado como obligatorio mediante {@link IsRequired}.
+     * Validado como obligatorio mediante {@link IsRequired}. La unicidad la
+     * garantiza el índice {@value #SKU_UNIQUE_CONSTRAINT}.
      * </p>
      */
     @IsRequired
@@ -71,6 +100,18 @@ public class Product {
     @IsRequired
     private String description;
 
+    /**
+     * Versión del producto para el bloqueo optimista.
+     * <p>
+     * Hibernate la incrementa en cada actualización y la comprueba en el
+     * <code>WHERE</code> del UPDATE. Es la base del ETag del producto; en
+     * JSON es de solo lectura.
+     * </p>
+     */
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     /**
      * Obtiene el ID del producto.
      *
@@ -160,4 +201,22 @@ public class Product {
     public void setDescription(String description) {
         this.description = description;
     }
+
+    /**
+     * Obtiene la versión del producto.
+     *
+     * @return versión actual, o {@code null} si aún no se ha guardado.
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * Asigna la versión del producto.
+     *
+     * @param version versión a asignar.
+     */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+package com.german.apirest.springboot.app.springbootcrud.entities;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Entidad <code>ProductChange</code> que registra una transacción que ha
+ * creado, modificado o eliminado productos.
+ * <p>
+ * Mapeada a la tabla <code>product_changes</code>, en la que solo se
+ * insertan filas: cada escritura del catálogo añade la suya, sin bloquear
+ * ninguna fila compartida. La versión del catálogo se deriva del id máximo,
+ * el mínimo y el número de filas; las más antiguas se purgan periódicamente.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+@Entity
+@Table(name = "product_changes")
+public class ProductChange {
+
+    /**
+     * Identificador autoincremental del cambio.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Instante en que se registró el cambio.
+     */
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+
+    /**
+     * Constructor por defecto requerido por JPA.
+     */
+    public ProductChange() {
+    }
+
+    /**
+     * Crea un cambio.
+     *
+     * @param changedAt instante del cambio.
+     */
+    public ProductChange(Instant changedAt) {
+        this.changedAt = changedAt;
+    }
+
+    /**
+     * Obtiene el identificador del cambio.
+     *
+     * @return id autoincremental.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Obtiene el instante del cambio.
+     *
+     * @return instante en que se registró.
+     */
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+}
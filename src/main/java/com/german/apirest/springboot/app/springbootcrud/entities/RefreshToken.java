@@ -0,0 +1,224 @@
+package com.german.apirest.springboot.app.springbootcrud.entities;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+/**
+ * Entidad <code>RefreshToken</code> que representa un token de refresco
+ * emitido a un usuario.
+ * <p>
+ * Mapeada a la tabla <code>refresh_tokens</code>. Solo se guarda el hash
+ * SHA-256 del token, nunca el valor en claro. Los tokens que se rotan a
+ * partir de un mismo login comparten <code>familyId</code>, lo que permite
+ * revocar toda la cadena si se detecta la reutilización de uno ya usado.
+ * </p>
+ *
+ * @version 1.0
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = @Index(name = "idx_refresh_tokens_family", columnList = "family_id"))
+public class RefreshToken {
+
+    /**
+     * Identificador único del token.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Hash SHA-256 (hexadecimal) del token entregado al cliente.
+     */
+    @Column(name = "token_hash", unique = true, nullable = false, length = 64)
+    private String tokenHash;
+
+    /**
+     * Usuario al que pertenece el token.
+     */
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    /**
+     * Familia de rotación (una por login).
+     */
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
+    /**
+     * Fecha de emisión.
+     */
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    /**
+     * Fecha de expiración.
+     */
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    /**
+     * Fecha en la que se usó para rotar, o {@code null} si no se ha usado.
+     */
+    @Column(name = "used_at")
+    private Instant usedAt;
+
+    /**
+     * Indica si el token ha sido revocado.
+     */
+    private boolean revoked;
+
+    /**
+     * Obtiene el ID del token.
+     *
+     * @return identificador único.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Asigna el ID del token.
+     *
+     * @param id identificador a asignar.
+     */
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * Obtiene el hash del token.
+     *
+     * @return hash SHA-256 en hexadecimal.
+     */
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    /**
+     * Asigna el hash del token.
+     *
+     * @param tokenHash hash SHA-256 en hexadecimal.
+     */
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
+    }
+
+    /**
+     * Obtiene el usuario propietario.
+     *
+     * @return usuario del token.
+     */
+    public User getUser() {
+        return user;
+    }
+
+    /**
+     * Asigna el usuario propietario.
+     *
+     * @param user usuario del token.
+     */
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    /**
+     * Obtiene la familia de rotación.
+     *
+     * @return identificador de familia.
+     */
+    public String getFamilyId() {
+        return familyId;
+    }
+
+    /**
+     * Asigna la familia de rotación.
+     *
+     * @param familyId identificador de familia.
+     */
+    public void setFamilyId(String familyId) {
+        this.familyId = familyId;
+    }
+
+    /**
+     * Obtiene la fecha de emisión.
+     *
+     * @return instante de creación.
+     */
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Asigna la fecha de emisión.
+     *
+     * @param createdAt instante de creación.
+     */
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Obtiene la fecha de expiración.
+     *
+     * @return instante de expiración.
+     */
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Asigna la fecha de expiración.
+     *
+     * @param expiresAt instante de expiración.
+     */
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Obtiene la fecha de uso.
+     *
+     * @return instante en que se rotó, o {@code null}.
+     */
+    public Instant getUsedAt() {
+        return usedAt;
+    }
+
+    /**
+     * Asigna la fecha de uso.
+     *
+     * @param usedAt instante en que se rotó.
+     */
+    public void setUsedAt(Instant usedAt) {
+        this.usedAt = usedAt;
+    }
+
+    /**
+     * Comprueba si el token está revocado.
+     *
+     * @return <code>true</code> si está revocado.
+     */
+    public boolean isRevoked() {
+        return revoked;
+    }
+
+    /**
+     * Asigna el estado de revocación.
+     *
+     * @param revoked <code>true</code> para revocar.
+     */
+    public void setRevoked(boolean revoked) {
+        this.revoked = revoked;
+    }
+}
@@ -0,0 +1,117 @@
+package com.german.apirest.springboot.app.springbootcrud.entities;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Entidad <code>RevokedToken</code> que representa un token de acceso
+ * revocado antes de su expiración (p.ej. por logout).
+ * <p>
+ * Mapeada a la tabla <code>revoked_tokens</code>. Se identifica por el
+ * claim <code>jti</code> del token y se conserva solo hasta su
+ * <code>exp</code>; después el token ya no es válido por sí mismo.
+ * </p>
+ *
+ * @version 1.0
+ */
+@Entity
+@Table(name = "revoked_tokens", indexes = @Index(name = "idx_revoked_tokens_revoked_at", columnList = "revoked_at"))
+public class RevokedToken {
+
+    /**
+     * Identificador del token (claim <code>jti</code>).
+     */
+    @Id
+    @Column(length = 36)
+    private String jti;
+
+    /**
+     * Instante de expiración del token (claim <code>exp</code>).
+     */
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    /**
+     * Instante de la revocación, usado para la sincronización incremental.
+     */
+    @Column(name = "revoked_at", nullable = false)
+    private Instant revokedAt;
+
+    /**
+     * Constructor por defecto requerido por JPA.
+     */
+    public RevokedToken() {
+    }
+
+    /**
+     * Crea una revocación.
+     *
+     * @param jti       identificador del token.
+     * @param expiresAt expiración del token.
+     * @param revokedAt instante de la revocación.
+     */
+    public RevokedToken(String jti, Instant expiresAt, Instant revokedAt) {
+        this.jti = jti;
+        this.expiresAt = expiresAt;
+        this.revokedAt = revokedAt;
+    }
+
+    /**
+     * Obtiene el identificador del token.
+     *
+     * @return claim <code>jti</code>.
+     */
+    public String getJti() {
+        return jti;
+    }
+
+    /**
+     * Asigna el identificador del token.
+     *
+     * @param jti claim <code>jti</code>.
+     */
+    public void setJti(String jti) {
+        this.jti = jti;
+    }
+
+    /**
+     * Obtiene la expiración del token.
+     *
+     * @return instante <code>exp</code>.
+     */
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Asigna la expiración del token.
+     *
+     * @param expiresAt instante <code>exp</code>.
+     */
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Obtiene el instante de la revocación.
+     *
+     * @return instante de la revocación.
+     */
+    public Instant getRevokedAt() {
+        return revokedAt;
+    }
+
+    /**
+     * Asigna el instante de la revocación.
+     *
+     * @param revokedAt instante de la revocación.
+     */
+    public void setRevokedAt(Instant revokedAt) {
+        this.revokedAt = revokedAt;
+    }
+}
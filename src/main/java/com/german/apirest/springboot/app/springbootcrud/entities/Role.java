@@ -2,7 +2,11 @@ package com.german.apirest.springboot.app.springbootcrud.entities;
 
 import java.util.ArrayList;
 import java.util.List;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.german.apirest.springboot.app.springbootcrud.HibernateCacheConfig;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -16,11 +20,16 @@ import jakarta.persistence.Table;
  * <p>
  * Mapeada a la tabla <code>roles</code>, con relación many-to-many hacia {@link User}.
  * </p>
+ * <p>
+ * Se guarda en la caché de segundo nivel (región <code>roles</code>).
+ * </p>
  *
  * @author German
  * @version 1.0
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.ROLES_REGION)
 @Table(name = "roles")
 public class Role {
 
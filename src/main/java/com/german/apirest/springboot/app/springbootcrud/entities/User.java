@@ -1,7 +1,10 @@
 package com.german.apirest.springboot.app.springbootcrud.entities;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import org.hibernate.annotations.BatchSize;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.german.apirest.springboot.app.springbootcrud.validation.ExistsByUsername;
@@ -10,10 +13,12 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 import jakarta.persistence.UniqueConstraint;
@@ -30,9 +35,16 @@ import jakarta.validation.constraints.Size;
  * @version 1.0
  */
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "idx_users_updated_at", columnList = "updated_at"),
+    uniqueConstraints = @UniqueConstraint(name = User.USERNAME_UNIQUE_CONSTRAINT, columnNames = "username"))
 public class User {
 
+    /**
+     * Nombre del índice único sobre <code>username</code>, para reconocer
+     * sus violaciones.
+     */
+    public static final String USERNAME_UNIQUE_CONSTRAINT = "uk_users_username";
+
     /**
      * Identificador único del usuario.
      */
@@ -44,11 +56,11 @@ public class User {
      * Nombre de usuario único.
      * <p>
      * Validado para existencia previa en BD ({@link ExistsByUsername}),
-     * no nulo y tamaño entre 4 y 12 caracteres.
+     * no nulo y tamaño entre 4 y 12 caracteres. La unicidad la garantiza
+     * el índice {@value #USERNAME_UNIQUE_CONSTRAINT}.
      * </p>
      */
     @ExistsByUsername
-    @Column(unique = true)
     @NotBlank
     @Size(min = 4, max = 12)
     private String username;
@@ -66,11 +78,13 @@ public class User {
      * Roles asignados al usuario.
      * <p>
      * Relación many-to-many con tabla intermedia <code>users_roles</code>.
-     * Evita ciclos en JSON con {@link JsonIgnoreProperties}.
+     * Evita ciclos en JSON con {@link JsonIgnoreProperties}. Cuando no se
+     * cargan con la consulta, se inicializan por lotes con {@link BatchSize}.
      * </p>
      */
     @JsonIgnoreProperties({"users", "handler", "hibernateLazyInitializer"})
     @ManyToMany
+    @BatchSize(size = 50)
     @JoinTable(
         name = "users_roles",
         joinColumns = @JoinColumn(name = "user_id"),
@@ -84,6 +98,25 @@ public class User {
      */
     private boolean enabled;
 
+    /**
+     * Versión (época) de los tokens del usuario.
+     * <p>
+     * Viaja en el claim <code>ver</code> de cada token; al incrementarla
+     * se invalidan todos los tokens emitidos antes. No se expone en JSON.
+     * </p>
+     */
+    @JsonIgnore
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion;
+
+    /**
+     * Fecha de la última modificación, usada para refrescar de forma
+     * incremental las épocas de tokens en memoria.
+     */
+    @JsonIgnore
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
     /**
      * Indica si debe asignarse rol ADMIN al crear.
      * <p>
@@ -100,6 +133,23 @@ public class User {
     @PrePersist
     public void prePersist() {
         enabled = true;
+        updatedAt = Instant.now();
+    }
+
+    /**
+     * Antes de actualizar, registra la fecha de modificación.
+     */
+    @PreUpdate
+    public void preUpdate() {
+        updatedAt = Instant.now();
+    }
+
+    /**
+     * Invalida todos los tokens emitidos hasta ahora incrementando la
+     * versión de tokens.
+     */
+    public void invalidateTokens() {
+        tokenVersion++;
     }
 
     /**
@@ -217,6 +267,42 @@ public class User {
         this.enabled = enabled;
     }
 
+    /**
+     * Obtiene la versión de tokens del usuario.
+     *
+     * @return versión actual.
+     */
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    /**
+     * Asigna la versión de tokens del usuario.
+     *
+     * @param tokenVersion versión a asignar.
+     */
+    public void setTokenVersion(int tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+
+    /**
+     * Obtiene la fecha de la última modificación.
+     *
+     * @return instante de modificación.
+     */
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * Asigna la fecha de la última modificación.
+     *
+     * @param updatedAt instante de modificación.
+     */
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
     /**
      * Calcula hash code basándose en <code>id</code> y <code>username</code>.
      */
@@ -251,4 +337,4 @@ public class User {
             return false;
         return true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,68 @@
+package com.german.apirest.springboot.app.springbootcrud.repositories;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import com.german.apirest.springboot.app.springbootcrud.entities.ProductChange;
+
+/**
+ * Repositorio CRUD para la entidad {@link ProductChange}.
+ * <p>
+ * Define el resumen del registro de cambios del que se deriva la versión
+ * del catálogo y la purga de los cambios más antiguos.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+public interface ProductChangeRepository extends CrudRepository<ProductChange, Long> {
+
+    /**
+     * Obtiene el resumen del registro de cambios.
+     *
+     * @return número de cambios conservados e ids mínimo y máximo.
+     */
+    @Query("select count(c) as count, coalesce(min(c.id), 0) as minId, coalesce(max(c.id), 0) as maxId "
+        + "from ProductChange c")
+    ChangeLogSummary summarize();
+
+    /**
+     * Elimina los cambios con id menor o igual que el dado.
+     *
+     * @param id id máximo a eliminar.
+     * @return número de cambios eliminados.
+     */
+    @Modifying
+    @Query("delete from ProductChange c where c.id <= :id")
+    int deleteUpTo(@Param("id") long id);
+
+    /**
+     * Resumen del registro de cambios.
+     * <p>
+     * Los ids se asignan al insertar, pero las transacciones pueden
+     * confirmarse en otro orden: un cambio confirmado tarde no mueve el id
+     * máximo, pero sí el número de filas. La purga borra siempre todos los
+     * ids por debajo de un umbral, incluido el mínimo, así que tampoco puede
+     * compensar ese aumento sin cambiar el id mínimo.
+     * </p>
+     */
+    interface ChangeLogSummary {
+
+        /**
+         * @return número de cambios conservados.
+         */
+        long getCount();
+
+        /**
+         * @return id mínimo, o 0 si el registro está vacío.
+         */
+        long getMinId();
+
+        /**
+         * @return id máximo, o 0 si el registro está vacío.
+         */
+        long getMaxId();
+    }
+}
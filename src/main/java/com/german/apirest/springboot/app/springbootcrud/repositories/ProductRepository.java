@@ -1,19 +1,31 @@
 package com.german.apirest.springboot.app.springbootcrud.repositories;
 
-import org.springframework.data.repository.CrudRepository;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.ListCrudRepository;
+import org.springframework.data.repository.ListPagingAndSortingRepository;
 import com.german.apirest.springboot.app.springbootcrud.entities.Product;
 
 /**
- * Repositorio CRUD para la entidad {@link Product}.
+ * Repositorio CRUD y de paginación para la entidad {@link Product}.
  * <p>
- * Extiende {@link CrudRepository} para operaciones básicas de persistencia
- * y define métodos personalizados para la entidad Product.
+ * Extiende {@link ListCrudRepository} para operaciones básicas de persistencia
+ * y {@link ListPagingAndSortingRepository} para la paginación por desplazamiento,
+ * y define las consultas de paginación por clave (keyset) sobre
+ * <code>id</code> y <code>(price, id)</code>. Las operaciones que requieren
+ * el {@code EntityManager} se declaran en {@link ProductRepositoryCustom}.
  * </p>
  *
  * @version 1.0
  * @since   1.0
  */
-public interface ProductRepository extends CrudRepository<Product, Long> {
+public interface ProductRepository extends ListCrudRepository<Product, Long>,
+        ListPagingAndSortingRepository<Product, Long>, ProductRepositoryCustom {
 
     /**
      * Comprueba si existe un producto con el SKU dado.
@@ -23,4 +35,69 @@ public interface ProductRepository extends CrudRepository<Product, Long> {
      *         {@code false} en caso contrario.
      */
     boolean existsBySku(String sku);
-}
\ No newline at end of file
+
+    /**
+     * Obtiene los SKU de todos los productos, para cargar el filtro de
+     * existencia de {@code ProductServiceImpl}.
+     *
+     * @return todos los SKU.
+     */
+    @Query("select p.sku from Product p")
+    List<String> findAllSkus();
+
+    /**
+     * Obtiene cuáles de los SKU dados pertenecen ya a algún producto.
+     *
+     * @param skus SKU a comprobar.
+     * @return los SKU existentes.
+     */
+    @Query("select p.sku from Product p where p.sku in :skus")
+    List<String> findExistingSkus(Collection<String> skus);
+
+    /**
+     * Obtiene la primera página ordenada por id.
+     *
+     * @param limit número máximo de filas.
+     * @return productos ordenados por id ascendente.
+     */
+    List<Product> findByOrderByIdAsc(Limit limit);
+
+    /**
+     * Obtiene los productos con id mayor que el dado, ordenados por id.
+     *
+     * @param id    id del último producto de la página anterior.
+     * @param limit número máximo de filas.
+     * @return productos siguientes ordenados por id ascendente.
+     */
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Obtiene la primera página ordenada por precio e id.
+     *
+     * @param limit número máximo de filas.
+     * @return productos ordenados por precio e id ascendentes.
+     */
+    List<Product> findByOrderByPriceAscIdAsc(Limit limit);
+
+    /**
+     * Obtiene los productos posteriores a <code>(price, id)</code> en el
+     * orden por precio e id; usa el índice <code>idx_products_price_id</code>.
+     *
+     * @param price precio del último producto de la página anterior.
+     * @param id    id del último producto de la página anterior.
+     * @param limit número máximo de filas.
+     * @return productos siguientes ordenados por precio e id ascendentes.
+     */
+    @Query("select p from Product p where p.price > :price or (p.price = :price and p.id > :id) "
+        + "order by p.price, p.id")
+    List<Product> findAfterPrice(Integer price, Long id, Limit limit);
+
+    /**
+     * Obtiene una página por desplazamiento sin la consulta de recuento
+     * (se lee una fila adicional para saber si hay más).
+     *
+     * @param pageable página, tamaño y orden.
+     * @return productos de la página.
+     */
+    Slice<Product> findBy(Pageable pageable);
+}
@@ -0,0 +1,60 @@
+package com.german.apirest.springboot.app.springbootcrud.repositories;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import com.german.apirest.springboot.app.springbootcrud.entities.Product;
+
+/**
+ * Operaciones de {@link ProductRepository} implementadas a mano con el
+ * {@link jakarta.persistence.EntityManager}.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Recorre todos los productos ordenados por id sin cargarlos en una
+     * lista, leyendo del driver en bloques de <code>fetchSize</code> filas.
+     * <p>
+     * Debe consumirse y cerrarse dentro de una transacción. Las entidades
+     * siguen asociadas al contexto de persistencia hasta que se limpia, y no
+     * se leen ni se guardan en la caché de segundo nivel.
+     * </p>
+     *
+     * @param fetchSize filas que el driver lee por viaje a la base de datos.
+     * @return stream de productos de solo lectura.
+     */
+    Stream<Product> streamAllOrderById(int fetchSize);
+
+    /**
+     * Carga los productos con los ids dados. Los que ya están en el contexto
+     * de persistencia o en la caché de segundo nivel no se consultan; el
+     * resto se lee con una única consulta <code>IN</code>.
+     *
+     * @param ids ids a cargar, sin repetidos.
+     * @return lista del mismo tamaño y orden que <code>ids</code>, con
+     *         {@code null} en la posición de los ids que no existen.
+     */
+    List<Product> findAllByIdInOrder(List<Long> ids);
+
+    /**
+     * Actualiza solo los atributos indicados de un producto con un único
+     * <code>UPDATE</code>, sin cargarlo, e incrementa su versión.
+     * <p>
+     * Como <code>@Modifying(flushAutomatically = true, clearAutomatically = true)</code>,
+     * vacía el contexto de persistencia antes y lo limpia después. Al ser
+     * una actualización masiva, Hibernate invalida la región de productos
+     * de la caché de segundo nivel.
+     * </p>
+     *
+     * @param id               identificador del producto.
+     * @param changes          valores nuevos por nombre de atributo; no vacío.
+     * @param expectedVersions versiones admitidas, o {@code null} para no comprobarla.
+     * @return número de filas actualizadas (0 o 1).
+     */
+    int patch(Long id, Map<String, ?> changes, Collection<Long> expectedVersions);
+}
@@ -0,0 +1,100 @@
+package com.german.apirest.springboot.app.springbootcrud.repositories;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+
+import com.german.apirest.springboot.app.springbootcrud.entities.Product;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Implementación de {@link ProductRepositoryCustom}, detectada por Spring
+ * Data por el sufijo <code>Impl</code>.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<Product> streamAllOrderById(int fetchSize) {
+        // Un recorrido completo no debe expulsar de la caché de segundo nivel a los
+        // productos más usados. La pista HINT_CACHE_MODE solo rige mientras se abre
+        // el cursor, así que la sesión ignora la caché hasta que se cierra el stream
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode previous = session.getCacheMode();
+        session.setCacheMode(CacheMode.IGNORE);
+        try {
+            return entityManager.createQuery("select p from Product p order by p.id", Product.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(HibernateHints.HINT_CACHE_MODE, CacheMode.IGNORE)
+                .getResultStream()
+                .onClose(() -> session.setCacheMode(previous));
+        } catch (RuntimeException e) {
+            session.setCacheMode(previous);
+            throw e;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Product> findAllByIdInOrder(List<Long> ids) {
+        // Sin CacheMode explícito, multiLoad no consulta la caché de segundo nivel;
+        // los ids que falten se leen en un único lote
+        return entityManager.unwrap(Session.class)
+            .byMultipleIds(Product.class)
+            .with(CacheMode.NORMAL)
+            .enableSessionCheck(true)
+            .withBatchSize(Math.max(ids.size(), 1))
+            .enableOrderedReturn(true)
+            .multiLoad(ids);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int patch(Long id, Map<String, ?> changes, Collection<Long> expectedVersions) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Product> update = cb.createCriteriaUpdate(Product.class);
+        Root<Product> product = update.from(Product.class);
+        changes.forEach(update::set);
+        Path<Long> version = product.get("version");
+        update.set(version, cb.sum(version, 1L));
+
+        Predicate where = cb.equal(product.get("id"), id);
+        if (expectedVersions != null) {
+            where = cb.and(where, version.in(expectedVersions));
+        }
+        update.where(where);
+
+        entityManager.flush();
+        int updated = entityManager.createQuery(update).executeUpdate();
+        entityManager.clear();
+        // Hibernate vacía la región al terminar la transacción; hasta entonces
+        // una lectura del producto en esta misma transacción saldría de la caché
+        entityManager.getEntityManagerFactory().getCache().evict(Product.class, id);
+        return updated;
+    }
+}
@@ -0,0 +1,65 @@
+package com.german.apirest.springboot.app.springbootcrud.repositories;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import com.german.apirest.springboot.app.springbootcrud.entities.RefreshToken;
+
+/**
+ * Repositorio CRUD para la entidad {@link RefreshToken}.
+ * <p>
+ * Define la búsqueda por hash, el marcado atómico como usado
+ * (detección de reutilización) y la revocación por familia.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+public interface RefreshTokenRepository extends CrudRepository<RefreshToken, Long> {
+
+    /**
+     * Busca un token por su hash, cargando en la misma consulta su usuario.
+     *
+     * @param tokenHash hash SHA-256 en hexadecimal.
+     * @return {@link Optional} con el token si existe.
+     */
+    @EntityGraph(attributePaths = "user")
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    /**
+     * Marca el token como usado solo si aún no lo estaba ni está revocado.
+     *
+     * @param id  identificador del token.
+     * @param now instante de uso.
+     * @return 1 si se marcó, 0 si ya estaba usado o revocado.
+     */
+    @Modifying
+    @Query("update RefreshToken t set t.usedAt = :now where t.id = :id and t.usedAt is null and t.revoked = false")
+    int markUsed(@Param("id") Long id, @Param("now") Instant now);
+
+    /**
+     * Revoca todos los tokens de una familia de rotación.
+     *
+     * @param familyId identificador de familia.
+     * @return número de tokens revocados.
+     */
+    @Modifying
+    @Query("update RefreshToken t set t.revoked = true where t.familyId = :familyId and t.revoked = false")
+    int revokeFamily(@Param("familyId") String familyId);
+
+    /**
+     * Elimina los tokens expirados antes del instante dado.
+     *
+     * @param now instante de referencia.
+     * @return número de tokens eliminados.
+     */
+    @Modifying
+    @Query("delete from RefreshToken t where t.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,50 @@
+package com.german.apirest.springboot.app.springbootcrud.repositories;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import com.german.apirest.springboot.app.springbootcrud.entities.RevokedToken;
+
+/**
+ * Repositorio CRUD para la entidad {@link RevokedToken}.
+ * <p>
+ * Define las consultas para cargar las revocaciones vigentes, leer las
+ * nuevas de forma incremental y purgar las ya expiradas.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+public interface RevokedTokenRepository extends CrudRepository<RevokedToken, String> {
+
+    /**
+     * Obtiene las revocaciones de tokens aún no expirados.
+     *
+     * @param now instante de referencia.
+     * @return revocaciones vigentes.
+     */
+    List<RevokedToken> findByExpiresAtAfter(Instant now);
+
+    /**
+     * Obtiene las revocaciones registradas desde el instante dado.
+     *
+     * @param since instante desde el que se leen las revocaciones.
+     * @return revocaciones nuevas.
+     */
+    List<RevokedToken> findByRevokedAtAfter(Instant since);
+
+    /**
+     * Elimina las revocaciones de tokens expirados antes del instante dado.
+     *
+     * @param now instante de referencia.
+     * @return número de revocaciones eliminadas.
+     */
+    @Modifying
+    @Query("delete from RevokedToken t where t.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
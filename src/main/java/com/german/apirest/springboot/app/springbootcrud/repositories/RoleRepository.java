@@ -1,8 +1,11 @@
 package com.german.apirest.springboot.app.springbootcrud.repositories;
 
 import java.util.Optional;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import com.german.apirest.springboot.app.springbootcrud.entities.Role;
+import jakarta.persistence.QueryHint;
 
 /**
  * Repositorio CRUD para la entidad {@link Role}.
@@ -18,9 +21,14 @@ public interface RoleRepository extends CrudRepository<Role, Long> {
 
     /**
      * Busca un rol por su nombre.
+     * <p>
+     * El resultado se guarda en la caché de consultas, que Hibernate
+     * invalida cuando cambia la tabla <code>roles</code>.
+     * </p>
      *
      * @param name nombre único del rol (p.ej. ROLE_USER, ROLE_ADMIN).
      * @return {@link Optional} con el Role si existe, o vacío si no.
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Role> findByName(String name);
 }
\ No newline at end of file
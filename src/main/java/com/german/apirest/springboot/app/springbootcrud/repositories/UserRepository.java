@@ -1,6 +1,11 @@
 package com.german.apirest.springboot.app.springbootcrud.repositories;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import com.german.apirest.springboot.app.springbootcrud.entities.User;
 
@@ -11,6 +16,11 @@ import com.german.apirest.springboot.app.springbootcrud.entities.User;
  * y define métodos para consulta por nombre de usuario
  * y validación de existencia.
  * </p>
+ * <p>
+ * Las consultas que devuelven usuarios cargan sus roles en la misma
+ * sentencia mediante {@link EntityGraph}, evitando una consulta
+ * adicional por usuario (N+1).
+ * </p>
  *
  * @version 1.0
  * @since   1.0
@@ -27,10 +37,69 @@ public interface UserRepository extends CrudRepository<User, Long> {
     boolean existsByUsername(String username);
 
     /**
-     * Busca un usuario por su nombre de usuario.
+     * Obtiene los nombres de todos los usuarios, para cargar el filtro de
+     * existencia de {@code UserServiceImpl}.
+     *
+     * @return todos los nombres de usuario.
+     */
+    @Query("select u.username from User u")
+    List<String> findAllUsernames();
+
+    /**
+     * Busca un usuario por su nombre de usuario, junto con sus roles.
      *
      * @param username nombre de usuario único.
      * @return {@link Optional} con el User si se encuentra, o vacío si no existe.
      */
+    @EntityGraph(attributePaths = "roles")
     Optional<User> findByUsername(String username);
-}
\ No newline at end of file
+
+    /**
+     * Obtiene solo el identificador de un usuario, sin cargar la entidad
+     * ni sus roles.
+     *
+     * @param username nombre de usuario único.
+     * @return {@link Optional} con el id si existe, o vacío si no existe.
+     */
+    @Query("select u.id from User u where u.username = ?1")
+    Optional<Long> findIdByUsername(String username);
+
+    /**
+     * Obtiene una referencia perezosa al usuario sin consultar la base de datos.
+     *
+     * @param id identificador del usuario.
+     * @return proxy de {@link User}.
+     */
+    User getReferenceById(Long id);
+
+    /**
+     * Obtiene todos los usuarios junto con sus roles en una sola consulta.
+     *
+     * @return lista de usuarios.
+     */
+    @Override
+    @EntityGraph(attributePaths = "roles")
+    List<User> findAll();
+
+    /**
+     * Obtiene como máximo el número de usuarios indicado.
+     * <p>
+     * No usa {@link EntityGraph}: Hibernate no puede limitar en SQL una
+     * consulta con <code>join fetch</code> de una colección. Los roles se
+     * cargan por lotes gracias a {@code @BatchSize} en {@link User}.
+     * </p>
+     *
+     * @param limit número máximo de usuarios.
+     * @return lista de usuarios.
+     */
+    List<User> findAllBy(Limit limit);
+
+    /**
+     * Obtiene la época de tokens de los usuarios modificados después del
+     * instante dado.
+     *
+     * @param since instante de referencia.
+     * @return proyecciones con id, versión de tokens, estado y fecha de modificación.
+     */
+    List<UserTokenEpoch> findByUpdatedAtAfter(Instant since);
+}
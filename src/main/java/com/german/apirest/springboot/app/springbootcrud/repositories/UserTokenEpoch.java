@@ -0,0 +1,34 @@
+package com.german.apirest.springboot.app.springbootcrud.repositories;
+
+import java.time.Instant;
+
+/**
+ * Proyección de {@link com.german.apirest.springboot.app.springbootcrud.entities.User}
+ * con los campos necesarios para validar la época de los tokens, sin
+ * cargar la entidad ni sus roles.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+public interface UserTokenEpoch {
+
+    /**
+     * @return identificador del usuario.
+     */
+    Long getId();
+
+    /**
+     * @return versión de tokens actual.
+     */
+    Integer getTokenVersion();
+
+    /**
+     * @return si el usuario está habilitado.
+     */
+    Boolean getEnabled();
+
+    /**
+     * @return fecha de la última modificación.
+     */
+    Instant getUpdatedAt();
+}
@@ -0,0 +1,456 @@
+package com.german.apirest.springboot.app.springbootcrud.search;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import com.german.apirest.springboot.app.springbootcrud.entities.Product;
+
+/**
+ * Índice invertido en memoria sobre el nombre y la descripción de los
+ * productos, con ranking BM25.
+ * <p>
+ * El texto se normaliza (minúsculas, sin tildes) y se divide en términos
+ * por cualquier carácter que no sea letra ni dígito. Cada término tiene
+ * una lista de apariciones (producto y frecuencia); los términos del
+ * nombre cuentan {@value #NAME_WEIGHT} veces para que pesen más que los de
+ * la descripción. Una búsqueda solo recorre las listas de sus términos,
+ * por lo que su coste depende de los productos que coinciden, no del
+ * tamaño del catálogo.
+ * </p>
+ * <p>
+ * Las escrituras deben aplicarse después del commit. Las que llegan
+ * durante una reconstrucción se aplican también al índice nuevo antes de
+ * publicarlo, así que ninguna se pierde. Las de otros nodos solo se ven
+ * tras la siguiente reconstrucción.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+public class ProductSearchIndex {
+
+    /**
+     * Saturación de la frecuencia de un término en BM25.
+     */
+    private static final double K1 = 1.2;
+
+    /**
+     * Peso de la normalización por longitud del documento en BM25.
+     */
+    private static final double B = 0.75;
+
+    /**
+     * Veces que cuenta cada aparición de un término en el nombre.
+     */
+    private static final int NAME_WEIGHT = 2;
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    /**
+     * Orden de los resultados: más relevante primero y, a igual puntuación, menor id.
+     */
+    private static final Comparator<Hit> RANKING = Comparator.comparingDouble(Hit::score).reversed()
+        .thenComparingLong(Hit::id);
+
+    /**
+     * Producto encontrado.
+     *
+     * @param id    id del producto.
+     * @param score puntuación BM25.
+     */
+    public record Hit(long id, double score) {
+    }
+
+    /**
+     * Términos distintos de un producto con su frecuencia ponderada.
+     */
+    private record Document(String[] terms, int[] frequencies, int length) {
+    }
+
+    /**
+     * Escritura recibida durante una reconstrucción; {@code document} es
+     * {@code null} en un borrado.
+     */
+    private record Change(long id, Document document) {
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Índice publicado; protegido por {@link #lock}.
+     */
+    private Segment segment = new Segment();
+
+    /**
+     * Escrituras recibidas durante la reconstrucción en curso, o {@code null}
+     * si no hay ninguna; protegido por {@link #lock}.
+     */
+    private List<Change> pending;
+
+    /**
+     * Añade un producto o sustituye su versión anterior.
+     *
+     * @param product producto guardado.
+     */
+    public void put(Product product) {
+        Document document = document(product);
+        lock.writeLock().lock();
+        try {
+            segment.put(product.getId(), document);
+            if (pending != null) {
+                pending.add(new Change(product.getId(), document));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita un producto del índice.
+     *
+     * @param id id del producto eliminado.
+     */
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            segment.remove(id);
+            if (pending != null) {
+                pending.add(new Change(id, null));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Busca los productos más relevantes para el texto dado. Basta con que
+     * coincida un término; los productos que contienen más términos de la
+     * consulta, o términos menos frecuentes en el catálogo, puntúan más.
+     *
+     * @param query texto a buscar.
+     * @param limit número máximo de resultados.
+     * @return los productos encontrados, del más al menos relevante.
+     */
+    public List<Hit> search(String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return segment.search(terms, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Construye un índice nuevo con los productos que entrega el cargador
+     * y sustituye al anterior. La carga se hace sin bloquear las búsquedas.
+     *
+     * @param loader recorrido de todos los productos, que entrega cada uno
+     *               al consumidor recibido.
+     */
+    public synchronized void rebuild(Consumer<Consumer<Product>> loader) {
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            Segment next = new Segment();
+            loader.accept(product -> next.put(product.getId(), document(product)));
+            lock.writeLock().lock();
+            try {
+                // La carga pudo leer un producto antes de una escritura confirmada
+                // mientras tanto: las escrituras se reaplican en orden
+                for (Change change : pending) {
+                    if (change.document() == null) {
+                        next.remove(change.id());
+                    } else {
+                        next.put(change.id(), change.document());
+                    }
+                }
+                segment = next;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * @return número de productos indexados.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return segment.count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Divide un texto en términos normalizados.
+     *
+     * @param text texto a dividir; puede ser {@code null}.
+     * @return los términos, en el orden del texto.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+            .toLowerCase(Locale.ROOT);
+        List<String> terms = new ArrayList<>();
+        for (String term : SEPARATORS.split(normalized)) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    private static Document document(Product product) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : tokenize(product.getName())) {
+            frequencies.merge(term, NAME_WEIGHT, Integer::sum);
+        }
+        for (String term : tokenize(product.getDescription())) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        String[] terms = new String[frequencies.size()];
+        int[] counts = new int[terms.length];
+        int length = 0;
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            terms[i] = entry.getKey();
+            counts[i] = entry.getValue();
+            length += counts[i++];
+        }
+        return new Document(terms, counts, length);
+    }
+
+    /**
+     * Lista de apariciones de un término: posiciones de los productos en
+     * {@link Segment} y frecuencia del término en cada uno, sin orden.
+     * Cada aparición guarda además el índice del término en
+     * {@link Document#terms()}, para que {@link Segment} pueda actualizar
+     * la posición de un producto cuando se mueve dentro de la lista.
+     */
+    private static final class Postings {
+
+        private int[] slots = new int[4];
+
+        private int[] frequencies = new int[4];
+
+        private int[] termIndexes = new int[4];
+
+        private int size;
+
+        /**
+         * @return la posición de la aparición en la lista.
+         */
+        int add(int slot, int frequency, int termIndex) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+                termIndexes = Arrays.copyOf(termIndexes, size * 2);
+            }
+            slots[size] = slot;
+            frequencies[size] = frequency;
+            termIndexes[size] = termIndex;
+            return size++;
+        }
+
+        /**
+         * Quita la aparición de una posición en tiempo constante.
+         *
+         * @param position  posición de la aparición.
+         * @param positions posiciones de cada producto en sus listas, que se
+         *                  actualizan para la aparición que ocupa el hueco.
+         */
+        void remove(int position, int[][] positions) {
+            // El orden no importa: el último ocupa el hueco
+            size--;
+            if (position != size) {
+                slots[position] = slots[size];
+                frequencies[position] = frequencies[size];
+                termIndexes[position] = termIndexes[size];
+                positions[slots[position]][termIndexes[position]] = position;
+            }
+        }
+    }
+
+    /**
+     * Estado del índice. Cada producto ocupa una posición; las que quedan
+     * libres al borrar se reutilizan. No es seguro entre hilos.
+     */
+    private static final class Segment {
+
+        private final Map<String, Postings> postings = new HashMap<>();
+
+        private final Map<Long, Integer> slotsById = new HashMap<>();
+
+        private final Deque<Integer> freeSlots = new ArrayDeque<>();
+
+        private long[] ids = new long[16];
+
+        private Document[] documents = new Document[16];
+
+        /**
+         * Posición de cada producto en la lista de cada uno de sus términos,
+         * en el orden de {@link Document#terms()}: el borrado no recorre las listas.
+         */
+        private int[][] positions = new int[16][];
+
+        private int slotCount;
+
+        private int count;
+
+        private long totalLength;
+
+        void put(long id, Document document) {
+            remove(id);
+            Integer free = freeSlots.poll();
+            int slot = free != null ? free : slotCount++;
+            if (slot == ids.length) {
+                ids = Arrays.copyOf(ids, slot * 2);
+                documents = Arrays.copyOf(documents, slot * 2);
+                positions = Arrays.copyOf(positions, slot * 2);
+            }
+            ids[slot] = id;
+            documents[slot] = document;
+            slotsById.put(id, slot);
+            int[] termPositions = new int[document.terms().length];
+            for (int i = 0; i < termPositions.length; i++) {
+                termPositions[i] = postings.computeIfAbsent(document.terms()[i], term -> new Postings())
+                    .add(slot, document.frequencies()[i], i);
+            }
+            positions[slot] = termPositions;
+            count++;
+            totalLength += document.length();
+        }
+
+        void remove(long id) {
+            Integer slot = slotsById.remove(id);
+            if (slot == null) {
+                return;
+            }
+            Document document = documents[slot];
+            for (int i = 0; i < document.terms().length; i++) {
+                Postings list = postings.get(document.terms()[i]);
+                list.remove(positions[slot][i], positions);
+                if (list.size == 0) {
+                    postings.remove(document.terms()[i]);
+                }
+            }
+            documents[slot] = null;
+            positions[slot] = null;
+            freeSlots.push(slot);
+            count--;
+            totalLength -= document.length();
+        }
+
+        List<Hit> search(Set<String> terms, int limit) {
+            List<Postings> lists = new ArrayList<>(terms.size());
+            int matches = 0;
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list != null) {
+                    lists.add(list);
+                    matches += list.size;
+                }
+            }
+            if (matches == 0) {
+                return List.of();
+            }
+            double averageLength = (double) totalLength / count;
+            Scores scores = new Scores(matches);
+            for (Postings list : lists) {
+                double idf = Math.log(1 + (count - list.size + 0.5) / (list.size + 0.5));
+                for (int i = 0; i < list.size; i++) {
+                    int frequency = list.frequencies[i];
+                    double norm = K1 * (1 - B + B * documents[list.slots[i]].length() / averageLength);
+                    scores.add(list.slots[i], idf * frequency * (K1 + 1) / (frequency + norm));
+                }
+            }
+
+            // Montículo con los peores resultados arriba para quedarse con los limit mejores
+            PriorityQueue<Hit> top = new PriorityQueue<>(Math.min(limit, scores.size) + 1, RANKING.reversed());
+            for (int i = 0; i < scores.keys.length; i++) {
+                if (scores.keys[i] != 0) {
+                    top.add(new Hit(ids[scores.keys[i] - 1], scores.values[i]));
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+            }
+            List<Hit> hits = new ArrayList<>(top);
+            hits.sort(RANKING);
+            return hits;
+        }
+    }
+
+    /**
+     * Acumulador de puntuaciones por posición de producto, con direccionamiento
+     * abierto y dimensionado para las apariciones de la consulta: no depende
+     * del tamaño del catálogo.
+     */
+    private static final class Scores {
+
+        /**
+         * Posición + 1; 0 marca un hueco vacío.
+         */
+        private final int[] keys;
+
+        private final double[] values;
+
+        private int size;
+
+        Scores(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) << 1;
+            keys = new int[capacity];
+            values = new double[capacity];
+        }
+
+        void add(int slot, double score) {
+            int mask = keys.length - 1;
+            int hash = slot * 0x9E3779B9;
+            int i = (hash ^ (hash >>> 16)) & mask;
+            while (keys[i] != 0 && keys[i] != slot + 1) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == 0) {
+                keys[i] = slot + 1;
+                size++;
+            }
+            values[i] += score;
+        }
+    }
+}
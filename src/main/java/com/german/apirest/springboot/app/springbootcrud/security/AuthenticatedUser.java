@@ -0,0 +1,58 @@
+package com.german.apirest.springboot.app.springbootcrud.security;
+
+import java.util.Collection;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * {@link User} de Spring Security que conserva además el identificador
+ * del usuario y su versión de tokens, necesarios para emitir tokens con
+ * los claims <code>uid</code> y <code>ver</code>.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+public class AuthenticatedUser extends User {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long id;
+
+    private final int tokenVersion;
+
+    /**
+     * Crea el usuario autenticable.
+     *
+     * @param id           identificador del usuario.
+     * @param tokenVersion versión de tokens del usuario.
+     * @param username     nombre de usuario.
+     * @param password     hash de la contraseña.
+     * @param enabled      si la cuenta está habilitada.
+     * @param authorities  autoridades (roles).
+     */
+    public AuthenticatedUser(long id, int tokenVersion, String username, String password, boolean enabled,
+            Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, enabled, true, true, true, authorities);
+        this.id = id;
+        this.tokenVersion = tokenVersion;
+    }
+
+    /**
+     * Obtiene el identificador del usuario.
+     *
+     * @return identificador.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Obtiene la versión de tokens del usuario.
+     *
+     * @return versión de tokens.
+     */
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+}
@@ -0,0 +1,278 @@
+package com.german.apirest.springboot.app.springbootcrud.security;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.expression.ParseException;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * {@link AuthorizationManager} para {@link PreAuthorize} que resuelve las
+ * expresiones de roles una sola vez en lugar de evaluar SpEL en cada
+ * llamada.
+ * <p>
+ * Las expresiones de la forma <code>hasRole('X')</code>,
+ * <code>hasAnyRole('X', 'Y')</code>, <code>hasAuthority('X')</code> y
+ * <code>hasAnyAuthority('X', 'Y')</code> se compilan al arrancar, con
+ * {@link #compile(Class)} sobre cada bean que usa {@link PreAuthorize}; una
+ * expresión que no es SpEL válido impide arrancar. La máscara de roles
+ * requerida se resuelve en la primera comprobación, porque los roles se
+ * leen de la base de datos a través de {@link RoleRegistry}. Cada
+ * comprobación se reduce entonces a un AND entre esa máscara y la del
+ * llamante, que se calcula una vez por conjunto de autoridades y se guarda
+ * en caché. Los métodos que no se compilaron al arrancar (p.ej. de beans
+ * creados después) se compilan en su primera llamada.
+ * </p>
+ * <p>
+ * Cualquier otra expresión se delega en el manager SpEL recibido, con el
+ * mismo resultado que {@code @EnableMethodSecurity}. Si algún rol no está
+ * registrado, la comprobación compilada compara nombres de autoridad en
+ * lugar de máscaras.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+public class CompiledPreAuthorizeAuthorizationManager implements AuthorizationManager<MethodInvocation> {
+
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    /**
+     * Prefijo que <code>hasRole</code> añade al nombre del rol.
+     */
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    /**
+     * Número máximo de conjuntos de autoridades cuya máscara se retiene.
+     */
+    private static final int MAX_CACHED_AUTHORITY_SETS = 1024;
+
+    private static final Pattern ROLE_EXPRESSION = Pattern.compile(
+        "\\s*(hasRole|hasAnyRole|hasAuthority|hasAnyAuthority)\\(\\s*('[^']*'(?:\\s*,\\s*'[^']*')*)\\s*\\)\\s*");
+
+    private static final Pattern QUOTED = Pattern.compile("'([^']*)'");
+
+    private static final SpelExpressionParser PARSER = new SpelExpressionParser();
+
+    /**
+     * Comprobación que indica que el método no tiene {@link PreAuthorize}.
+     */
+    private static final Check ABSTAIN = new Check(null, false);
+
+    /**
+     * Comprobación que indica que la expresión se delega en SpEL.
+     */
+    private static final Check DELEGATE = new Check(null, false);
+
+    private final Supplier<RoleRegistry> roleRegistry;
+
+    private final AuthorizationManager<MethodInvocation> fallback;
+
+    private final Map<Method, Check> checks = new ConcurrentHashMap<>();
+
+    private final Map<Collection<? extends GrantedAuthority>, Long> masksByAuthorities = new ConcurrentHashMap<>();
+
+    /**
+     * Crea el manager.
+     *
+     * @param roleRegistry proveedor del registro de roles (se resuelve en la primera comprobación).
+     * @param fallback     manager que evalúa las expresiones no compilables.
+     */
+    public CompiledPreAuthorizeAuthorizationManager(Supplier<RoleRegistry> roleRegistry,
+            AuthorizationManager<MethodInvocation> fallback) {
+        this.roleRegistry = roleRegistry;
+        this.fallback = fallback;
+    }
+
+    /**
+     * Compila las expresiones {@link PreAuthorize} de todos los métodos de
+     * una clase. Las clases sin {@link PreAuthorize} se ignoran.
+     *
+     * @param type clase del bean (se usa la clase de usuario si es un proxy).
+     * @return número de métodos con {@link PreAuthorize} compilados.
+     * @throws IllegalStateException si alguna expresión no es SpEL válido.
+     */
+    public int compile(Class<?> type) {
+        Class<?> targetClass = ClassUtils.getUserClass(type);
+        Method[] methods = ReflectionUtils.getUniqueDeclaredMethods(targetClass, ReflectionUtils.USER_DECLARED_METHODS);
+        boolean annotated = AnnotatedElementUtils.hasAnnotation(targetClass, PreAuthorize.class);
+        for (int i = 0; !annotated && i < methods.length; i++) {
+            annotated = AnnotatedElementUtils.hasAnnotation(methods[i], PreAuthorize.class);
+        }
+        if (!annotated) {
+            return 0;
+        }
+        int compiled = 0;
+        for (Method method : methods) {
+            Check check = compile(method, targetClass);
+            checks.put(method, check);
+            if (check != ABSTAIN) {
+                compiled++;
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * Decide si el usuario autenticado puede invocar el método.
+     *
+     * @param authentication proveedor de la autenticación actual.
+     * @param invocation     invocación del método protegido.
+     * @return la decisión, o {@code null} si el método no tiene {@link PreAuthorize}.
+     */
+    @Override
+    public AuthorizationResult authorize(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        Check check = checks.get(invocation.getMethod());
+        if (check == null) {
+            Class<?> targetClass = invocation.getThis() != null
+                ? AopUtils.getTargetClass(invocation.getThis())
+                : invocation.getMethod().getDeclaringClass();
+            check = checks.computeIfAbsent(invocation.getMethod(), method -> compile(method, targetClass));
+        }
+        if (check == ABSTAIN) {
+            return null;
+        }
+        if (check == DELEGATE) {
+            return fallback.authorize(authentication, invocation);
+        }
+        return check.isGranted(authentication.get().getAuthorities(), this) ? GRANTED : DENIED;
+    }
+
+    /**
+     * Equivale a {@link #authorize(Supplier, MethodInvocation)}; se mantiene
+     * porque {@link AuthorizationManager} aún lo declara.
+     *
+     * @deprecated usar {@link #authorize(Supplier, MethodInvocation)}.
+     */
+    @Deprecated
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        AuthorizationResult result = authorize(authentication, invocation);
+        if (result == null || result instanceof AuthorizationDecision) {
+            return (AuthorizationDecision) result;
+        }
+        return new AuthorizationDecision(result.isGranted());
+    }
+
+    /**
+     * Compila la expresión {@link PreAuthorize} de un método, buscándola en
+     * el método y, si no la tiene, en su clase.
+     *
+     * @throws IllegalStateException si la expresión no es SpEL válido.
+     */
+    private static Check compile(Method method, Class<?> targetClass) {
+        Method specific = AopUtils.getMostSpecificMethod(method, targetClass);
+        PreAuthorize annotation = AnnotatedElementUtils.findMergedAnnotation(specific, PreAuthorize.class);
+        if (annotation == null) {
+            annotation = AnnotatedElementUtils.findMergedAnnotation(targetClass, PreAuthorize.class);
+        }
+        if (annotation == null) {
+            return ABSTAIN;
+        }
+        Matcher matcher = ROLE_EXPRESSION.matcher(annotation.value());
+        if (!matcher.matches()) {
+            try {
+                PARSER.parseExpression(annotation.value());
+            } catch (ParseException e) {
+                throw new IllegalStateException("Expresión @PreAuthorize no válida en " + specific + ": "
+                    + annotation.value(), e);
+            }
+            return DELEGATE;
+        }
+        boolean roles = matcher.group(1).endsWith("Role");
+        List<String> authorities = new ArrayList<>();
+        Matcher quoted = QUOTED.matcher(matcher.group(2));
+        while (quoted.find()) {
+            String name = quoted.group(1);
+            if (roles) {
+                if (name.startsWith(ROLE_PREFIX)) {
+                    // SpEL lo rechaza con un error propio
+                    return DELEGATE;
+                }
+                name = ROLE_PREFIX + name;
+            }
+            authorities.add(name);
+        }
+        return new Check(Set.copyOf(authorities), true);
+    }
+
+    /**
+     * Obtiene la máscara de roles de un conjunto de autoridades, desde la
+     * caché si ya se ha calculado.
+     */
+    private long maskOf(Collection<? extends GrantedAuthority> authorities) {
+        Long mask = masksByAuthorities.get(authorities);
+        if (mask != null) {
+            return mask;
+        }
+        long computed = roleRegistry.get().maskOf(authorities);
+        if (masksByAuthorities.size() >= MAX_CACHED_AUTHORITY_SETS) {
+            masksByAuthorities.clear();
+        }
+        masksByAuthorities.put(List.copyOf(authorities), computed);
+        return computed;
+    }
+
+    /**
+     * Expresión compilada: conjunto de autoridades aceptadas y su máscara,
+     * resuelta en la primera comprobación.
+     */
+    private static final class Check {
+
+        private static final long UNRESOLVED = Long.MIN_VALUE;
+
+        private final Set<String> authorities;
+
+        private volatile long requiredMask;
+
+        private Check(Set<String> authorities, boolean compiled) {
+            this.authorities = authorities;
+            this.requiredMask = compiled ? UNRESOLVED : RoleRegistry.NOT_ENCODABLE;
+        }
+
+        private boolean isGranted(Collection<? extends GrantedAuthority> granted,
+                CompiledPreAuthorizeAuthorizationManager manager) {
+            long required = requiredMask;
+            if (required == UNRESOLVED) {
+                required = manager.roleRegistry.get().maskOf(authorities.stream()
+                    .map(SimpleGrantedAuthority::new)
+                    .toList());
+                requiredMask = required;
+            }
+            if (required != RoleRegistry.NOT_ENCODABLE) {
+                long mask = manager.maskOf(granted);
+                if (mask != RoleRegistry.NOT_ENCODABLE) {
+                    return (mask & required) != 0;
+                }
+            }
+            for (GrantedAuthority authority : granted) {
+                if (authorities.contains(authority.getAuthority())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
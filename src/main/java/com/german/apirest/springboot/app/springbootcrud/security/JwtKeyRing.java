@@ -0,0 +1,246 @@
+package com.german.apirest.springboot.app.springbootcrud.security;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.Locator;
+import io.jsonwebtoken.LocatorAdapter;
+
+/**
+ * Anillo de claves para firmar y verificar tokens JWT.
+ * <p>
+ * Las claves se cargan de un almacén de claves (PKCS12 por defecto)
+ * compartido por todos los nodos; cada alias es el <code>kid</code> que
+ * viaja en la cabecera del token. Se admiten:
+ * <ul>
+ *   <li>claves secretas HMAC (HS256/384/512), que firman y verifican,</li>
+ *   <li>pares de claves EC o Ed25519 (ES256, EdDSA): la privada firma y
+ *       la pública del certificado verifica,</li>
+ *   <li>certificados de confianza, que solo verifican.</li>
+ * </ul>
+ * </p>
+ * <p>
+ * Rotación: el almacén se recarga periódicamente. Una clave nueva se
+ * acepta para verificar en cuanto se carga, pero solo empieza a firmar
+ * cuando han pasado <code>activation-delay</code> desde su creación, para
+ * que todos los nodos la conozcan antes. La clave sustituida se sigue
+ * aceptando durante <code>overlap</code> (al menos la vida de un token).
+ * </p>
+ * <p>
+ * Si no se configura ningún almacén se genera una clave HS256 efímera,
+ * válida solo para un nodo y hasta su reinicio.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+@Component
+public class JwtKeyRing {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    /**
+     * Clave del anillo.
+     *
+     * @param kid             identificador (alias en el almacén).
+     * @param signingKey      clave de firma, o {@code null} si solo verifica.
+     * @param verificationKey clave de verificación.
+     * @param createdAt       fecha de creación de la entrada.
+     */
+    public record KeyEntry(String kid, Key signingKey, Key verificationKey, Instant createdAt) {
+    }
+
+    private record State(KeyEntry active, Map<String, KeyEntry> verificationKeys) {
+    }
+
+    private final Resource keystore;
+    private final String keystoreType;
+    private final char[] password;
+    private final Duration activationDelay;
+    private final Duration overlap;
+
+    private volatile State state;
+
+    private final Locator<Key> keyLocator = new LocatorAdapter<>() {
+        @Override
+        protected Key locate(JwsHeader header) {
+            String kid = header.getKeyId();
+            KeyEntry entry = kid == null ? null : state.verificationKeys().get(kid);
+            if (entry == null) {
+                throw new JwtException("Clave de firma desconocida (kid=" + kid + ")");
+            }
+            return entry.verificationKey();
+        }
+    };
+
+    /**
+     * Crea el anillo y realiza la primera carga.
+     *
+     * @param keystore        ubicación del almacén de claves (vacío para clave efímera).
+     * @param keystoreType    tipo de almacén (PKCS12, JKS...).
+     * @param password        contraseña del almacén y de sus entradas.
+     * @param activationDelay tiempo desde la creación de una clave hasta que firma.
+     * @param overlap         tiempo que se sigue aceptando una clave sustituida.
+     */
+    public JwtKeyRing(@Value("${security.jwt.keystore.location:}") Resource keystore,
+            @Value("${security.jwt.keystore.type:PKCS12}") String keystoreType,
+            @Value("${security.jwt.keystore.password:}") String password,
+            @Value("${security.jwt.keys.activation-delay:PT10M}") Duration activationDelay,
+            @Value("${security.jwt.keys.overlap:PT2H}") Duration overlap) {
+        this.keystore = keystore;
+        this.keystoreType = keystoreType;
+        this.password = password.toCharArray();
+        this.activationDelay = activationDelay;
+        this.overlap = overlap;
+        this.state = keystore != null ? load() : ephemeral();
+    }
+
+    /**
+     * Recarga periódicamente el almacén para incorporar y retirar claves.
+     * Si la recarga falla se conservan las claves actuales.
+     */
+    @Scheduled(fixedDelayString = "${security.jwt.keystore.reload-interval:PT5M}",
+            initialDelayString = "${security.jwt.keystore.reload-interval:PT5M}")
+    public void reload() {
+        if (keystore == null) {
+            return;
+        }
+        try {
+            state = load();
+        } catch (IllegalStateException e) {
+            log.error("No se pudo recargar el almacén de claves JWT; se mantienen las actuales", e);
+        }
+    }
+
+    /**
+     * @return la clave activa con la que se firman los nuevos tokens.
+     */
+    public KeyEntry activeKey() {
+        return state.active();
+    }
+
+    /**
+     * @return localizador de claves por <code>kid</code> para el {@code JwtParser}.
+     */
+    public Locator<Key> keyLocator() {
+        return keyLocator;
+    }
+
+    /**
+     * @return claves públicas de verificación (solo las asimétricas), por <code>kid</code>.
+     */
+    public Map<String, PublicKey> publicKeys() {
+        Map<String, PublicKey> keys = new LinkedHashMap<>();
+        state.verificationKeys().forEach((kid, entry) -> {
+            if (entry.verificationKey() instanceof PublicKey publicKey) {
+                keys.put(kid, publicKey);
+            }
+        });
+        return keys;
+    }
+
+    /**
+     * Lee el almacén y calcula la clave activa y las claves de verificación.
+     */
+    private State load() {
+        KeyStore ks;
+        try (InputStream in = keystore.getInputStream()) {
+            ks = KeyStore.getInstance(keystoreType);
+            ks.load(in, password);
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo leer el almacén de claves JWT " + keystore, e);
+        }
+
+        List<KeyEntry> entries = new ArrayList<>();
+        try {
+            for (String alias : Collections.list(ks.aliases())) {
+                Instant createdAt = ks.getCreationDate(alias).toInstant();
+                if (ks.isKeyEntry(alias)) {
+                    Key key = ks.getKey(alias, password);
+                    Certificate certificate = ks.getCertificate(alias);
+                    Key verificationKey = certificate != null ? certificate.getPublicKey() : key;
+                    entries.add(new KeyEntry(alias, key, verificationKey, createdAt));
+                } else if (ks.isCertificateEntry(alias)) {
+                    entries.add(new KeyEntry(alias, null, ks.getCertificate(alias).getPublicKey(), createdAt));
+                }
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudieron leer las claves del almacén JWT", e);
+        }
+        entries.sort(Comparator.comparing(KeyEntry::createdAt));
+
+        Instant now = Instant.now();
+        List<KeyEntry> signing = entries.stream().filter(e -> e.signingKey() != null).toList();
+        if (signing.isEmpty()) {
+            throw new IllegalStateException("El almacén de claves JWT no contiene ninguna clave de firma");
+        }
+        KeyEntry active = signing.stream()
+            .filter(e -> !e.createdAt().plus(activationDelay).isAfter(now))
+            .reduce((first, second) -> second)
+            .orElse(signing.get(0));
+
+        Map<String, KeyEntry> verificationKeys = new LinkedHashMap<>();
+        for (KeyEntry entry : entries) {
+            if (!isRetired(entry, signing, now)) {
+                verificationKeys.put(entry.kid(), entry);
+            }
+        }
+        verificationKeys.put(active.kid(), active);
+
+        State previous = state;
+        if (previous == null || !previous.active().kid().equals(active.kid())) {
+            log.info("Clave de firma JWT activa: kid={}", active.kid());
+        }
+        return new State(active, Map.copyOf(verificationKeys));
+    }
+
+    /**
+     * Una clave de firma queda retirada cuando ha pasado <code>overlap</code>
+     * desde que empezó a firmar la clave que la sustituyó.
+     */
+    private boolean isRetired(KeyEntry entry, List<KeyEntry> signing, Instant now) {
+        if (entry.signingKey() == null) {
+            return false;
+        }
+        return signing.stream()
+            .filter(next -> next.createdAt().isAfter(entry.createdAt()))
+            .findFirst()
+            .map(next -> next.createdAt().plus(activationDelay).plus(overlap).isBefore(now))
+            .orElse(false);
+    }
+
+    /**
+     * Genera una clave HS256 efímera cuando no hay almacén configurado.
+     */
+    private State ephemeral() {
+        log.warn("No se ha configurado security.jwt.keystore.location: se usa una clave JWT efímera. "
+            + "Los tokens no serán válidos en otros nodos ni tras un reinicio.");
+        Key key = Jwts.SIG.HS256.key().build();
+        KeyEntry entry = new KeyEntry("ephemeral-" + UUID.randomUUID(), key, key, Instant.now());
+        return new State(entry, Map.of(entry.kid(), entry));
+    }
+}
@@ -0,0 +1,378 @@
+package com.german.apirest.springboot.app.springbootcrud.security;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Codificador/decodificador de tokens JWT compartido por los filtros
+ * de autenticación y validación.
+ * <p>
+ * Es seguro para uso concurrente y mantiene preconstruidos los objetos
+ * costosos que antes se creaban en cada petición:
+ * <ul>
+ *   <li>un único {@link JwtParser} que selecciona la clave de verificación
+ *       por <code>kid</code> en el {@link JwtKeyRing},</li>
+ *   <li>un {@link ObjectReader}/{@link ObjectWriter} para
+ *       {@code SimpleGrantedAuthority[]} con el mix-in ya registrado,</li>
+ *   <li>instancias internadas de {@link SimpleGrantedAuthority} y de las
+ *       listas de autoridades ya decodificadas.</li>
+ * </ul>
+ * Opcionalmente (<code>security.jwt.codec.track-allocations</code>,
+ * desactivado por defecto) mide los bytes asignados por cada decodificación
+ * y los publica como métricas <code>security.jwt.codec.*</code>.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+@Component
+public class JwtTokenCodec {
+
+    /**
+     * Número máximo de valores distintos del claim <code>authorities</code>
+     * que se conservan ya decodificados. En la práctica hay uno por cada
+     * combinación de roles.
+     */
+    private static final int MAX_INTERNED_AUTHORITY_CLAIMS = 256;
+
+    /**
+     * Claim del formato compacto con la máscara de bits de roles.
+     */
+    static final String CLAIM_ROLES_MASK = "rl";
+
+    /**
+     * Claim del formato heredado con las autoridades serializadas en JSON.
+     */
+    static final String CLAIM_AUTHORITIES = "authorities";
+
+    /**
+     * Claim con el id del usuario.
+     */
+    static final String CLAIM_USER_ID = "uid";
+
+    /**
+     * Claim con la versión de tokens del usuario (ver {@link TokenEpochRegistry}).
+     */
+    static final String CLAIM_TOKEN_VERSION = "ver";
+
+    /**
+     * Formatos de emisión de tokens soportados.
+     */
+    public enum TokenFormat {
+        /** Autoridades como JSON en <code>authorities</code> y sujeto duplicado en <code>username</code>. */
+        LEGACY,
+        /** Roles como máscara de bits en <code>rl</code>, sin claims duplicados. */
+        COMPACT
+    }
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+
+    private final ObjectReader authoritiesReader = new ObjectMapper()
+        .addMixIn(SimpleGrantedAuthority.class, SimpleGrantedAuthorityJsonCreator.class)
+        .readerFor(SimpleGrantedAuthority[].class);
+
+    private final ObjectWriter authoritiesWriter = jsonMapper.writerFor(SimpleGrantedAuthority[].class);
+
+    private final Map<String, SimpleGrantedAuthority> internedAuthorities = new ConcurrentHashMap<>();
+
+    private final Map<String, List<GrantedAuthority>> internedAuthorityClaims = new ConcurrentHashMap<>();
+
+    private final JwtKeyRing keyRing;
+
+    private final JwtParser parser;
+
+    private final RoleRegistry roleRegistry;
+
+    private final TokenFormat tokenFormat;
+
+    private final Duration accessTokenTtl;
+
+    private final boolean trackAllocations;
+
+    private final LongAdder decodedTokens = new LongAdder();
+    private final LongAdder decodeAllocatedBytes = new LongAdder();
+
+    /**
+     * Resultado de verificar y decodificar un token.
+     *
+     * @param username    sujeto del token.
+     * @param authorities autoridades (instancias internadas, inmutables).
+     * @param expiresAt   instante <code>exp</code> en ms.
+     * @param jti          identificador único del token, o {@code null} en tokens antiguos.
+     * @param userId       id del usuario, o {@link #NO_USER_ID} en tokens antiguos.
+     * @param tokenVersion versión de tokens del usuario al emitirlo.
+     */
+    public record VerifiedToken(String username, List<GrantedAuthority> authorities, long expiresAt, String jti,
+            long userId, int tokenVersion) {
+
+        /**
+         * Valor de {@code userId} para tokens sin claim <code>uid</code>.
+         */
+        public static final long NO_USER_ID = -1;
+    }
+
+    /**
+     * Crea el codec.
+     *
+     * @param keyRing          anillo de claves de firma y verificación.
+     * @param roleRegistry     registro de roles para el formato compacto.
+     * @param tokenFormat      formato con el que se emiten los nuevos tokens.
+     * @param accessTokenTtl   vida de los tokens de acceso.
+     * @param trackAllocations si se deben medir los bytes asignados por decodificación.
+     * @param registry         registro donde se publican las métricas <code>security.jwt.codec.*</code>
+     *                         cuando la medición está activada.
+     */
+    public JwtTokenCodec(JwtKeyRing keyRing, RoleRegistry roleRegistry,
+            @Value("${security.jwt.token-format:compact}") TokenFormat tokenFormat,
+            @Value("${security.jwt.access-token.ttl:PT15M}") Duration accessTokenTtl,
+            @Value("${security.jwt.codec.track-allocations:false}") boolean trackAllocations,
+            MeterRegistry registry) {
+        this.keyRing = keyRing;
+        this.parser = Jwts.parser().keyLocator(keyRing.keyLocator()).build();
+        this.roleRegistry = roleRegistry;
+        this.tokenFormat = tokenFormat;
+        this.accessTokenTtl = accessTokenTtl;
+        this.trackAllocations = trackAllocations && AllocationCounter.isSupported();
+        if (this.trackAllocations) {
+            FunctionCounter.builder("security.jwt.codec.decoded", this, JwtTokenCodec::getDecodedTokens)
+                .register(registry);
+            Gauge.builder("security.jwt.codec.allocated.bytes.per.decode", this,
+                    JwtTokenCodec::getAllocatedBytesPerDecode)
+                .baseUnit("bytes")
+                .register(registry);
+        }
+    }
+
+    /**
+     * Genera un token JWT firmado para el usuario y autoridades dados.
+     * <p>
+     * En formato {@link TokenFormat#COMPACT} los roles se codifican como
+     * máscara de bits; si alguna autoridad no pertenece al registro de roles
+     * se recurre al formato heredado. Cada token lleva un <code>jti</code>
+     * aleatorio que permite revocarlo, y el id y la versión de tokens del
+     * usuario, que permiten invalidar todos sus tokens a la vez.
+     * </p>
+     *
+     * @param userId       id del usuario.
+     * @param tokenVersion versión de tokens del usuario.
+     * @param username     nombre de usuario (sujeto).
+     * @param authorities  autoridades concedidas.
+     * @return token JWT compacto.
+     * @throws JsonProcessingException si no pueden serializarse las autoridades.
+     */
+    public String createToken(long userId, int tokenVersion, String username,
+            Collection<? extends GrantedAuthority> authorities) throws JsonProcessingException {
+        long mask = tokenFormat == TokenFormat.COMPACT
+            ? roleRegistry.maskOf(authorities)
+            : RoleRegistry.NOT_ENCODABLE;
+
+        Claims claims = mask != RoleRegistry.NOT_ENCODABLE
+            ? Jwts.claims().add(CLAIM_ROLES_MASK, mask).build()
+            : Jwts.claims()
+                .add(CLAIM_AUTHORITIES, writeAuthorities(authorities))
+                .add("username", username)
+                .build();
+
+        long now = System.currentTimeMillis();
+        JwtKeyRing.KeyEntry key = keyRing.activeKey();
+        return Jwts.builder()
+            .header().keyId(key.kid()).and()
+            .id(UUID.randomUUID().toString())
+            .subject(username)
+            .claims(claims)
+            .claim(CLAIM_USER_ID, userId)
+            .claim(CLAIM_TOKEN_VERSION, tokenVersion)
+            .expiration(new Date(now + accessTokenTtl.toMillis()))
+            .issuedAt(new Date(now))
+            .signWith(key.signingKey())
+            .compact();
+    }
+
+    /**
+     * Verifica la firma de un token y decodifica su sujeto, autoridades,
+     * expiración, identificador (<code>jti</code>) y época del usuario. Acepta tanto el formato compacto como el heredado.
+     *
+     * @param token token JWT compacto (sin prefijo).
+     * @return el token verificado.
+     * @throws JwtException si el token no es válido.
+     */
+    public VerifiedToken verify(String token) {
+        long before = trackAllocations ? AllocationCounter.currentThreadAllocatedBytes() : 0;
+
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        VerifiedToken verified = new VerifiedToken(
+            claims.getSubject(),
+            authoritiesOf(claims),
+            claims.getExpiration().getTime(),
+            claims.getId(),
+            claims.get(CLAIM_USER_ID) instanceof Number uid ? uid.longValue() : VerifiedToken.NO_USER_ID,
+            claims.get(CLAIM_TOKEN_VERSION) instanceof Number ver ? ver.intValue() : 0);
+
+        if (trackAllocations) {
+            decodeAllocatedBytes.add(AllocationCounter.currentThreadAllocatedBytes() - before);
+            decodedTokens.increment();
+        }
+        return verified;
+    }
+
+    /**
+     * Obtiene las autoridades de los claims, según el formato del token.
+     */
+    private List<GrantedAuthority> authoritiesOf(Claims claims) {
+        Object mask = claims.get(CLAIM_ROLES_MASK);
+        if (mask == null) {
+            return readAuthorities(claims.get(CLAIM_AUTHORITIES));
+        }
+        if (!(mask instanceof Number number)) {
+            throw new MalformedJwtException("El claim rl no es numérico");
+        }
+        try {
+            return roleRegistry.authoritiesOf(number.longValue());
+        } catch (IllegalArgumentException e) {
+            throw new MalformedJwtException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Serializa las autoridades al formato JSON del claim <code>authorities</code>.
+     *
+     * @param authorities autoridades a serializar.
+     * @return JSON con un array de objetos <code>{"authority": ...}</code>.
+     * @throws JsonProcessingException si falla la serialización.
+     */
+    public String writeAuthorities(Collection<? extends GrantedAuthority> authorities)
+            throws JsonProcessingException {
+        SimpleGrantedAuthority[] array = authorities.stream()
+            .map(a -> authority(a.getAuthority()))
+            .toArray(SimpleGrantedAuthority[]::new);
+        return authoritiesWriter.writeValueAsString(array);
+    }
+
+    /**
+     * Decodifica el claim <code>authorities</code>, reutilizando la lista
+     * ya construida si ese mismo valor se decodificó antes.
+     *
+     * @param claim valor del claim (JSON en texto).
+     * @return lista inmutable de autoridades internadas.
+     * @throws MalformedJwtException si el claim falta o no es JSON válido.
+     */
+    public List<GrantedAuthority> readAuthorities(Object claim) {
+        if (claim == null) {
+            throw new MalformedJwtException("El token no contiene el claim authorities");
+        }
+        String json = claim.toString();
+        List<GrantedAuthority> authorities = internedAuthorityClaims.get(json);
+        if (authorities != null) {
+            return authorities;
+        }
+        try {
+            SimpleGrantedAuthority[] parsed = authoritiesReader.readValue(json);
+            GrantedAuthority[] interned = new GrantedAuthority[parsed.length];
+            for (int i = 0; i < parsed.length; i++) {
+                interned[i] = authority(parsed[i].getAuthority());
+            }
+            authorities = List.of(interned);
+        } catch (IOException e) {
+            throw new MalformedJwtException("El claim authorities no es válido", e);
+        }
+        if (internedAuthorityClaims.size() < MAX_INTERNED_AUTHORITY_CLAIMS) {
+            internedAuthorityClaims.putIfAbsent(json, authorities);
+        }
+        return authorities;
+    }
+
+    /**
+     * Devuelve la instancia internada de {@link SimpleGrantedAuthority}
+     * para el nombre dado.
+     *
+     * @param name nombre de la autoridad (p.ej. <code>ROLE_USER</code>).
+     * @return instancia compartida.
+     */
+    public SimpleGrantedAuthority authority(String name) {
+        return internedAuthorities.computeIfAbsent(name, SimpleGrantedAuthority::new);
+    }
+
+    /**
+     * Devuelve el {@link ObjectMapper} compartido para leer y escribir
+     * los cuerpos JSON de los filtros de seguridad.
+     *
+     * @return mapper reutilizable y seguro para uso concurrente.
+     */
+    public ObjectMapper getJsonMapper() {
+        return jsonMapper;
+    }
+
+    /**
+     * @return número de tokens decodificados con medición de asignación.
+     */
+    public long getDecodedTokens() {
+        return decodedTokens.sum();
+    }
+
+    /**
+     * Media de bytes asignados en el heap por cada verificación de token
+     * (sin contar los aciertos de {@link TokenAuthenticationCache}).
+     *
+     * @return bytes por decodificación, o {@code -1} si la medición está desactivada.
+     */
+    public double getAllocatedBytesPerDecode() {
+        if (!trackAllocations) {
+            return -1;
+        }
+        long count = decodedTokens.sum();
+        return count == 0 ? 0 : (double) decodeAllocatedBytes.sum() / count;
+    }
+
+    /**
+     * Acceso a la medición de bytes asignados por hilo de la JVM
+     * ({@code com.sun.management.ThreadMXBean}), si está disponible.
+     */
+    private static final class AllocationCounter {
+
+        private static final com.sun.management.ThreadMXBean THREADS = lookup();
+
+        private static com.sun.management.ThreadMXBean lookup() {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                    && bean.isThreadAllocatedMemorySupported()) {
+                bean.setThreadAllocatedMemoryEnabled(true);
+                return bean;
+            }
+            return null;
+        }
+
+        static boolean isSupported() {
+            return THREADS != null;
+        }
+
+        static long currentThreadAllocatedBytes() {
+            return THREADS.getCurrentThreadAllocatedBytes();
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.german.apirest.springboot.app.springbootcrud.security;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Limitador de intentos de login en memoria, basado en cubetas de tokens.
+ * <p>
+ * Mantiene una cubeta por IP de cliente y otra por nombre de usuario. Cada
+ * intento consume un token de ambas; las cubetas se rellenan de forma
+ * continua hasta su capacidad a lo largo de <code>refill-period</code>.
+ * Un intento sin tokens se rechaza antes de consultar la base de datos o
+ * de ejecutar el encoder de contraseñas.
+ * </p>
+ * <p>
+ * Las cubetas se reparten en segmentos (<code>stripes</code>), cada uno
+ * con su propio cerrojo y un mapa acotado, de modo que los hilos solo
+ * compiten cuando sus claves caen en el mismo segmento y la memoria total
+ * no supera <code>max-entries</code> cubetas por tipo de clave. Con el
+ * segmento lleno, la candidata a expulsión es siempre la cubeta usada hace
+ * más tiempo (cabeza del mapa en orden de acceso), de modo que admitir una
+ * clave nueva cuesta O(1). Qué se hace con ella depende de
+ * <code>eviction</code> (ver {@link EvictionPolicy}); en ningún caso se
+ * rechaza una clave solo porque la tabla esté llena.
+ * </p>
+ * <p>
+ * La IP es {@code request.getRemoteAddr()}; detrás de un proxy debe
+ * activarse <code>server.forward-headers-strategy</code> para que refleje
+ * la del cliente.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+@Component
+public class LoginRateLimiter {
+
+    /**
+     * Política de expulsión cuando un segmento está lleno y llega una clave nueva.
+     */
+    public enum EvictionPolicy {
+        /**
+         * Expulsa la cubeta usada hace más tiempo, aunque aún se esté vaciando.
+         * La clave nueva siempre tiene cubeta propia.
+         */
+        OLDEST,
+        /**
+         * Expulsa la cubeta usada hace más tiempo solo si ya se ha rellenado
+         * por completo (su expulsión es inocua). Si no, la clave nueva se
+         * admite sin cubeta: el intento se permite pero no se contabiliza
+         * hasta que haya sitio, y las cubetas limitadas conservan su estado.
+         */
+        REFILLED
+    }
+
+    private final boolean enabled;
+
+    private final BucketTable byIp;
+
+    private final BucketTable byUsername;
+
+    private final Counter rejectedByIp;
+
+    private final Counter rejectedByUsername;
+
+    /**
+     * Reloj en nanosegundos, sustituible en las pruebas.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Crea el limitador con los límites configurados.
+     *
+     * @param enabled            si es {@code false} no se limita ningún intento.
+     * @param ipCapacity         intentos en ráfaga permitidos por IP.
+     * @param ipRefillPeriod     tiempo en que se rellena por completo la cubeta de una IP.
+     * @param userCapacity       intentos en ráfaga permitidos por usuario.
+     * @param userRefillPeriod   tiempo en que se rellena por completo la cubeta de un usuario.
+     * @param maxEntries         número máximo de cubetas por tipo de clave.
+     * @param stripes            número de segmentos (se redondea a potencia de dos).
+     * @param eviction           política de expulsión con un segmento lleno.
+     * @param registry           registro de métricas.
+     */
+    @Autowired
+    public LoginRateLimiter(@Value("${security.login.throttle.enabled:true}") boolean enabled,
+            @Value("${security.login.throttle.ip.capacity:20}") int ipCapacity,
+            @Value("${security.login.throttle.ip.refill-period:PT1M}") Duration ipRefillPeriod,
+            @Value("${security.login.throttle.username.capacity:5}") int userCapacity,
+            @Value("${security.login.throttle.username.refill-period:PT1M}") Duration userRefillPeriod,
+            @Value("${security.login.throttle.max-entries:100000}") int maxEntries,
+            @Value("${security.login.throttle.stripes:64}") int stripes,
+            @Value("${security.login.throttle.eviction:oldest}") EvictionPolicy eviction,
+            MeterRegistry registry) {
+        this(enabled, ipCapacity, ipRefillPeriod, userCapacity, userRefillPeriod, maxEntries, stripes, eviction,
+            registry, System::nanoTime);
+    }
+
+    /**
+     * Crea el limitador con un reloj dado.
+     */
+    LoginRateLimiter(boolean enabled, int ipCapacity, Duration ipRefillPeriod, int userCapacity,
+            Duration userRefillPeriod, int maxEntries, int stripes, EvictionPolicy eviction, MeterRegistry registry,
+            LongSupplier clock) {
+        this.enabled = enabled;
+        this.clock = clock;
+        this.byIp = new BucketTable(ipCapacity, ipRefillPeriod, maxEntries, stripes, eviction);
+        this.byUsername = new BucketTable(userCapacity, userRefillPeriod, maxEntries, stripes, eviction);
+        this.rejectedByIp = Counter.builder("security.login.throttle.rejected")
+            .tag("key", "ip").register(registry);
+        this.rejectedByUsername = Counter.builder("security.login.throttle.rejected")
+            .tag("key", "username").register(registry);
+    }
+
+    /**
+     * Consume un intento de la cubeta de la IP.
+     *
+     * @param ip dirección del cliente.
+     * @return 0 si se permite el intento, o los segundos a esperar si se rechaza.
+     */
+    public long tryAcquireIp(String ip) {
+        if (!enabled || ip == null) {
+            return 0;
+        }
+        long retryAfter = byIp.tryAcquire(ip, clock.getAsLong());
+        if (retryAfter > 0) {
+            rejectedByIp.increment();
+        }
+        return retryAfter;
+    }
+
+    /**
+     * Consume un intento de la cubeta del usuario.
+     *
+     * @param username nombre de usuario (no distingue mayúsculas).
+     * @return 0 si se permite el intento, o los segundos a esperar si se rechaza.
+     */
+    public long tryAcquireUsername(String username) {
+        if (!enabled || username == null) {
+            return 0;
+        }
+        long retryAfter = byUsername.tryAcquire(username.toLowerCase(Locale.ROOT), clock.getAsLong());
+        if (retryAfter > 0) {
+            rejectedByUsername.increment();
+        }
+        return retryAfter;
+    }
+
+    /**
+     * Restablece la cubeta del usuario tras un login correcto, para que los
+     * fallos previos del propio usuario no le penalicen.
+     *
+     * @param username nombre de usuario.
+     */
+    public void onSuccess(String username) {
+        if (enabled && username != null) {
+            byUsername.remove(username.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Cubeta de tokens. Solo se accede bajo el cerrojo de su segmento.
+     */
+    private static final class Bucket {
+
+        private double tokens;
+
+        private long lastRefill;
+
+        private Bucket(double tokens, long lastRefill) {
+            this.tokens = tokens;
+            this.lastRefill = lastRefill;
+        }
+    }
+
+    /**
+     * Tabla de cubetas segmentada y acotada.
+     */
+    private static final class BucketTable {
+
+        private final int capacity;
+
+        /**
+         * Tokens que se recuperan por nanosegundo.
+         */
+        private final double refillPerNano;
+
+        private final int mask;
+
+        /**
+         * Cubetas máximas por segmento.
+         */
+        private final int perSegment;
+
+        private final EvictionPolicy eviction;
+
+        private final Map<String, Bucket>[] segments;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private BucketTable(int capacity, Duration refillPeriod, int maxEntries, int stripes,
+                EvictionPolicy eviction) {
+            if (capacity <= 0 || refillPeriod.isZero() || refillPeriod.isNegative()) {
+                throw new IllegalArgumentException("La capacidad y el periodo de relleno deben ser positivos");
+            }
+            this.capacity = capacity;
+            this.refillPerNano = (double) capacity / refillPeriod.toNanos();
+            int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+            this.mask = size - 1;
+            this.perSegment = Math.max(1, maxEntries / size);
+            this.eviction = eviction;
+            this.segments = new Map[size];
+            for (int i = 0; i < size; i++) {
+                // Orden de acceso: la cabeza es la cubeta usada hace más tiempo
+                this.segments[i] = new LinkedHashMap<>(16, 0.75f, true);
+            }
+        }
+
+        private Map<String, Bucket> segment(String key) {
+            int h = key.hashCode();
+            return segments[(h ^ (h >>> 16)) & mask];
+        }
+
+        /**
+         * @return 0 si se ha consumido un token, o los segundos hasta disponer de uno.
+         */
+        private long tryAcquire(String key, long now) {
+            Map<String, Bucket> segment = segment(key);
+            synchronized (segment) {
+                Bucket bucket = segment.get(key);
+                if (bucket == null) {
+                    if (segment.size() >= perSegment && !evictEldest(segment, now)) {
+                        // Sin sitio: se permite el intento sin contabilizarlo
+                        return 0;
+                    }
+                    segment.put(key, new Bucket(capacity - 1, now));
+                    return 0;
+                }
+                bucket.tokens = tokensAt(bucket, now);
+                bucket.lastRefill = now;
+                if (bucket.tokens >= 1) {
+                    bucket.tokens -= 1;
+                    return 0;
+                }
+                return toSeconds((1 - bucket.tokens) / refillPerNano);
+            }
+        }
+
+        /**
+         * Expulsa la cubeta usada hace más tiempo si la política lo permite.
+         *
+         * @return {@code true} si se ha liberado sitio.
+         */
+        private boolean evictEldest(Map<String, Bucket> segment, long now) {
+            Iterator<Bucket> buckets = segment.values().iterator();
+            Bucket eldest = buckets.next();
+            if (eviction == EvictionPolicy.REFILLED && tokensAt(eldest, now) < capacity) {
+                return false;
+            }
+            buckets.remove();
+            return true;
+        }
+
+        private double tokensAt(Bucket bucket, long now) {
+            return Math.min(capacity, bucket.tokens + (now - bucket.lastRefill) * refillPerNano);
+        }
+
+        private static long toSeconds(double nanos) {
+            return Math.max(1, (long) Math.ceil(nanos / 1_000_000_000d));
+        }
+
+        private void remove(String key) {
+            Map<String, Bucket> segment = segment(key);
+            synchronized (segment) {
+                segment.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.german.apirest.springboot.app.springbootcrud.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.Advisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.security.authorization.method.AuthorizationManagerBeforeMethodInterceptor;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+
+/**
+ * Configuración de la seguridad a nivel de método ({@code @PreAuthorize}).
+ * <p>
+ * El modo se elige con <code>security.authorization.mode</code>:
+ * <ul>
+ *   <li><code>compiled</code> (por defecto): las expresiones de roles se
+ *       compilan al arrancar con {@link CompiledPreAuthorizeAuthorizationManager}
+ *       y el resto se evalúa con SpEL.</li>
+ *   <li><code>spel</code>: configuración estándar de
+ *       {@link EnableMethodSecurity}, que evalúa SpEL en cada llamada.</li>
+ * </ul>
+ * En modo <code>compiled</code> solo se registra el interceptor de
+ * {@code @PreAuthorize}; la aplicación no usa {@code @PostAuthorize} ni
+ * los filtros de colecciones.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+@Configuration
+public class MethodSecurityConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(MethodSecurityConfig.class);
+
+    /**
+     * Seguridad de métodos estándar, evaluando SpEL en cada llamada.
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "security.authorization.mode", havingValue = "spel")
+    @EnableMethodSecurity(prePostEnabled = true)
+    static class SpelMethodSecurityConfig {
+    }
+
+    /**
+     * Seguridad de métodos con las expresiones de roles compiladas.
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "security.authorization.mode", havingValue = "compiled", matchIfMissing = true)
+    @EnableMethodSecurity(prePostEnabled = false)
+    static class CompiledMethodSecurityConfig {
+
+        /**
+         * Crea el manager compilado.
+         * <p>
+         * Es estático y resuelve {@link RoleRegistry} de forma diferida, como
+         * el resto de beans de infraestructura de AOP.
+         * </p>
+         *
+         * @param roleRegistry proveedor del registro de roles.
+         * @param context      contexto usado por el manager SpEL de respaldo.
+         * @return el manager de {@code @PreAuthorize}.
+         */
+        @Bean
+        @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+        static CompiledPreAuthorizeAuthorizationManager compiledPreAuthorizeAuthorizationManager(
+                ObjectProvider<RoleRegistry> roleRegistry, ApplicationContext context) {
+            PreAuthorizeAuthorizationManager spel = new PreAuthorizeAuthorizationManager();
+            spel.setApplicationContext(context);
+            return new CompiledPreAuthorizeAuthorizationManager(roleRegistry::getObject, spel);
+        }
+
+        /**
+         * Registra el interceptor de {@code @PreAuthorize} con el manager compilado.
+         *
+         * @param manager manager compilado.
+         * @return el advisor de {@code @PreAuthorize}.
+         */
+        @Bean
+        @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+        static Advisor preAuthorizeAuthorizationMethodInterceptor(CompiledPreAuthorizeAuthorizationManager manager) {
+            return AuthorizationManagerBeforeMethodInterceptor.preAuthorize(manager);
+        }
+
+        /**
+         * Compila al arrancar las expresiones {@code @PreAuthorize} de todos
+         * los beans, una vez creados los singletons. Una expresión no válida
+         * impide arrancar la aplicación.
+         *
+         * @param manager manager compilado.
+         * @param context contexto cuyos beans se recorren.
+         * @return el inicializador.
+         */
+        @Bean
+        static SmartInitializingSingleton preAuthorizeCompiler(CompiledPreAuthorizeAuthorizationManager manager,
+                ApplicationContext context) {
+            return () -> {
+                int compiled = 0;
+                for (String name : context.getBeanDefinitionNames()) {
+                    Class<?> type = context.getType(name, false);
+                    if (type != null) {
+                        compiled += manager.compile(type);
+                    }
+                }
+                log.info("Compiladas {} expresiones @PreAuthorize", compiled);
+            };
+        }
+    }
+}
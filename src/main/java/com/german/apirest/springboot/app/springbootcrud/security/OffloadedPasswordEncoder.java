@@ -0,0 +1,43 @@
+package com.german.apirest.springboot.app.springbootcrud.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * {@link PasswordEncoder} que delega en otro encoder pero ejecuta
+ * <code>encode</code> y <code>matches</code> en el
+ * {@link PasswordHashingExecutor}, fuera de los hilos de petición.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+public class OffloadedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final PasswordHashingExecutor executor;
+
+    /**
+     * Crea el encoder.
+     *
+     * @param delegate encoder real (p.ej. BCrypt).
+     * @param executor pool dedicado de hashing.
+     */
+    public OffloadedPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return executor.encode(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return executor.matches(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,108 @@
+package com.german.apirest.springboot.app.springbootcrud.security;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pequeño benchmark que calibra el coste de BCrypt para el hardware actual.
+ * <p>
+ * Mide el tiempo medio de una verificación para cada coste y recomienda el
+ * mayor cuyo tiempo no supera el objetivo. Puede ejecutarse:
+ * <ul>
+ *   <li>al arrancar, con <code>security.password.calibration.enabled=true</code>
+ *       (el resultado se escribe en el log), o</li>
+ *   <li>de forma aislada con {@link #main(String[])}, pasando el objetivo
+ *       como duración ISO-8601 (p.ej. <code>PT0.25S</code>).</li>
+ * </ul>
+ * En ambos casos la recomendación se escribe en el log.
+ * El valor recomendado se aplica con <code>security.password.bcrypt.strength</code>.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+@Component
+@ConditionalOnProperty(name = "security.password.calibration.enabled", havingValue = "true")
+public class PasswordCostCalibrator implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordCostCalibrator.class);
+
+    private static final int MIN_STRENGTH = 4;
+    private static final int MAX_STRENGTH = 16;
+    private static final int SAMPLES = 5;
+
+    /**
+     * Tiempo objetivo de una verificación.
+     */
+    @Value("${security.password.calibration.target:PT0.25S}")
+    private Duration target;
+
+    /**
+     * Ejecuta la calibración al arrancar y escribe la recomendación en el log.
+     *
+     * @param args argumentos de la aplicación (no usados).
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        report(target);
+    }
+
+    /**
+     * Calcula el mayor coste de BCrypt cuyo tiempo medio de verificación
+     * no supera el objetivo.
+     *
+     * @param target tiempo objetivo por verificación.
+     * @return coste recomendado (entre 4 y 16).
+     */
+    public static int calibrate(Duration target) {
+        int best = MIN_STRENGTH;
+        for (int strength = MIN_STRENGTH; strength <= MAX_STRENGTH; strength++) {
+            Duration elapsed = measure(strength);
+            log.debug("BCrypt strength={} -> {} ms por verificación", strength, elapsed.toMillis());
+            if (elapsed.compareTo(target) > 0) {
+                break;
+            }
+            best = strength;
+        }
+        return best;
+    }
+
+    /**
+     * Mide el tiempo medio de verificación para un coste, descartando una
+     * primera ejecución de calentamiento.
+     */
+    private static Duration measure(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        String hash = encoder.encode("calibration-password");
+        encoder.matches("calibration-password", hash);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < SAMPLES; i++) {
+            encoder.matches("calibration-password", hash);
+        }
+        return Duration.ofNanos((System.nanoTime() - start) / SAMPLES);
+    }
+
+    /**
+     * Ejecuta la calibración fuera de la aplicación.
+     *
+     * @param args objetivo opcional como duración ISO-8601 (por defecto <code>PT0.25S</code>).
+     */
+    public static void main(String[] args) {
+        report(args.length > 0 ? Duration.parse(args[0]) : Duration.ofMillis(250));
+    }
+
+    private static void report(Duration target) {
+        int strength = calibrate(target);
+        log.info("Coste BCrypt recomendado para una verificación de {} ms: security.password.bcrypt.strength={}",
+            target.toMillis(), strength);
+    }
+}
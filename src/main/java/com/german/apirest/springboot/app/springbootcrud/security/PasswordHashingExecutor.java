@@ -0,0 +1,166 @@
+package com.german.apirest.springboot.app.springbootcrud.security;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pool dedicado y acotado para el hashing y la verificación de contraseñas.
+ * <p>
+ * BCrypt es deliberadamente lento; ejecutarlo en los hilos de Tomcat hace
+ * que una ráfaga de logins deje sin hilos al resto de la API. Este pool
+ * limita la concurrencia al número de núcleos y encola como máximo
+ * <code>queue-capacity</code> tareas; si la cola está llena se rechaza de
+ * inmediato con {@link PasswordHashingRejectedException}.
+ * </p>
+ * <p>
+ * Métricas publicadas:
+ * <ul>
+ *   <li><code>security.password.hashing.queue.depth</code>: tareas en cola,</li>
+ *   <li><code>security.password.hashing.active</code>: tareas en ejecución,</li>
+ *   <li><code>security.password.hashing.latency</code>: duración del hash (etiqueta <code>operation</code>),</li>
+ *   <li><code>security.password.hashing.rejected</code>: tareas rechazadas.</li>
+ * </ul>
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+    private final long retryAfterSeconds;
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    /**
+     * Crea el pool y registra sus métricas.
+     *
+     * @param threads           número de hilos (0 para usar el número de núcleos).
+     * @param queueCapacity     capacidad máxima de la cola.
+     * @param timeout           espera máxima por un resultado.
+     * @param retryAfterSeconds valor de <code>Retry-After</code> al rechazar.
+     * @param registry          registro de métricas.
+     */
+    public PasswordHashingExecutor(@Value("${security.password.hashing.threads:0}") int threads,
+            @Value("${security.password.hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${security.password.hashing.timeout:PT10S}") Duration timeout,
+            @Value("${security.password.hashing.retry-after-seconds:2}") long retryAfterSeconds,
+            MeterRegistry registry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "password-hashing-" + sequence.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        this.timeout = timeout;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        Gauge.builder("security.password.hashing.queue.depth", executor, e -> e.getQueue().size())
+            .description("Tareas de hashing de contraseñas en cola")
+            .register(registry);
+        Gauge.builder("security.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+            .description("Tareas de hashing de contraseñas en ejecución")
+            .register(registry);
+        this.encodeTimer = Timer.builder("security.password.hashing.latency")
+            .tag("operation", "encode")
+            .register(registry);
+        this.matchesTimer = Timer.builder("security.password.hashing.latency")
+            .tag("operation", "matches")
+            .register(registry);
+        this.rejected = Counter.builder("security.password.hashing.rejected")
+            .description("Tareas de hashing rechazadas por saturación")
+            .register(registry);
+    }
+
+    /**
+     * Ejecuta un hash de contraseña en el pool y espera su resultado.
+     *
+     * @param task tarea de hashing.
+     * @return el hash generado.
+     * @throws PasswordHashingRejectedException si el pool está saturado.
+     */
+    public String encode(Callable<String> task) {
+        return execute(task, encodeTimer);
+    }
+
+    /**
+     * Ejecuta una verificación de contraseña en el pool y espera su resultado.
+     *
+     * @param task tarea de verificación.
+     * @return resultado de la verificación.
+     * @throws PasswordHashingRejectedException si el pool está saturado.
+     */
+    public boolean matches(Callable<Boolean> task) {
+        return execute(task, matchesTimer);
+    }
+
+    /**
+     * @return número de tareas en cola.
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    private <T> T execute(Callable<T> task, Timer timer) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timer.recordCallable(task));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingRejectedException("Demasiadas operaciones de contraseña en curso", retryAfterSeconds);
+        }
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new PasswordHashingRejectedException("La operación de contraseña ha excedido el tiempo máximo", retryAfterSeconds);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando el hash de la contraseña", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Detiene el pool al cerrar el contexto.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
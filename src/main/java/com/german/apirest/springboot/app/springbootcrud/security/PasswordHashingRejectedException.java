@@ -0,0 +1,38 @@
+package com.german.apirest.springboot.app.springbootcrud.security;
+
+/**
+ * Excepción lanzada cuando el pool de hashing de contraseñas está
+ * saturado y no admite más trabajo.
+ * <p>
+ * Se traduce en una respuesta <strong>503 Service Unavailable</strong>
+ * con la cabecera <code>Retry-After</code>.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    /**
+     * Segundos que el cliente debería esperar antes de reintentar.
+     */
+    private final long retryAfterSeconds;
+
+    /**
+     * Crea la excepción.
+     *
+     * @param message           motivo del rechazo.
+     * @param retryAfterSeconds segundos sugeridos antes de reintentar.
+     */
+    public PasswordHashingRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * @return segundos sugeridos antes de reintentar.
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
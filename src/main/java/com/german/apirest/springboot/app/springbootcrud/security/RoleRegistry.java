@@ -0,0 +1,141 @@
+package com.german.apirest.springboot.app.springbootcrud.security;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import com.german.apirest.springboot.app.springbootcrud.entities.Role;
+import com.german.apirest.springboot.app.springbootcrud.repositories.RoleRepository;
+
+/**
+ * Registro en memoria de los roles existentes, usado para codificar las
+ * autoridades de un token como una máscara de bits.
+ * <p>
+ * Cada rol ocupa el bit <code>id - 1</code>, de modo que la asignación es
+ * estable entre nodos que comparten la misma base de datos. Para cada
+ * máscara se construye una única lista inmutable de
+ * {@link GrantedAuthority} que se reutiliza en todas las peticiones.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+@Component
+public class RoleRegistry {
+
+    /**
+     * Indica que un conjunto de autoridades no puede codificarse como máscara.
+     */
+    public static final long NOT_ENCODABLE = -1L;
+
+    /**
+     * Instantánea inmutable de los roles conocidos.
+     */
+    private record Snapshot(Map<String, Long> bitsByName, GrantedAuthority[] authoritiesByBit, long knownMask) {
+    }
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    private volatile Snapshot snapshot;
+
+    private final Map<Long, List<GrantedAuthority>> authoritiesByMask = new ConcurrentHashMap<>();
+
+    /**
+     * Codifica las autoridades como máscara de bits.
+     *
+     * @param authorities autoridades a codificar.
+     * @return la máscara, o {@link #NOT_ENCODABLE} si alguna autoridad no
+     *         corresponde a un rol registrado con id entre 1 y 63.
+     */
+    public long maskOf(Collection<? extends GrantedAuthority> authorities) {
+        Snapshot current = snapshot();
+        long mask = 0L;
+        for (GrantedAuthority authority : authorities) {
+            Long bit = current.bitsByName().get(authority.getAuthority());
+            if (bit == null) {
+                current = load();
+                bit = current.bitsByName().get(authority.getAuthority());
+                if (bit == null) {
+                    return NOT_ENCODABLE;
+                }
+            }
+            mask |= bit;
+        }
+        return mask;
+    }
+
+    /**
+     * Decodifica una máscara de bits en la lista compartida de autoridades.
+     *
+     * @param mask máscara de roles.
+     * @return lista inmutable de autoridades.
+     * @throws IllegalArgumentException si la máscara contiene roles desconocidos.
+     */
+    public List<GrantedAuthority> authoritiesOf(long mask) {
+        List<GrantedAuthority> authorities = authoritiesByMask.get(mask);
+        if (authorities != null) {
+            return authorities;
+        }
+        Snapshot current = snapshot();
+        if ((mask & ~current.knownMask()) != 0) {
+            current = load();
+            if ((mask & ~current.knownMask()) != 0) {
+                throw new IllegalArgumentException("La máscara de roles contiene roles desconocidos: " + mask);
+            }
+        }
+        List<GrantedAuthority> list = new ArrayList<>(Long.bitCount(mask));
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if ((mask & (1L << bit)) != 0) {
+                list.add(current.authoritiesByBit()[bit]);
+            }
+        }
+        authorities = Collections.unmodifiableList(list);
+        List<GrantedAuthority> previous = authoritiesByMask.putIfAbsent(mask, authorities);
+        return previous != null ? previous : authorities;
+    }
+
+    /**
+     * Vuelve a cargar los roles desde la base de datos.
+     */
+    public void reload() {
+        load();
+    }
+
+    /**
+     * Carga los roles y publica una nueva instantánea.
+     */
+    private synchronized Snapshot load() {
+        Map<String, Long> bitsByName = new HashMap<>();
+        GrantedAuthority[] authoritiesByBit = new GrantedAuthority[Long.SIZE];
+        long knownMask = 0L;
+        for (Role role : roleRepository.findAll()) {
+            Long id = role.getId();
+            if (id == null || id < 1 || id >= Long.SIZE) {
+                continue;
+            }
+            int bit = (int) (id - 1);
+            bitsByName.put(role.getName(), 1L << bit);
+            authoritiesByBit[bit] = new SimpleGrantedAuthority(role.getName());
+            knownMask |= 1L << bit;
+        }
+        Snapshot loaded = new Snapshot(Map.copyOf(bitsByName), authoritiesByBit, knownMask);
+        authoritiesByMask.clear();
+        snapshot = loaded;
+        return loaded;
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        return current != null ? current : load();
+    }
+}
@@ -1,19 +1,24 @@
 package com.german.apirest.springboot.app.springbootcrud.security;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
-import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
@@ -23,6 +28,10 @@ import org.springframework.web.filter.CorsFilter;
 
 import com.german.apirest.springboot.app.springbootcrud.security.filter.JwtAuthenticationFilter;
 import com.german.apirest.springboot.app.springbootcrud.security.filter.JwtValidationFilter;
+import com.german.apirest.springboot.app.springbootcrud.services.JpaUserDetailsService;
+import com.german.apirest.springboot.app.springbootcrud.services.RefreshTokenService;
+
+import jakarta.servlet.DispatcherType;
 
 /**
  * Configuración de seguridad basada en filtros para la aplicación.
@@ -30,7 +39,7 @@ import com.german.apirest.springboot.app.springbootcrud.security.filter.JwtValid
  * Define beans y la cadena de filtros que:
  * <ul>
  *   <li>Proporciona un {@link org.springframework.security.authentication.AuthenticationManager}</li>
- *   <li>Declara un {@link org.springframework.security.crypto.password.PasswordEncoder} (BCrypt)</li>
+ *   <li>Declara un {@link org.springframework.security.crypto.password.PasswordEncoder} delegado (BCrypt/Argon2)</li>
  *   <li>Configura CORS para permitir orígenes y métodos específicos</li>
  *   <li>Deshabilita CSRF y establece la política de sesión como <strong>stateless</strong></li>
  *   <li>Inyecta los filtros {@link com.german.apirest.springboot.app.springbootcrud.security.filter.JwtAuthenticationFilter}
@@ -44,7 +53,6 @@ import com.german.apirest.springboot.app.springbootcrud.security.filter.JwtValid
  * @since   1.0
  */
 @Configuration
-@EnableMethodSecurity(prePostEnabled = true)
 public class SpringSecurityConfig {
 
     /**
@@ -53,6 +61,48 @@ public class SpringSecurityConfig {
     @Autowired
     private AuthenticationConfiguration authenticationConfiguration;
 
+    /**
+     * Codec de tokens JWT compartido por ambos filtros.
+     */
+    @Autowired
+    private JwtTokenCodec jwtTokenCodec;
+
+    /**
+     * Servicio de tokens de refresco, usado por el filtro de login.
+     */
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    /**
+     * Caché de tokens JWT verificados, compartida por el filtro de validación.
+     */
+    @Autowired
+    private TokenAuthenticationCache tokenAuthenticationCache;
+
+    /**
+     * Lista de tokens revocados, consultada por el filtro de validación.
+     */
+    @Autowired
+    private TokenRevocationStore tokenRevocationStore;
+
+    /**
+     * Épocas de tokens por usuario, consultadas por el filtro de validación.
+     */
+    @Autowired
+    private TokenEpochRegistry tokenEpochRegistry;
+
+    /**
+     * Limitador de intentos de login, usado por el filtro de login.
+     */
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
+    /**
+     * Tamaño máximo en bytes del cuerpo de login.
+     */
+    @Value("${security.login.max-body-bytes:4096}")
+    private int loginMaxBodyBytes;
+
     /**
      * Crea un {@link AuthenticationManager} a partir de la configuración de Spring Security.
      *
@@ -65,16 +115,56 @@ public class SpringSecurityConfig {
     }
 
     /**
-     * Crea un {@link PasswordEncoder} basado en {@link BCryptPasswordEncoder}.
+     * Crea un {@link PasswordEncoder} delegado y versionado.
+     * <p>
+     * Los hashes nuevos se guardan con prefijo de algoritmo
+     * (<code>{bcrypt}</code> o <code>{argon2}</code>, según
+     * <code>security.password.encoder</code>) y con el coste configurado.
+     * Los hashes heredados sin prefijo se verifican como BCrypt. Tras un
+     * login correcto, los hashes con otro algoritmo o con menor coste se
+     * recodifican mediante {@link JpaUserDetailsService#updatePassword}.
+     * </p>
      * <p>
-     * Utilizado para encriptar contraseñas al registrar usuarios y
-     * verificarlas durante el login.</p>
+     * El trabajo se ejecuta en el {@link PasswordHashingExecutor}, no en
+     * los hilos de petición.</p>
      *
-     * @return instancia de {@code BCryptPasswordEncoder}
+     * @param hashingExecutor pool dedicado para el hashing de contraseñas
+     * @param encoderId       algoritmo para los hashes nuevos (<code>bcrypt</code> o <code>argon2</code>)
+     * @param bcryptStrength  coste (log2 de rondas) de BCrypt
+     * @return instancia de {@code PasswordEncoder}
      */
     @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    PasswordEncoder passwordEncoder(PasswordHashingExecutor hashingExecutor,
+            @Value("${security.password.encoder:bcrypt}") String encoderId,
+            @Value("${security.password.bcrypt.strength:10}") int bcryptStrength) {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptPasswordEncoder(bcryptStrength));
+        encoders.put("argon2", Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(encoderId, encoders);
+        delegating.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder(bcryptStrength));
+        return new OffloadedPasswordEncoder(delegating, hashingExecutor);
+    }
+
+    /**
+     * Crea el proveedor de autenticación por usuario y contraseña.
+     * <p>
+     * Los hashes obsoletos se recodifican tras un login correcto, pero si el
+     * {@link PasswordHashingExecutor} está saturado la recodificación se
+     * omite y se reintenta en el siguiente login, en lugar de responder 503.
+     * </p>
+     *
+     * @param userDetailsService servicio de usuarios, que también guarda los hashes recodificados
+     * @param passwordEncoder    encoder de contraseñas
+     * @return el proveedor que usará el {@link AuthenticationManager}
+     */
+    @Bean
+    DaoAuthenticationProvider authenticationProvider(JpaUserDetailsService userDetailsService,
+            PasswordEncoder passwordEncoder) {
+        DaoAuthenticationProvider provider = new UpgradeTolerantAuthenticationProvider(passwordEncoder);
+        provider.setUserDetailsService(userDetailsService);
+        provider.setUserDetailsPasswordService(userDetailsService);
+        return provider;
     }
 
     /**
@@ -92,12 +182,18 @@ public class SpringSecurityConfig {
     SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         return http
             .authorizeHttpRequests(authz -> authz
+                // Las respuestas en streaming se completan en un dispatch ASYNC de una petición ya autorizada
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers(HttpMethod.GET, "/api/users").permitAll()
                 .requestMatchers(HttpMethod.POST, "/api/users/register").permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/auth/jwks").permitAll()
+                .requestMatchers(HttpMethod.POST, "/api/auth/refresh").permitAll()
                 .anyRequest().authenticated()
             )
-            .addFilter(new JwtAuthenticationFilter(authenticationManager()))
-            .addFilter(new JwtValidationFilter(authenticationManager()))
+            .addFilter(new JwtAuthenticationFilter(authenticationManager(), jwtTokenCodec, refreshTokenService,
+                loginRateLimiter, loginMaxBodyBytes))
+            .addFilter(new JwtValidationFilter(authenticationManager(), jwtTokenCodec, tokenAuthenticationCache,
+                tokenRevocationStore, tokenEpochRegistry))
             .csrf(csrf -> csrf.disable())
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .sessionManagement(sess ->
@@ -109,14 +205,23 @@ public class SpringSecurityConfig {
     /**
      * Define la configuración CORS global para la aplicación.
      *
+     * <p>Además de los métodos y cabeceras de las peticiones condicionales
+     * (<code>PATCH</code>, <code>If-Match</code>, <code>If-None-Match</code>,
+     * <code>Prefer</code>), expone <code>ETag</code>,
+     * <code>Preference-Applied</code> y <code>Retry-After</code> a los
+     * clientes de navegador.</p>
+     *
      * @return {@code CorsConfigurationSource} con orígenes, métodos y cabeceras permitidos
      */
     @Bean
     CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration config = new CorsConfiguration();
         config.setAllowedOriginPatterns(Arrays.asList("*"));
-        config.setAllowedMethods(Arrays.asList("GET", "POST", "DELETE", "PUT"));
-        config.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type"));
+        config.setAllowedMethods(Arrays.asList("GET", "POST", "DELETE", "PUT", "PATCH"));
+        config.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "If-Match", "If-None-Match",
+            "Prefer"));
+        // Cabeceras de respuesta que el navegador debe dejar leer a la aplicación
+        config.setExposedHeaders(Arrays.asList("ETag", "Preference-Applied", "Retry-After"));
         config.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
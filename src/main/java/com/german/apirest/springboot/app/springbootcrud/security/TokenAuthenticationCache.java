@@ -0,0 +1,117 @@
+package com.german.apirest.springboot.app.springbootcrud.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Component;
+
+import com.german.apirest.springboot.app.springbootcrud.cache.BoundedExpiringCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Caché de tokens JWT ya verificados.
+ * <p>
+ * Asocia el hash SHA-256 del token recibido con el
+ * {@link UsernamePasswordAuthenticationToken} construido a partir de él,
+ * de forma que las peticiones repetidas con el mismo token evitan la
+ * verificación de la firma y la deserialización de autoridades.
+ * Cada entrada expira en el instante <code>exp</code> del token.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+@Component
+public class TokenAuthenticationCache {
+
+    private final BoundedExpiringCache<String, UsernamePasswordAuthenticationToken> cache;
+
+    /**
+     * Crea la caché con la capacidad configurada.
+     *
+     * @param maxEntries número máximo de tokens verificados a retener.
+     * @param registry   registro donde se publican las métricas <code>security.jwt.cache.*</code>.
+     */
+    public TokenAuthenticationCache(@Value("${security.jwt.cache.max-entries:10000}") int maxEntries,
+            MeterRegistry registry) {
+        this.cache = new BoundedExpiringCache<>(maxEntries);
+        this.cache.bindTo(registry, "security.jwt.cache");
+    }
+
+    /**
+     * Recupera la autenticación asociada a un token previamente verificado.
+     *
+     * @param token token JWT en bruto (sin prefijo).
+     * @return la autenticación, o {@code null} si no está en caché o ha expirado.
+     */
+    public UsernamePasswordAuthenticationToken get(String token) {
+        return cache.get(hash(token), System.currentTimeMillis());
+    }
+
+    /**
+     * Almacena la autenticación de un token verificado hasta su expiración.
+     *
+     * @param token          token JWT en bruto (sin prefijo).
+     * @param authentication autenticación construida a partir del token.
+     * @param expiresAt      instante <code>exp</code> del token en ms.
+     */
+    public void put(String token, UsernamePasswordAuthenticationToken authentication, long expiresAt) {
+        cache.put(hash(token), authentication, expiresAt, System.currentTimeMillis());
+    }
+
+    /**
+     * Elimina un token de la caché.
+     *
+     * @param token token JWT en bruto (sin prefijo).
+     */
+    public void invalidate(String token) {
+        cache.invalidate(hash(token));
+    }
+
+    /**
+     * @return número de tokens actualmente en caché.
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * @return número de aciertos.
+     */
+    public long getHits() {
+        return cache.getHits();
+    }
+
+    /**
+     * @return número de fallos.
+     */
+    public long getMisses() {
+        return cache.getMisses();
+    }
+
+    /**
+     * @return número de expulsiones.
+     */
+    public long getEvictions() {
+        return cache.getEvictions();
+    }
+
+    /**
+     * Calcula el hash SHA-256 del token codificado en Base64, para no
+     * retener el token en claro como clave.
+     */
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
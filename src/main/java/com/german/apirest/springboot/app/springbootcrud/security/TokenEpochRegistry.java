@@ -0,0 +1,181 @@
+package com.german.apirest.springboot.app.springbootcrud.security;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.german.apirest.springboot.app.springbootcrud.cache.LongIntHashMap;
+import com.german.apirest.springboot.app.springbootcrud.repositories.UserRepository;
+import com.german.apirest.springboot.app.springbootcrud.repositories.UserTokenEpoch;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Épocas de tokens por usuario, en memoria.
+ * <p>
+ * Cada token lleva el id del usuario (<code>uid</code>) y su versión de
+ * tokens (<code>ver</code>). Un token solo es válido si su versión
+ * coincide con la actual del usuario y este está habilitado. Las épocas se
+ * guardan en un {@link LongIntHashMap} (id → versión, negativa si el
+ * usuario está deshabilitado) que se sustituye entero en cada cambio
+ * (<em>copy-on-write</em>), de modo que la comprobación por petición es
+ * una búsqueda sin bloqueos ni reservas de memoria.
+ * </p>
+ * <p>
+ * El mapa se refresca de forma incremental leyendo los usuarios con
+ * <code>updated_at</code> posterior a la última lectura
+ * (<code>security.jwt.token-epoch.refresh-interval</code>), así que los
+ * cambios hechos en otro nodo se aplican en pocos segundos. Los cambios
+ * del propio nodo se aplican al confirmar la transacción.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+@Component
+public class TokenEpochRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenEpochRegistry.class);
+
+    /**
+     * Valor devuelto por el mapa para usuarios que aún no conoce.
+     */
+    private static final int UNKNOWN = Integer.MIN_VALUE;
+
+    /**
+     * Margen al leer cambios, para tolerar desfases de reloj y
+     * transacciones confirmadas tarde.
+     */
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    private final UserRepository repository;
+
+    private volatile LongIntHashMap epochs = new LongIntHashMap(16);
+
+    private volatile Instant lastSync = Instant.EPOCH;
+
+    /**
+     * Crea el registro.
+     *
+     * @param repository repositorio de usuarios.
+     * @param registry   registro de métricas.
+     */
+    public TokenEpochRegistry(UserRepository repository, MeterRegistry registry) {
+        this.repository = repository;
+        Gauge.builder("security.jwt.token-epoch.users", this, r -> r.epochs.size()).register(registry);
+    }
+
+    /**
+     * Carga las épocas de todos los usuarios al arrancar.
+     */
+    @PostConstruct
+    void load() {
+        refresh();
+    }
+
+    /**
+     * Indica si una versión de tokens es la actual para el usuario.
+     * <p>
+     * Los tokens sin <code>uid</code> (emitidos antes de existir este
+     * mecanismo) y los de usuarios aún no cargados se aceptan.
+     * </p>
+     *
+     * @param userId       id del usuario, o negativo si el token no lo incluye.
+     * @param tokenVersion versión del claim <code>ver</code>.
+     * @return {@code false} si el usuario está deshabilitado o la versión es antigua.
+     */
+    public boolean isCurrent(long userId, int tokenVersion) {
+        if (userId < 0) {
+            return true;
+        }
+        int current = epochs.get(userId, UNKNOWN);
+        return current == UNKNOWN || current == tokenVersion;
+    }
+
+    /**
+     * Indica si una copia del estado de un usuario (versión de tokens y
+     * habilitado) coincide con la conocida por el registro.
+     *
+     * @param userId       id del usuario.
+     * @param tokenVersion versión de tokens de la copia.
+     * @param enabled      estado de la copia.
+     * @return {@code false} si el registro conoce un estado distinto.
+     */
+    public boolean isUpToDate(long userId, int tokenVersion, boolean enabled) {
+        int current = epochs.get(userId, UNKNOWN);
+        return current == UNKNOWN || current == encode(tokenVersion, enabled);
+    }
+
+    /**
+     * Lee de la base de datos los usuarios modificados desde la última
+     * lectura y publica un mapa nuevo si hay cambios.
+     */
+    @Scheduled(fixedDelayString = "${security.jwt.token-epoch.refresh-interval:PT5S}",
+            initialDelayString = "${security.jwt.token-epoch.refresh-interval:PT5S}")
+    public void refresh() {
+        Instant now = Instant.now();
+        try {
+            Instant since = Instant.EPOCH.equals(lastSync) ? Instant.EPOCH : lastSync.minus(SYNC_OVERLAP);
+            List<UserTokenEpoch> changes = repository.findByUpdatedAtAfter(since);
+            if (!changes.isEmpty()) {
+                apply(changes);
+            }
+            lastSync = now;
+        } catch (RuntimeException e) {
+            log.error("No se pudieron refrescar las épocas de tokens", e);
+        }
+    }
+
+    /**
+     * Aplica la época de un usuario en este nodo cuando se confirma la
+     * transacción actual (o inmediatamente si no hay transacción).
+     *
+     * @param userId       id del usuario.
+     * @param tokenVersion versión de tokens actual.
+     * @param enabled      si el usuario está habilitado.
+     */
+    public void updateAfterCommit(long userId, int tokenVersion, boolean enabled) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update(userId, tokenVersion, enabled);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update(userId, tokenVersion, enabled);
+            }
+        });
+    }
+
+    private synchronized void update(long userId, int tokenVersion, boolean enabled) {
+        LongIntHashMap next = epochs.copy();
+        next.put(userId, encode(tokenVersion, enabled));
+        epochs = next;
+    }
+
+    private synchronized void apply(List<UserTokenEpoch> changes) {
+        LongIntHashMap next = epochs.copy();
+        for (UserTokenEpoch change : changes) {
+            next.put(change.getId(), encode(change.getTokenVersion(), change.getEnabled()));
+        }
+        epochs = next;
+    }
+
+    /**
+     * Codifica el estado en un único entero: la versión si está
+     * habilitado, o un valor negativo que no coincide con ninguna versión.
+     */
+    private static int encode(int tokenVersion, boolean enabled) {
+        return enabled ? tokenVersion : -1 - tokenVersion;
+    }
+}
@@ -1,13 +1,10 @@
 package com.german.apirest.springboot.app.springbootcrud.security;
 
-import javax.crypto.SecretKey;
-import io.jsonwebtoken.Jwts;
-
 /**
  * Contiene constantes de configuración para la gestión de JWT.
  * <p>
- * Define la clave secreta, prefijo de cabecera y nombre de cabeceras
- * usadas para autenticar peticiones.
+ * Define el prefijo de cabecera y nombre de cabeceras usadas para
+ * autenticar peticiones. Las claves de firma las gestiona {@link JwtKeyRing}.
  * </p>
  *
  * @version 1.0
@@ -15,15 +12,6 @@ import io.jsonwebtoken.Jwts;
  */
 public class TokenJwtConfig {
 
-    /**
-     * Clave secreta utilizada para firmar y verificar tokens JWT.
-     * <p>
-     * Generada con algoritmo HS256 de JsonWebToken.<br>
-     * Debe mantenerse segura y no exponerse en repositorios públicos.
-     * </p>
-     */
-    public static final SecretKey SECRET_KEY = Jwts.SIG.HS256.key().build();
-
     /**
      * Prefijo utilizado en la cabecera Authorization.
      * <p>Ejemplo: <code>Authorization: Bearer &lt;token&gt;</code>.</p>
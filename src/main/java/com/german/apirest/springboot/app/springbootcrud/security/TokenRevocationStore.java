@@ -0,0 +1,166 @@
+package com.german.apirest.springboot.app.springbootcrud.security;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.german.apirest.springboot.app.springbootcrud.cache.BloomFilter;
+import com.german.apirest.springboot.app.springbootcrud.entities.RevokedToken;
+import com.german.apirest.springboot.app.springbootcrud.repositories.RevokedTokenRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Almacén de tokens de acceso revocados (lista de denegación).
+ * <p>
+ * La fuente de verdad es la tabla <code>revoked_tokens</code>. Cada nodo
+ * la refleja en memoria con:
+ * <ul>
+ *   <li>un {@link BloomFilter} que descarta con unas pocas lecturas de bits
+ *       los tokens no revocados (el caso habitual), y</li>
+ *   <li>un mapa exacto <code>jti → exp</code> que solo se consulta cuando el
+ *       filtro responde "quizá".</li>
+ * </ul>
+ * Las revocaciones de otros nodos se incorporan con una lectura
+ * incremental periódica (<code>security.jwt.revocation.sync-interval</code>).
+ * Las entradas se retiran al llegar a la <code>exp</code> del token y el
+ * filtro se reconstruye en cada purga, ya que no admite borrados.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+@Component
+public class TokenRevocationStore {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationStore.class);
+
+    /**
+     * Margen al leer revocaciones de otros nodos, para tolerar desfases de reloj
+     * y transacciones confirmadas tarde.
+     */
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    private final RevokedTokenRepository repository;
+
+    private final long expectedRevocations;
+
+    private final double falsePositiveRate;
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter filter;
+
+    private volatile Instant lastSync = Instant.EPOCH;
+
+    /**
+     * Crea el almacén.
+     *
+     * @param repository          repositorio de revocaciones.
+     * @param expectedRevocations número de revocaciones vigentes esperado, para dimensionar el filtro.
+     * @param falsePositiveRate   tasa de falsos positivos del filtro.
+     * @param registry            registro de métricas.
+     */
+    public TokenRevocationStore(RevokedTokenRepository repository,
+            @Value("${security.jwt.revocation.expected-revocations:100000}") long expectedRevocations,
+            @Value("${security.jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+            MeterRegistry registry) {
+        this.repository = repository;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedRevocations, falsePositiveRate);
+        Gauge.builder("security.jwt.revocation.size", revoked, Map::size).register(registry);
+    }
+
+    /**
+     * Carga las revocaciones vigentes al arrancar.
+     */
+    @PostConstruct
+    void load() {
+        sync();
+    }
+
+    /**
+     * Indica si un token está revocado.
+     *
+     * @param jti identificador del token; los tokens sin <code>jti</code> no pueden revocarse.
+     * @return {@code true} si el token está revocado y aún no ha expirado.
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null || !filter.mightContain(jti)) {
+            return false;
+        }
+        Long expiresAt = revoked.get(jti);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    /**
+     * Revoca un token hasta su expiración.
+     *
+     * @param jti       identificador del token.
+     * @param expiresAt instante <code>exp</code> del token en ms.
+     */
+    @Transactional
+    public void revoke(String jti, long expiresAt) {
+        if (expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        repository.save(new RevokedToken(jti, Instant.ofEpochMilli(expiresAt), Instant.now()));
+        remember(jti, expiresAt);
+    }
+
+    /**
+     * Incorpora las revocaciones registradas por cualquier nodo desde la
+     * última sincronización.
+     */
+    @Scheduled(fixedDelayString = "${security.jwt.revocation.sync-interval:PT5S}",
+            initialDelayString = "${security.jwt.revocation.sync-interval:PT5S}")
+    public void sync() {
+        Instant now = Instant.now();
+        try {
+            Iterable<RevokedToken> news = Instant.EPOCH.equals(lastSync)
+                ? repository.findByExpiresAtAfter(now)
+                : repository.findByRevokedAtAfter(lastSync.minus(SYNC_OVERLAP));
+            news.forEach(token -> remember(token.getJti(), token.getExpiresAt().toEpochMilli()));
+            lastSync = now;
+        } catch (RuntimeException e) {
+            log.error("No se pudieron sincronizar los tokens revocados", e);
+        }
+    }
+
+    /**
+     * Retira las revocaciones expiradas de memoria y de la base de datos y
+     * reconstruye el filtro de Bloom con las vigentes.
+     */
+    @Scheduled(fixedDelayString = "${security.jwt.revocation.purge-interval:PT10M}",
+            initialDelayString = "${security.jwt.revocation.purge-interval:PT10M}")
+    @Transactional
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedRevocations, revoked.size()), falsePositiveRate);
+        revoked.keySet().forEach(rebuilt::add);
+        filter = rebuilt;
+        // Las revocaciones añadidas durante la reconstrucción se reinsertan en el filtro nuevo
+        revoked.keySet().forEach(rebuilt::add);
+
+        repository.deleteExpired(Instant.ofEpochMilli(now));
+    }
+
+    private void remember(String jti, long expiresAt) {
+        revoked.put(jti, expiresAt);
+        filter.add(jti);
+    }
+}
@@ -0,0 +1,52 @@
+package com.german.apirest.springboot.app.springbootcrud.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * {@link DaoAuthenticationProvider} cuya recodificación de hashes obsoletos
+ * es de mejor esfuerzo.
+ * <p>
+ * La recodificación se hace después de verificar la contraseña, con el
+ * mismo {@link PasswordHashingExecutor} acotado. Si el pool la rechaza por
+ * saturación, el login no debe fallar con un 503: se completa sin
+ * recodificar y el hash obsoleto se vuelve a intentar en el siguiente
+ * login correcto.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+public class UpgradeTolerantAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(UpgradeTolerantAuthenticationProvider.class);
+
+    /**
+     * Crea el proveedor.
+     *
+     * @param passwordEncoder encoder que verifica y recodifica las contraseñas.
+     */
+    public UpgradeTolerantAuthenticationProvider(PasswordEncoder passwordEncoder) {
+        super(passwordEncoder);
+    }
+
+    @Override
+    protected Authentication createSuccessAuthentication(Object principal, Authentication authentication,
+            UserDetails user) {
+        try {
+            return super.createSuccessAuthentication(principal, authentication, user);
+        } catch (PasswordHashingRejectedException e) {
+            log.debug("Recodificación del hash de {} pospuesta: {}", user.getUsername(), e.getMessage());
+            // Lo mismo que hace la clase base una vez recodificado, con el usuario sin cambios
+            UsernamePasswordAuthenticationToken result = UsernamePasswordAuthenticationToken.authenticated(
+                principal, authentication.getCredentials(), user.getAuthorities());
+            result.setDetails(authentication.getDetails());
+            return result;
+        }
+    }
+}
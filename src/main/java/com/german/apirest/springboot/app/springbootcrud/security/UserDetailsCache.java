@@ -0,0 +1,143 @@
+package com.german.apirest.springboot.app.springbootcrud.security;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.german.apirest.springboot.app.springbootcrud.cache.BoundedExpiringCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Caché acotada y con TTL de los {@link UserDetails} usados en el login.
+ * <p>
+ * Guarda instantáneas inmutables (usuario, hash, habilitado y autoridades)
+ * y en cada acierto construye un {@link UserDetails} nuevo, ya que Spring
+ * Security borra las credenciales del objeto devuelto tras autenticar.
+ * Las escrituras sobre usuarios deben invalidar la entrada con
+ * {@link #evict(String)}; en despliegues con varios nodos el TTL acota el
+ * tiempo que otro nodo puede servir una instantánea anterior; además, una
+ * instantánea cuya versión de tokens ya no es la actual según el
+ * {@link TokenEpochRegistry} (usuario deshabilitado o con roles cambiados
+ * en cualquier nodo) se descarta en la consulta.
+ * </p>
+ * <p>
+ * Publica las métricas <code>security.user.cache.*</code> (aciertos,
+ * fallos, expulsiones, tamaño y tasa de aciertos).
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+@Component
+public class UserDetailsCache {
+
+    /**
+     * Instantánea inmutable de un usuario.
+     */
+    private record Snapshot(long id, int tokenVersion, String username, String password, boolean enabled,
+            List<GrantedAuthority> authorities) {
+    }
+
+    private final BoundedExpiringCache<String, Snapshot> cache;
+
+    private final long ttlMillis;
+
+    private final TokenEpochRegistry tokenEpochs;
+
+    /**
+     * Crea la caché.
+     *
+     * @param maxEntries número máximo de usuarios en caché.
+     * @param ttl         tiempo de vida de cada entrada.
+     * @param tokenEpochs épocas de tokens, para descartar instantáneas obsoletas.
+     * @param registry    registro de métricas.
+     */
+    public UserDetailsCache(@Value("${security.user-cache.max-entries:10000}") int maxEntries,
+            @Value("${security.user-cache.ttl:PT5M}") Duration ttl,
+            TokenEpochRegistry tokenEpochs, MeterRegistry registry) {
+        this.cache = new BoundedExpiringCache<>(maxEntries);
+        this.ttlMillis = ttl.toMillis();
+        this.tokenEpochs = tokenEpochs;
+        this.cache.bindTo(registry, "security.user.cache");
+    }
+
+    /**
+     * Devuelve una copia nueva de los detalles del usuario si está en caché.
+     *
+     * @param username nombre de usuario.
+     * @return {@link UserDetails} nuevo, o {@code null} si no está en caché.
+     */
+    public UserDetails get(String username) {
+        Snapshot snapshot = cache.get(username, System.currentTimeMillis());
+        if (snapshot == null) {
+            return null;
+        }
+        if (!tokenEpochs.isUpToDate(snapshot.id(), snapshot.tokenVersion(), snapshot.enabled())) {
+            cache.invalidate(username);
+            return null;
+        }
+        return new AuthenticatedUser(snapshot.id(), snapshot.tokenVersion(), snapshot.username(),
+            snapshot.password(), snapshot.enabled(), snapshot.authorities());
+    }
+
+    /**
+     * Guarda una instantánea de los detalles del usuario.
+     *
+     * @param user detalles recién cargados de la base de datos.
+     */
+    public void put(AuthenticatedUser user) {
+        long now = System.currentTimeMillis();
+        Snapshot snapshot = new Snapshot(user.getId(), user.getTokenVersion(), user.getUsername(),
+            user.getPassword(), user.isEnabled(), List.copyOf(user.getAuthorities()));
+        cache.put(user.getUsername(), snapshot, now + ttlMillis, now);
+    }
+
+    /**
+     * Invalida la entrada de un usuario.
+     *
+     * @param username nombre de usuario.
+     */
+    public void evict(String username) {
+        cache.invalidate(username);
+    }
+
+    /**
+     * Invalida la entrada de un usuario ahora y, si hay una transacción
+     * activa, de nuevo tras su commit, para que una lectura concurrente no
+     * deje en caché los datos anteriores al cambio.
+     *
+     * @param username nombre de usuario.
+     */
+    public void evictAfterCommit(String username) {
+        evict(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(username);
+                }
+            });
+        }
+    }
+
+    /**
+     * @return capacidad máxima de la caché.
+     */
+    public int getMaxEntries() {
+        return cache.getMaxEntries();
+    }
+
+    /**
+     * @return tasa de aciertos acumulada.
+     */
+    public double getHitRatio() {
+        return cache.getHitRatio();
+    }
+}
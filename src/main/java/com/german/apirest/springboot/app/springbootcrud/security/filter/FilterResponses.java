@@ -0,0 +1,120 @@
+package com.german.apirest.springboot.app.springbootcrud.security.filter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.http.HttpHeaders;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import static com.german.apirest.springboot.app.springbootcrud.security.TokenJwtConfig.CONTENT_TYPE;
+
+/**
+ * Escritura de respuestas JSON desde los filtros de seguridad.
+ * <p>
+ * Los cuerpos de error son fijos: se serializan una sola vez a
+ * <code>byte[]</code> con {@link #body(String...)} y después solo se
+ * copian a la respuesta, de modo que un rechazo no reserva mapas ni
+ * invoca a Jackson. La respuesta variable del login se escribe en
+ * streaming con un {@link JsonGenerator} de la factoría compartida.
+ * El estado, el tipo de contenido y la longitud se fijan siempre antes
+ * de escribir el cuerpo.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+final class FilterResponses {
+
+    /**
+     * Factoría JSON compartida (segura para uso concurrente).
+     */
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private FilterResponses() {
+    }
+
+    /**
+     * Serializa un objeto JSON fijo.
+     *
+     * @param fields pares nombre, valor.
+     * @return el JSON en UTF-8.
+     */
+    static byte[] body(String... fields) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = JSON.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            for (int i = 0; i < fields.length; i += 2) {
+                generator.writeStringField(fields[i], fields[i + 1]);
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Escribe un cuerpo precalculado con el estado indicado.
+     *
+     * @param response respuesta HTTP.
+     * @param status   código de estado.
+     * @param body     cuerpo JSON precalculado.
+     */
+    static void write(HttpServletResponse response, int status, byte[] body) {
+        response.setStatus(status);
+        response.setContentType(CONTENT_TYPE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentLength(body.length);
+        try {
+            response.getOutputStream().write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Escribe un cuerpo precalculado con la cabecera <code>Retry-After</code>.
+     *
+     * @param response          respuesta HTTP.
+     * @param status            código de estado.
+     * @param body              cuerpo JSON precalculado.
+     * @param retryAfterSeconds segundos a esperar antes de reintentar.
+     */
+    static void write(HttpServletResponse response, int status, byte[] body, long retryAfterSeconds) {
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        write(response, status, body);
+    }
+
+    /**
+     * Escribe en streaming la respuesta <strong>200 OK</strong> de un login correcto.
+     *
+     * @param response     respuesta HTTP.
+     * @param token        token JWT de acceso.
+     * @param refreshToken token de refresco.
+     * @param username     nombre de usuario.
+     * @throws IOException si falla la escritura.
+     */
+    static void writeLogin(HttpServletResponse response, String token, String refreshToken, String username)
+            throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(CONTENT_TYPE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        OutputStream out = response.getOutputStream();
+        try (JsonGenerator generator = JSON.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeStringField("token", token);
+            generator.writeStringField("refreshToken", refreshToken);
+            generator.writeStringField("username", username);
+            generator.writeStringField("message", String.format("Hola %s has iniciado sesión con éxito", username));
+            generator.writeEndObject();
+        }
+    }
+}
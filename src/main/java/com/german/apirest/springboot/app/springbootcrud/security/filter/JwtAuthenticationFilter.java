@@ -1,12 +1,12 @@
 package com.german.apirest.springboot.app.springbootcrud.security.filter;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collection;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
@@ -14,19 +14,19 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 
-import com.fasterxml.jackson.core.exc.StreamReadException;
-import com.fasterxml.jackson.databind.DatabindException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.german.apirest.springboot.app.springbootcrud.entities.User;
+import com.german.apirest.springboot.app.springbootcrud.security.AuthenticatedUser;
+import com.german.apirest.springboot.app.springbootcrud.security.JwtTokenCodec;
+import com.german.apirest.springboot.app.springbootcrud.security.LoginRateLimiter;
+import com.german.apirest.springboot.app.springbootcrud.security.PasswordHashingRejectedException;
+import com.german.apirest.springboot.app.springbootcrud.services.RefreshTokenService;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
-import static com.german.apirest.springboot.app.springbootcrud.security.TokenJwtConfig.*;
+import static com.german.apirest.springboot.app.springbootcrud.security.TokenJwtConfig.HEADER_AUTHORIZATION;
+import static com.german.apirest.springboot.app.springbootcrud.security.TokenJwtConfig.PREFIX_TOKEN;
 
 /**
  * Filtro de autenticación JWT que extiende de
@@ -35,22 +35,95 @@ import static com.german.apirest.springboot.app.springbootcrud.security.TokenJwt
  * Lee credenciales en formato JSON, delega la autenticación al
  * {@link AuthenticationManager} y genera un token JWT en caso de éxito.
  * </p>
+ * <p>
+ * El cuerpo se lee como {@link LoginRequest} con un parser de streaming y
+ * un tamaño máximo; los cuerpos malformados, incompletos o demasiado
+ * grandes se rechazan con un <strong>400 Bad Request</strong> fijo antes de
+ * cualquier trabajo de autenticación.
+ * </p>
+ * <p>
+ * Antes de autenticar consulta el {@link LoginRateLimiter} por IP y por
+ * usuario; los intentos que superan el límite se rechazan con
+ * <strong>429 Too Many Requests</strong> sin acceder a la base de datos
+ * ni al encoder de contraseñas.
+ * </p>
  */
 public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilter {
 
+    /**
+     * Cuerpo fijo de la respuesta 400 para credenciales malformadas.
+     */
+    private static final byte[] BAD_REQUEST_BODY = FilterResponses.body(
+        "message", "El cuerpo del login debe ser un JSON con username y password");
+
+    /**
+     * Cuerpo fijo de la respuesta 401 por credenciales incorrectas.
+     */
+    private static final byte[] BAD_CREDENTIALS_BODY = FilterResponses.body(
+        "message", "Error en la autenticación, username o password incorrectos",
+        "error", "Bad credentials");
+
+    /**
+     * Cuerpo fijo de la respuesta 401 para usuarios deshabilitados.
+     */
+    private static final byte[] DISABLED_BODY = FilterResponses.body(
+        "message", "Error en la autenticación, username o password incorrectos",
+        "error", "User is disabled");
+
+    /**
+     * Cuerpo fijo de la respuesta 429.
+     */
+    private static final byte[] TOO_MANY_REQUESTS_BODY = FilterResponses.body(
+        "message", "Demasiados intentos de login, inténtelo de nuevo más tarde");
+
+    /**
+     * Cuerpo fijo de la respuesta 503.
+     */
+    private static final byte[] SERVICE_UNAVAILABLE_BODY = FilterResponses.body(
+        "message", "Servicio saturado, inténtelo de nuevo más tarde");
+
     /**
      * Manager que procesa la autenticación de usuario.
      */
     private AuthenticationManager authenticationManager;
 
+    /**
+     * Codec compartido que genera los tokens y serializa los cuerpos JSON.
+     */
+    private final JwtTokenCodec tokenCodec;
+
+    /**
+     * Servicio que emite el token de refresco asociado al login.
+     */
+    private final RefreshTokenService refreshTokenService;
+
+    /**
+     * Limitador de intentos de login por IP y por usuario.
+     */
+    private final LoginRateLimiter loginRateLimiter;
+
+    /**
+     * Tamaño máximo en bytes del cuerpo de login.
+     */
+    private final int maxBodyBytes;
+
      /**
      * Constructor que recibe el {@code AuthenticationManager} para delegar
      * la autenticación de credenciales.
      *
      * @param authenticationManager instancia que valida las credenciales.
+     * @param tokenCodec            codec compartido de tokens JWT.
+     * @param refreshTokenService   servicio de tokens de refresco.
+     * @param loginRateLimiter      limitador de intentos de login.
+     * @param maxBodyBytes          tamaño máximo en bytes del cuerpo de login.
      */
-    public JwtAuthenticationFilter(AuthenticationManager authenticationManager) {
+    public JwtAuthenticationFilter(AuthenticationManager authenticationManager, JwtTokenCodec tokenCodec,
+            RefreshTokenService refreshTokenService, LoginRateLimiter loginRateLimiter, int maxBodyBytes) {
         this.authenticationManager = authenticationManager;
+        this.tokenCodec = tokenCodec;
+        this.refreshTokenService = refreshTokenService;
+        this.loginRateLimiter = loginRateLimiter;
+        this.maxBodyBytes = maxBodyBytes;
     }
 
      /**
@@ -65,32 +138,66 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
     public Authentication attemptAuthentication(HttpServletRequest request, HttpServletResponse response)
             throws AuthenticationException {
 
-        User user = null;
-        String username = null;
-        String password = null;
+        // Límite por IP antes incluso de leer el cuerpo
+        long retryAfter = loginRateLimiter.tryAcquireIp(request.getRemoteAddr());
+        if (retryAfter > 0) {
+            FilterResponses.write(response, HttpStatus.TOO_MANY_REQUESTS.value(), TOO_MANY_REQUESTS_BODY, retryAfter);
+            return null;
+        }
 
-        try {
-            // Deserializa el JSON de login en la entidad User
-            user = new ObjectMapper().readValue(request.getInputStream(), User.class);
-            username = user.getUsername();
-            password = user.getPassword();
-        } catch (StreamReadException e) {
-            e.printStackTrace();
-        } catch (DatabindException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
+        LoginRequest login = readLoginRequest(request);
+        if (login == null) {
+            FilterResponses.write(response, HttpStatus.BAD_REQUEST.value(), BAD_REQUEST_BODY);
+            return null;
+        }
+        String username = login.username();
+
+        retryAfter = loginRateLimiter.tryAcquireUsername(username);
+        if (retryAfter > 0) {
+            FilterResponses.write(response, HttpStatus.TOO_MANY_REQUESTS.value(), TOO_MANY_REQUESTS_BODY, retryAfter);
+            return null;
         }
 
         // Crea el token de autenticación con las credenciales proporcionadas
         UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(username,
-                password);
+                login.password());
         // Delegar la autenticación al AuthenticationManager
-        return authenticationManager.authenticate(authenticationToken);
+        try {
+            return authenticationManager.authenticate(authenticationToken);
+        } catch (PasswordHashingRejectedException e) {
+            // Pool de hashing saturado: se rechaza sin esperar
+            FilterResponses.write(response, HttpStatus.SERVICE_UNAVAILABLE.value(), SERVICE_UNAVAILABLE_BODY,
+                e.getRetryAfterSeconds());
+            // null indica que la respuesta ya se ha completado
+            return null;
+        }
+    }
+
+    /**
+     * Lee y decodifica el cuerpo de login, sin superar el tamaño máximo.
+     *
+     * @param request petición HTTP.
+     * @return las credenciales, o {@code null} si el cuerpo no es válido o es demasiado grande.
+     */
+    private LoginRequest readLoginRequest(HttpServletRequest request) {
+        if (request.getContentLengthLong() > maxBodyBytes) {
+            return null;
+        }
+        try (InputStream in = request.getInputStream()) {
+            byte[] body = in.readNBytes(maxBodyBytes + 1);
+            if (body.length > maxBodyBytes) {
+                return null;
+            }
+            return LoginRequest.parse(tokenCodec.getJsonMapper().getFactory(), body);
+        } catch (IOException e) {
+            logger.debug("Cuerpo de login no válido", e);
+            return null;
+        }
     }
 
      /**
-     * Maneja la autenticación exitosa generando un JWT y escribiéndolo en la respuesta.
+     * Maneja la autenticación exitosa generando un JWT de acceso y un token
+     * de refresco, y escribiéndolos en la respuesta.
      *
      * @param request    petición HTTP original.
      * @param response   respuesta HTTP donde se incluirá el token.
@@ -107,44 +214,26 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
             throws IOException, ServletException {
 
         // Obtiene el UserDetails autenticado y extrae el username
-        org.springframework.security.core.userdetails.User user = (org.springframework.security.core.userdetails.User) authResult.getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) authResult.getPrincipal();
         String username = user.getUsername();
         Collection<? extends GrantedAuthority> roles = authResult.getAuthorities();
-        Claims claims = Jwts.claims()
-        .add("authorities", new ObjectMapper().writeValueAsString(roles))
-        .add("username", username)
-        .build();
-        
+        loginRateLimiter.onSuccess(username);
 
         // Genera el token JWT firmado
-        String token = Jwts.builder()
-                .subject(username)
-                .claims(claims)
-                .expiration(new Date(System.currentTimeMillis() + 3600000))
-                .issuedAt(new Date())
-                .signWith(SECRET_KEY)
-                .compact();
+        String token = tokenCodec.createToken(user.getId(), user.getTokenVersion(), username, roles);
 
         // Añade el token en la cabecera Authorization
         response.addHeader(HEADER_AUTHORIZATION, PREFIX_TOKEN + token);
 
-        // Construye el cuerpo de la respuesta en JSON
-        Map<String, String> body = new HashMap<>();
-        body.put("token", token);
-        body.put("username", username);
-        body.put("message", String.format("Hola %s has iniciado sesión con éxito", username));
-
-        // Escribe el JSON en la respuesta
-        response.getWriter().write(new ObjectMapper().writeValueAsString(body));
-        response.setContentType(CONTENT_TYPE);
-        response.setStatus(200);
+        // Escribe el JSON de respuesta en streaming
+        FilterResponses.writeLogin(response, token, refreshTokenService.issue(username), username);
     }
 
     /**
      * Invocado cuando la autenticación falla.
      * <p>
-     * Devuelve un JSON con mensaje y detalle de la excepción,
-     * estableciendo estado <strong>401 Unauthorized</strong>.
+     * Devuelve un JSON fijo con mensaje y motivo (credenciales incorrectas
+     * o usuario deshabilitado), con estado <strong>401 Unauthorized</strong>.
      * </p>
      *
      * @param request  petición HTTP que desencadenó el fallo.
@@ -159,13 +248,8 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
             AuthenticationException failed)
             throws IOException, ServletException {
 
-        Map<String, String> body = new HashMap<>();
-        body.put("message:", " Error en la autenticación, username o password incorrectos");
-        body.put("error", failed.getMessage());
-
-        response.getWriter().write(new ObjectMapper().writeValueAsString(body));
-        response.setStatus(401);
-        response.setContentType(CONTENT_TYPE);
+        byte[] body = failed instanceof DisabledException ? DISABLED_BODY : BAD_CREDENTIALS_BODY;
+        FilterResponses.write(response, HttpStatus.UNAUTHORIZED.value(), body);
     }
 
 }
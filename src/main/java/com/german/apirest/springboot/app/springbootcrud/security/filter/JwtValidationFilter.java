@@ -1,30 +1,24 @@
 package com.german.apirest.springboot.app.springbootcrud.security.filter;
 
-import static com.german.apirest.springboot.app.springbootcrud.security.TokenJwtConfig.CONTENT_TYPE;
 import static com.german.apirest.springboot.app.springbootcrud.security.TokenJwtConfig.HEADER_AUTHORIZATION;
 import static com.german.apirest.springboot.app.springbootcrud.security.TokenJwtConfig.PREFIX_TOKEN;
-import static com.german.apirest.springboot.app.springbootcrud.security.TokenJwtConfig.SECRET_KEY;
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.german.apirest.springboot.app.springbootcrud.security.SimpleGrantedAuthorityJsonCreator;
+import com.german.apirest.springboot.app.springbootcrud.security.JwtTokenCodec;
+import com.german.apirest.springboot.app.springbootcrud.security.JwtTokenCodec.VerifiedToken;
+import com.german.apirest.springboot.app.springbootcrud.security.TokenAuthenticationCache;
+import com.german.apirest.springboot.app.springbootcrud.security.TokenEpochRegistry;
+import com.german.apirest.springboot.app.springbootcrud.security.TokenRevocationStore;
 
-import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
-import io.jsonwebtoken.Jwts;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -38,20 +32,84 @@ import jakarta.servlet.http.HttpServletResponse;
  * establece la autenticación en el contexto si es válido
  * o devuelve 401 en caso contrario.
  * </p>
+ * <p>
+ * La revocación y la época del usuario se comprueban en cada petición,
+ * también cuando el token sale de la caché, contra el
+ * {@link TokenRevocationStore} y el {@link TokenEpochRegistry} en memoria.
+ * La autenticación lleva el {@link VerifiedToken} como <em>details</em>.
+ * </p>
  */
 public class JwtValidationFilter extends BasicAuthenticationFilter{
 
-/**
+    /**
+     * Cuerpo fijo de la respuesta 401 para tokens no válidos.
+     */
+    private static final byte[] INVALID_TOKEN_BODY = FilterResponses.body(
+        "message", "El token JWT no es válido");
+
+    /**
+     * Cuerpo fijo de la respuesta 401 para tokens expirados.
+     */
+    private static final byte[] EXPIRED_TOKEN_BODY = FilterResponses.body(
+        "message", "El token JWT no es válido",
+        "error", "El token ha expirado");
+
+    /**
+     * Cuerpo fijo de la respuesta 401 para tokens revocados.
+     */
+    private static final byte[] REVOKED_TOKEN_BODY = FilterResponses.body(
+        "message", "El token JWT no es válido",
+        "error", "El token ha sido revocado");
+
+    /**
+     * Cuerpo fijo de la respuesta 401 para tokens de una época anterior.
+     */
+    private static final byte[] INVALIDATED_TOKEN_BODY = FilterResponses.body(
+        "message", "El token JWT no es válido",
+        "error", "El usuario está deshabilitado o sus tokens han sido invalidados");
+
+    /**
+     * Codec compartido que verifica y decodifica los tokens.
+     */
+    private final JwtTokenCodec tokenCodec;
+
+    /**
+     * Caché de tokens ya verificados, para evitar repetir la
+     * verificación de firma y la lectura de autoridades.
+     */
+    private final TokenAuthenticationCache tokenCache;
+
+    /**
+     * Lista en memoria de tokens revocados.
+     */
+    private final TokenRevocationStore revocationStore;
+
+    /**
+     * Épocas de tokens por usuario, en memoria.
+     */
+    private final TokenEpochRegistry tokenEpochs;
+
+    /**
      * Constructor que recibe el {@code AuthenticationManager} para validar el token.
      *
      * @param authenticationManager gestor de autenticación de Spring.
+     * @param tokenCodec            codec compartido de tokens JWT.
+     * @param tokenCache            caché de tokens verificados.
+     * @param revocationStore       lista de tokens revocados.
+     * @param tokenEpochs           épocas de tokens por usuario.
      */
-    public JwtValidationFilter(AuthenticationManager authenticationManager) {
+    public JwtValidationFilter(AuthenticationManager authenticationManager, JwtTokenCodec tokenCodec,
+            TokenAuthenticationCache tokenCache, TokenRevocationStore revocationStore,
+            TokenEpochRegistry tokenEpochs) {
         super(authenticationManager);
+        this.tokenCodec = tokenCodec;
+        this.tokenCache = tokenCache;
+        this.revocationStore = revocationStore;
+        this.tokenEpochs = tokenEpochs;
     }
 
 
-/**
+    /**
      * Filtra cada petición HTTP verificando el JWT.
      *
      * @param request  petición entrante.
@@ -64,38 +122,44 @@ public class JwtValidationFilter extends BasicAuthenticationFilter{
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws IOException, ServletException {
 
-                String header = request.getHeader(HEADER_AUTHORIZATION);
-
-                if(header== null ||!header.startsWith(PREFIX_TOKEN)) {
-                    chain.doFilter(request, response);
-                    return;
-                }
-                String token = header.replace(PREFIX_TOKEN, "");
-
-                try {
-                    Claims claims = Jwts.parser().verifyWith(SECRET_KEY).build().parseSignedClaims(token).getPayload();
-                    String username = claims.getSubject();
-                    Object authoritiesClaims = claims.get("authorities");
-
-                    Collection<? extends GrantedAuthority> authorities = Arrays.asList(
-                        new ObjectMapper()
-                        .addMixIn(SimpleGrantedAuthority.class, SimpleGrantedAuthorityJsonCreator.class)
-                        .readValue(authoritiesClaims.toString().getBytes(),SimpleGrantedAuthority[].class));
-
-                    UsernamePasswordAuthenticationToken authenticationToken= new UsernamePasswordAuthenticationToken(username, null,  authorities);
-                    SecurityContextHolder.getContext().setAuthentication(authenticationToken);
-                    chain.doFilter(request, response);
-                } catch (JwtException e) {
-                    Map<String, String> body = new HashMap<>();
-                    body.put("error", e.getMessage());
-                    body.put("message", "El token JWT no es válido");
-
-                    response.getWriter().write(new ObjectMapper().writeValueAsString(body));
-                    response.setStatus(HttpStatus.UNAUTHORIZED.value());
-                    response.setContentType(CONTENT_TYPE);
-                }
-
+        String header = request.getHeader(HEADER_AUTHORIZATION);
+
+        if (header == null || !header.startsWith(PREFIX_TOKEN)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        String token = header.substring(PREFIX_TOKEN.length());
+
+        byte[] rejection = null;
+        try {
+            // Token ya verificado: se reutiliza la autenticación construida
+            UsernamePasswordAuthenticationToken authenticationToken = tokenCache.get(token);
+            if (authenticationToken == null) {
+                VerifiedToken verified = tokenCodec.verify(token);
+                authenticationToken =
+                    new UsernamePasswordAuthenticationToken(verified.username(), null, verified.authorities());
+                authenticationToken.setDetails(verified);
+                tokenCache.put(token, authenticationToken, verified.expiresAt());
+            }
+
+            VerifiedToken verified = (VerifiedToken) authenticationToken.getDetails();
+            if (revocationStore.isRevoked(verified.jti())) {
+                rejection = REVOKED_TOKEN_BODY;
+            } else if (!tokenEpochs.isCurrent(verified.userId(), verified.tokenVersion())) {
+                rejection = INVALIDATED_TOKEN_BODY;
+            } else {
+                SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+            }
+        } catch (ExpiredJwtException e) {
+            rejection = EXPIRED_TOKEN_BODY;
+        } catch (JwtException e) {
+            logger.debug("Token JWT no válido", e);
+            rejection = INVALID_TOKEN_BODY;
+        }
+        if (rejection != null) {
+            FilterResponses.write(response, HttpStatus.UNAUTHORIZED.value(), rejection);
+            return;
+        }
+        chain.doFilter(request, response);
     }
-    
-    
 }
@@ -0,0 +1,67 @@
+package com.german.apirest.springboot.app.springbootcrud.security.filter;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Credenciales del cuerpo JSON de login.
+ * <p>
+ * Se decodifican con un {@link JsonParser} de streaming en lugar de
+ * enlazar la entidad JPA completa: solo se leen <code>username</code> y
+ * <code>password</code> y se ignora cualquier otro campo.
+ * </p>
+ *
+ * @param username nombre de usuario.
+ * @param password contraseña en claro.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+record LoginRequest(String username, String password) {
+
+    /**
+     * Decodifica el cuerpo de la petición.
+     *
+     * @param factory factoría compartida de parsers JSON.
+     * @param body    cuerpo completo de la petición.
+     * @return las credenciales.
+     * @throws IOException si el JSON no es válido, no es un objeto, tiene
+     *                     contenido tras el objeto o le falta algún campo.
+     */
+    static LoginRequest parse(JsonFactory factory, byte[] body) throws IOException {
+        String username = null;
+        String password = null;
+        try (JsonParser parser = factory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Se esperaba un objeto JSON");
+            }
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                JsonToken value = parser.nextToken();
+                if ("username".equals(field) || "password".equals(field)) {
+                    if (value != JsonToken.VALUE_STRING) {
+                        throw new JsonParseException(parser, "El campo " + field + " debe ser texto");
+                    }
+                    if ("username".equals(field)) {
+                        username = parser.getText();
+                    } else {
+                        password = parser.getText();
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (parser.currentToken() != JsonToken.END_OBJECT || parser.nextToken() != null) {
+                throw new JsonParseException(parser, "Contenido inesperado tras el objeto JSON");
+            }
+            if (username == null || username.isBlank() || password == null || password.isEmpty()) {
+                throw new JsonParseException(parser, "Faltan username o password");
+            }
+        }
+        return new LoginRequest(username, password);
+    }
+}
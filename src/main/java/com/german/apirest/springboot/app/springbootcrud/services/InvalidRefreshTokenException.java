@@ -0,0 +1,19 @@
+package com.german.apirest.springboot.app.springbootcrud.services;
+
+/**
+ * Excepción lanzada cuando un token de refresco no puede canjearse.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+public class InvalidRefreshTokenException extends RuntimeException {
+
+    /**
+     * Crea la excepción con el motivo indicado.
+     *
+     * @param message motivo del rechazo.
+     */
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+}
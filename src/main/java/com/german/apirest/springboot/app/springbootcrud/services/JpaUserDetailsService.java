@@ -3,16 +3,25 @@ package com.german.apirest.springboot.app.springbootcrud.services;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.german.apirest.springboot.app.springbootcrud.entities.User;
 import com.german.apirest.springboot.app.springbootcrud.repositories.UserRepository;
+import com.german.apirest.springboot.app.springbootcrud.security.AuthenticatedUser;
+import com.german.apirest.springboot.app.springbootcrud.security.UserDetailsCache;
 
 /**
  * Servicio que implementa {@link UserDetailsService} para cargar
@@ -21,12 +30,26 @@ import com.german.apirest.springboot.app.springbootcrud.repositories.UserReposit
  * Utilizado por Spring Security durante la autenticación para obtener
  * el nombre de usuario, la contraseña y las autoridades de un usuario.
  * </p>
+ * <p>
+ * Implementa también {@link UserDetailsPasswordService}, de modo que tras
+ * un login correcto los hashes con algoritmo o coste obsoletos se
+ * recodifican y se guardan sin forzar un cambio de contraseña. La
+ * recodificación es de mejor esfuerzo: si el pool de hashing está saturado
+ * se omite y se reintenta en el siguiente login.
+ * </p>
+ * <p>
+ * Los detalles cargados se guardan en {@link UserDetailsCache}, de modo
+ * que los logins repetidos no consultan la base de datos mientras la
+ * entrada no expire o se invalide por un cambio en el usuario.
+ * </p>
  *
  * @version 1.0
  * @since   1.0
  */
 @Service
-public class JpaUserDetailsService implements UserDetailsService {
+public class JpaUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
+
+    private static final Logger log = LoggerFactory.getLogger(JpaUserDetailsService.class);
 
     /**
      * Repositorio JPA para acceder a los datos de {@link User}.
@@ -35,7 +58,19 @@ public class JpaUserDetailsService implements UserDetailsService {
     private UserRepository repository;
 
     /**
-     * Busca un usuario por nombre de usuario, lanza
+     * Caché de detalles de usuario para el login.
+     */
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    /**
+     * Si es {@code true}, la caché se precarga al arrancar la aplicación.
+     */
+    @Value("${security.user-cache.warm-up:false}")
+    private boolean warmUp;
+
+    /**
+     * Busca un usuario por nombre de usuario (primero en la caché), lanza
      * {@link UsernameNotFoundException} si no existe, y convierte sus
      * roles en {@link GrantedAuthority} para el contexto de seguridad.
      *
@@ -46,26 +81,73 @@ public class JpaUserDetailsService implements UserDetailsService {
     @Transactional(readOnly = true)
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        UserDetails cached = userDetailsCache.get(username);
+        if (cached != null) {
+            return cached;
+        }
         Optional<User> userOptional = repository.findByUsername(username);
         if (userOptional.isEmpty()) {
             throw new UsernameNotFoundException(
                 String.format("Username %s no existe en el sistema!", username)
             );
         }
-        User user = userOptional.orElseThrow();
+        AuthenticatedUser details = toUserDetails(userOptional.orElseThrow());
+        userDetailsCache.put(details);
+        return details;
+    }
+
+    /**
+     * Precarga la caché con los usuarios existentes, hasta su capacidad,
+     * si <code>security.user-cache.warm-up=true</code>.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUpCache() {
+        if (!warmUp) {
+            return;
+        }
+        List<User> users = repository.findAllBy(Limit.of(userDetailsCache.getMaxEntries()));
+        users.forEach(user -> userDetailsCache.put(toUserDetails(user)));
+        log.info("Caché de usuarios precargada con {} entradas", users.size());
+    }
+
+    /**
+     * Convierte la entidad {@link User} en un {@link AuthenticatedUser} de Spring Security.
+     */
+    private AuthenticatedUser toUserDetails(User user) {
         List<GrantedAuthority> authorities = user.getRoles()
             .stream()
             .map(role -> new SimpleGrantedAuthority(role.getName()))
             .collect(Collectors.toList());
 
-        return new org.springframework.security.core.userdetails.User(
+        return new AuthenticatedUser(
+            user.getId(),
+            user.getTokenVersion(),
             user.getUsername(),
             user.getPassword(),
             user.isEnabled(),    // cuenta habilitada
-            true,                // cuenta no expirada
-            true,                // credenciales no expiradas
-            true,                // cuenta no bloqueada
             authorities          // autoridades (roles)
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * Guarda el nuevo hash de la contraseña de un usuario tras un login
+     * correcto con un hash obsoleto.
+     *
+     * @param user        usuario autenticado.
+     * @param newPassword contraseña recodificada con el encoder actual.
+     * @return {@link AuthenticatedUser} con el nuevo hash.
+     */
+    @Transactional
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userDetailsCache.evictAfterCommit(user.getUsername());
+        repository.findByUsername(user.getUsername()).ifPresent(entity -> {
+            entity.setPassword(newPassword);
+            repository.save(entity);
+        });
+        AuthenticatedUser authenticated = (AuthenticatedUser) user;
+        return new AuthenticatedUser(authenticated.getId(), authenticated.getTokenVersion(),
+            user.getUsername(), newPassword, user.isEnabled(), user.getAuthorities());
+    }
+}
@@ -0,0 +1,44 @@
+package com.german.apirest.springboot.app.springbootcrud.services;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import com.german.apirest.springboot.app.springbootcrud.dto.ProductImportResult;
+
+/**
+ * Interfaz de servicio para la importación masiva de productos.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+public interface ProductImportService {
+
+    /**
+     * Formatos de importación admitidos.
+     */
+    enum Format {
+
+        /**
+         * Un objeto JSON de producto por línea.
+         */
+        NDJSON,
+
+        /**
+         * CSV con cabecera, con las columnas <code>sku</code>, <code>name</code>,
+         * <code>price</code> y <code>description</code> en cualquier orden.
+         */
+        CSV
+    }
+
+    /**
+     * Lee, valida y guarda los productos del fichero por bloques. Las filas
+     * no válidas se descartan y se informan en el resultado; el resto se
+     * guarda aunque haya errores.
+     *
+     * @param reader contenido del fichero.
+     * @param format formato del contenido.
+     * @return resumen con errores por fila y rendimiento.
+     * @throws IOException si falla la lectura.
+     */
+    ProductImportResult importProducts(Reader reader, Format format) throws IOException;
+}
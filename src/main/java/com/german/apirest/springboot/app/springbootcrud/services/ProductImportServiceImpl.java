@@ -0,0 +1,323 @@
+package com.german.apirest.springboot.app.springbootcrud.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.german.apirest.springboot.app.springbootcrud.dto.ProductImportResult;
+import com.german.apirest.springboot.app.springbootcrud.entities.Product;
+
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Implementación de {@link ProductImportService}.
+ * <p>
+ * El fichero se lee en streaming y se procesa por bloques de
+ * <code>products.import.chunk-size</code> filas: cada bloque se valida en
+ * paralelo con Bean Validation y sus filas válidas se guardan en una
+ * transacción con {@link ProductService#saveAll(List)}, con los INSERT
+ * agrupados en lotes JDBC gracias a los ids de secuencia. Las filas con un
+ * SKU ya existente o repetido en el bloque se rechazan antes de guardar.
+ * </p>
+ * <p>
+ * Cada bloque se confirma por separado: un error al guardar un bloque
+ * marca todas sus filas como fallidas, pero no deshace los anteriores.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+@Service
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportServiceImpl.class);
+
+    /**
+     * Clave de los errores que afectan a la fila completa.
+     */
+    private static final String ROW_ERROR = "row";
+
+    private static final List<String> CSV_COLUMNS = List.of("sku", "name", "price", "description");
+
+    /**
+     * Servicio de productos que guarda cada bloque.
+     */
+    @Autowired
+    private ProductService productService;
+
+    /**
+     * Validador de Bean Validation, el mismo que aplica {@code @Valid}.
+     */
+    @Autowired
+    private Validator validator;
+
+    /**
+     * Mapper JSON de la aplicación, para las filas NDJSON.
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Filas por bloque de validación y guardado.
+     */
+    @Value("${products.import.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * Número máximo de errores de fila incluidos en la respuesta.
+     */
+    @Value("${products.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    /**
+     * Fila leída del fichero: el producto, o los errores de lectura.
+     */
+    private record Row(int line, Product product, Map<String, String> errors) {
+    }
+
+    /**
+     * Lector de filas de un formato concreto.
+     */
+    private interface RowParser {
+
+        /**
+         * @return la fila siguiente, o {@code null} al final del fichero.
+         */
+        Row next() throws IOException;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ProductImportResult importProducts(Reader reader, Format format) throws IOException {
+        long start = System.nanoTime();
+        BufferedReader lines = new BufferedReader(reader);
+        RowParser parser = format == Format.CSV ? csvParser(lines) : ndjsonParser(lines);
+
+        int[] totals = new int[2];
+        List<ProductImportResult.RowError> errors = new ArrayList<>();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        Row row;
+        while ((row = parser.next()) != null) {
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                process(chunk, totals, errors);
+                chunk.clear();
+            }
+        }
+        process(chunk, totals, errors);
+
+        long elapsedNanos = System.nanoTime() - start;
+        int received = totals[0] + totals[1];
+        double rowsPerSecond = received * 1_000_000_000d / Math.max(elapsedNanos, 1);
+        log.info("Importados {} de {} productos en {} ms ({} filas/s)", totals[0], received,
+            elapsedNanos / 1_000_000, Math.round(rowsPerSecond));
+        return new ProductImportResult(received, totals[0], totals[1], elapsedNanos / 1_000_000,
+            Math.round(rowsPerSecond * 10) / 10d, errors);
+    }
+
+    /**
+     * Valida un bloque en paralelo y guarda sus filas válidas.
+     *
+     * @param chunk  filas del bloque.
+     * @param totals acumulados de filas importadas [0] y fallidas [1].
+     * @param errors errores de fila a informar.
+     */
+    private void process(List<Row> chunk, int[] totals, List<ProductImportResult.RowError> errors) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        // Cada fila solo la toca un hilo: su mapa de errores no se comparte
+        chunk.parallelStream().forEach(this::validate);
+
+        // Un SKU repetido haría fallar el bloque entero en la base de datos;
+        // el filtro de existencia resuelve sin consulta casi todos los nuevos
+        List<Row> valid = new ArrayList<>(chunk.size());
+        Set<String> skus = new HashSet<>();
+        for (Row row : chunk) {
+            if (row.errors().isEmpty() && (!skus.add(row.product().getSku())
+                    || productService.existsBySku(row.product().getSku()))) {
+                row.errors().put("sku", "El campo sku ya existe en la base de datos");
+            }
+            if (row.errors().isEmpty()) {
+                valid.add(row);
+            }
+        }
+        if (!valid.isEmpty()) {
+            try {
+                totals[0] += productService.saveAll(valid.stream().map(Row::product).toList());
+            } catch (DataAccessException | PersistenceException e) {
+                log.warn("No se pudo guardar un bloque de {} productos", valid.size(), e);
+                valid.forEach(row -> row.errors().put(ROW_ERROR, "No se pudo guardar el bloque de la fila"));
+            }
+        }
+        for (Row row : chunk) {
+            if (!row.errors().isEmpty()) {
+                totals[1]++;
+                if (errors.size() < maxReportedErrors) {
+                    errors.add(new ProductImportResult.RowError(row.line(), row.errors()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Aplica las restricciones de {@link Product} a una fila leída sin errores.
+     */
+    private void validate(Row row) {
+        if (!row.errors().isEmpty()) {
+            return;
+        }
+        for (ConstraintViolation<Product> violation : validator.validate(row.product())) {
+            String field = violation.getPropertyPath().toString();
+            row.errors().put(field, "El campo " + field + " " + violation.getMessage());
+        }
+    }
+
+    /**
+     * Lector NDJSON: un objeto por línea; las líneas vacías se ignoran.
+     */
+    private RowParser ndjsonParser(BufferedReader lines) {
+        ObjectReader productReader = objectMapper.readerFor(Product.class);
+        int[] lineNumber = {0};
+        return () -> {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                lineNumber[0]++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    Product product = productReader.readValue(line);
+                    if (product == null) {
+                        return failed(lineNumber[0], "La fila debe ser un objeto JSON");
+                    }
+                    // Siempre es un producto nuevo
+                    product.setId(null);
+                    return new Row(lineNumber[0], product, new HashMap<>());
+                } catch (JsonProcessingException e) {
+                    return failed(lineNumber[0], "JSON no válido");
+                }
+            }
+            return null;
+        };
+    }
+
+    /**
+     * Lector CSV: la primera línea es la cabecera; los campos pueden ir
+     * entre comillas dobles (con <code>""</code> como comilla escapada) pero
+     * no pueden contener saltos de línea.
+     *
+     * @throws IllegalArgumentException si falta alguna columna en la cabecera.
+     */
+    private RowParser csvParser(BufferedReader lines) throws IOException {
+        String header = lines.readLine();
+        if (header == null) {
+            return () -> null;
+        }
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        List<String> names = splitCsv(header);
+        int[] columns = new int[CSV_COLUMNS.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = indexOfIgnoreCase(names, CSV_COLUMNS.get(i));
+            if (columns[i] < 0) {
+                throw new IllegalArgumentException("La cabecera CSV debe incluir las columnas " + CSV_COLUMNS);
+            }
+        }
+        int[] lineNumber = {1};
+        return () -> {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                lineNumber[0]++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                List<String> fields = splitCsv(line);
+                if (fields.size() != names.size()) {
+                    return failed(lineNumber[0], "Se esperaban " + names.size() + " columnas");
+                }
+                Map<String, String> errors = new HashMap<>();
+                Product product = new Product();
+                product.setSku(fields.get(columns[0]));
+                product.setName(fields.get(columns[1]));
+                product.setDescription(fields.get(columns[3]));
+                String price = fields.get(columns[2]).trim();
+                if (!price.isEmpty()) {
+                    try {
+                        product.setPrice(Integer.valueOf(price));
+                    } catch (NumberFormatException e) {
+                        errors.put("price", "El campo price debe ser un número entero");
+                    }
+                }
+                return new Row(lineNumber[0], product, errors);
+            }
+            return null;
+        };
+    }
+
+    private static Row failed(int line, String message) {
+        Map<String, String> errors = new HashMap<>();
+        errors.put(ROW_ERROR, message);
+        return new Row(line, null, errors);
+    }
+
+    private static int indexOfIgnoreCase(List<String> names, String name) {
+        for (int i = 0; i < names.size(); i++) {
+            if (names.get(i).trim().toLowerCase(Locale.ROOT).equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Divide una línea CSV en campos.
+     */
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
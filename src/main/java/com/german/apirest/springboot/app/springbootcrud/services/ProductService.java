@@ -1,7 +1,15 @@
 package com.german.apirest.springboot.app.springbootcrud.services;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import com.german.apirest.springboot.app.springbootcrud.dto.ProductBatchRequest;
+import com.german.apirest.springboot.app.springbootcrud.dto.ProductBatchResult;
+import com.german.apirest.springboot.app.springbootcrud.dto.ProductCursor;
+import com.german.apirest.springboot.app.springbootcrud.dto.ProductLookupResult;
+import com.german.apirest.springboot.app.springbootcrud.dto.ProductPage;
 import com.german.apirest.springboot.app.springbootcrud.entities.Product;
 
 /**
@@ -23,6 +31,40 @@ public interface ProductService {
      */
     List<Product> findAll();
 
+    /**
+     * Obtiene una página de productos por clave (keyset): la primera si
+     * {@code after} es {@code null}, o la que sigue al cursor.
+     *
+     * @param sort  orden estable del listado.
+     * @param after cursor de la página anterior, o {@code null}.
+     * @param size  número de productos por página.
+     * @return la página con el cursor de la siguiente.
+     */
+    ProductPage scroll(ProductCursor.Sort sort, ProductCursor after, int size);
+
+    /**
+     * Obtiene una página de productos por desplazamiento. Su coste crece
+     * con el número de página, por lo que solo debe usarse para páginas
+     * cercanas al principio.
+     *
+     * @param sort orden estable del listado.
+     * @param page número de página (desde 0).
+     * @param size número de productos por página.
+     * @return la página con el cursor de la siguiente.
+     */
+    ProductPage findPage(ProductCursor.Sort sort, int page, int size);
+
+    /**
+     * Recorre todo el catálogo ordenado por id sin mantenerlo en memoria:
+     * las filas se leen del driver por bloques y el contexto de
+     * persistencia se vacía periódicamente.
+     *
+     * @param action acción a aplicar a cada producto, en orden; no debe
+     *               retener las entidades.
+     * @return número de productos recorridos.
+     */
+    long forEachProduct(Consumer<? super Product> action);
+
     /**
      * Busca un producto por su ID.
      *
@@ -31,6 +73,26 @@ public interface ProductService {
      */
     Optional<Product> findById(Long id);
 
+    /**
+     * Busca varios productos por id con una sola consulta <code>IN</code>
+     * para los que no estén en la caché de segundo nivel.
+     *
+     * @param ids ids solicitados; los repetidos se devuelven una vez.
+     * @return los productos en el orden solicitado y los ids que no existen.
+     */
+    ProductLookupResult findAllById(List<Long> ids);
+
+    /**
+     * Busca productos por texto en el nombre y la descripción con un índice
+     * invertido en memoria, sin consultar la tabla. Los resultados se
+     * ordenan por relevancia (BM25); el nombre pesa más que la descripción.
+     *
+     * @param query texto a buscar; se ignoran mayúsculas y tildes.
+     * @param limit número máximo de resultados.
+     * @return los productos más relevantes, del más al menos relevante.
+     */
+    List<Product> search(String query, int limit);
+
     /**
      * Guarda un nuevo producto en la base de datos.
      *
@@ -38,6 +100,16 @@ public interface ProductService {
      * @return el producto persistido con su ID generado.
      */
     Product save(Product product);
+
+    /**
+     * Guarda un bloque de productos nuevos en una única transacción, con
+     * los INSERT agrupados en lotes JDBC, y libera las entidades del
+     * contexto de persistencia al terminar.
+     *
+     * @param products productos nuevos (sin id).
+     * @return número de productos guardados.
+     */
+    int saveAll(List<Product> products);
     
     /**
      * Actualiza un producto existente.
@@ -48,6 +120,37 @@ public interface ProductService {
      */
     Optional<Product> update(Long id, Product product);
 
+    /**
+     * Actualiza un producto existente solo si sigue en una de las versiones
+     * esperadas. La versión se comprueba dentro de la misma transacción que
+     * la actualización.
+     *
+     * @param id               ID del producto a actualizar.
+     * @param product          datos del producto a actualizar.
+     * @param expectedVersions versiones que el cliente acepta, o {@code null}
+     *                         para no comprobarla.
+     * @return {@link Optional} con el producto actualizado si existía, o vacío si no.
+     * @throws org.springframework.dao.OptimisticLockingFailureException si el
+     *         producto está en otra versión o cambia durante la actualización.
+     */
+    Optional<Product> update(Long id, Product product, Collection<Long> expectedVersions);
+
+    /**
+     * Modifica solo los atributos indicados de un producto con un único
+     * <code>UPDATE</code>, sin cargarlo.
+     *
+     * @param id               ID del producto a modificar.
+     * @param changes          valores nuevos, ya validados, por atributo
+     *                         (<code>sku</code>, <code>name</code>,
+     *                         <code>price</code>, <code>description</code>).
+     * @param expectedVersions versiones que el cliente acepta, o {@code null}
+     *                         para no comprobarla.
+     * @return {@code true} si el producto existe, {@code false} si no.
+     * @throws org.springframework.dao.OptimisticLockingFailureException si el
+     *         producto existe pero en otra versión.
+     */
+    boolean patch(Long id, Map<String, ?> changes, Collection<Long> expectedVersions);
+
     /**
      * Elimina un producto por su ID.
      *
@@ -56,6 +159,53 @@ public interface ProductService {
      */
     Optional<Product> delete(Long id);
 
+    /**
+     * Elimina un producto solo si sigue en una de las versiones esperadas.
+     * La versión se comprueba dentro de la misma transacción que el borrado.
+     *
+     * @param id               identificador del producto a eliminar.
+     * @param expectedVersions versiones que el cliente acepta, o {@code null}
+     *                         para no comprobarla.
+     * @return {@link Optional} con el producto eliminado si existía, o vacío si no.
+     * @throws org.springframework.dao.OptimisticLockingFailureException si el
+     *         producto está en otra versión o cambia durante el borrado.
+     */
+    Optional<Product> delete(Long id, Collection<Long> expectedVersions);
+
+    /**
+     * Aplica un lote de altas, modificaciones y borrados en orden dentro de
+     * una única transacción, con un solo vaciado del contexto de
+     * persistencia al confirmar (sentencias agrupadas en lotes JDBC).
+     * <p>
+     * En modo {@link ProductBatchRequest.Mode#ATOMIC}, si alguna operación
+     * falla se deshace el lote completo. En
+     * {@link ProductBatchRequest.Mode#BEST_EFFORT} se omiten solo las que
+     * fallan. En ambos modos, un error de la base de datos al confirmar
+     * deshace todo el lote.
+     * </p>
+     *
+     * @param request operaciones y modo de ejecución.
+     * @return el resultado de cada operación.
+     * @throws org.springframework.dao.DataAccessException si la base de datos
+     *         rechaza el lote al confirmar.
+     */
+    ProductBatchResult batch(ProductBatchRequest request);
+
+    /**
+     * Devuelve la versión actual del catálogo, que cambia cada vez que se
+     * confirma una transacción que crea, modifica o elimina productos.
+     * <p>
+     * Se deriva del registro de cambios <code>product_changes</code>, así
+     * que todas las instancias leen la misma. Los cambios de esta instancia
+     * se reflejan en cuanto se confirman; los de otras, como mucho tras
+     * <code>products.catalog-version.ttl</code>. Los cambios hechos
+     * directamente en la base de datos no la modifican.
+     * </p>
+     *
+     * @return identificador opaco de la versión del catálogo.
+     */
+    String catalogVersion();
+
     /**
      * Verifica si existe un producto con el SKU dado.
      *
@@ -1,12 +1,54 @@
 package com.german.apirest.springboot.app.springbootcrud.services;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.german.apirest.springboot.app.springbootcrud.cache.ExistenceFilter;
+import com.german.apirest.springboot.app.springbootcrud.dto.ProductBatchRequest;
+import com.german.apirest.springboot.app.springbootcrud.dto.ProductBatchResult;
+import com.german.apirest.springboot.app.springbootcrud.dto.ProductBatchResult.OperationResult;
+import com.german.apirest.springboot.app.springbootcrud.dto.ProductCursor;
+import com.german.apirest.springboot.app.springbootcrud.dto.ProductLookupResult;
+import com.german.apirest.springboot.app.springbootcrud.dto.ProductPage;
 import com.german.apirest.springboot.app.springbootcrud.entities.Product;
+import com.german.apirest.springboot.app.springbootcrud.entities.ProductChange;
+import com.german.apirest.springboot.app.springbootcrud.repositories.ProductChangeRepository;
 import com.german.apirest.springboot.app.springbootcrud.repositories.ProductRepository;
+import com.german.apirest.springboot.app.springbootcrud.search.ProductSearchIndex;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 
 /**
  * Implementación de {@link ProductService} que utiliza JPA
@@ -27,13 +69,167 @@ public class ProductServiceImpl implements ProductService {
     @Autowired
     private ProductRepository repository;
 
+    /**
+     * Contexto de persistencia, que se vacía durante la exportación y la
+     * importación masiva.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Validador de Bean Validation, para los productos de un lote.
+     */
+    @Autowired
+    private Validator validator;
+
+    /**
+     * Gestor de transacciones, para las lecturas que no pasan por el proxy
+     * transaccional (carga del índice de búsqueda y resultados de búsqueda).
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Filas que el driver lee por viaje durante la exportación.
+     */
+    @Value("${products.export.fetch-size:500}")
+    private int exportFetchSize;
+
+    /**
+     * Cada cuántas filas se vacía el contexto de persistencia durante la exportación.
+     */
+    @Value("${products.export.clear-interval:1000}")
+    private int exportClearInterval;
+
+    /**
+     * Registro de cambios del catálogo compartido por todas las instancias.
+     */
+    @Autowired
+    private ProductChangeRepository changeRepository;
+
+    /**
+     * Cambios más recientes que conserva la purga del registro.
+     */
+    @Value("${products.change-log.retained:1000}")
+    private long changeLogRetained;
+
+    /**
+     * Tiempo durante el que se reutiliza la versión del catálogo leída del
+     * registro de cambios. Los cambios de esta instancia se ven al momento;
+     * los de otras, como mucho tras este tiempo.
+     */
+    @Value("${products.catalog-version.ttl:PT1S}")
+    private Duration catalogVersionTtl;
+
+    /**
+     * Versión del catálogo leída del registro de cambios.
+     *
+     * @param version    versión leída.
+     * @param expiresAt  instante ({@link System#nanoTime()}) en que caduca.
+     * @param generation valor de {@link #catalogChanges} antes de leerla.
+     */
+    private record CachedCatalogVersion(String version, long expiresAt, long generation) {
+    }
+
+    /**
+     * Última versión del catálogo leída, o {@code null} si aún no se ha leído.
+     */
+    private volatile CachedCatalogVersion cachedCatalogVersion;
+
+    /**
+     * Cambios del catálogo confirmados por esta instancia; cada uno invalida
+     * {@link #cachedCatalogVersion}.
+     */
+    private final AtomicLong catalogChanges = new AtomicLong();
+
+    /**
+     * SKU esperados, para dimensionar el filtro de existencia.
+     */
+    @Value("${products.sku-filter.expected-insertions:1000000}")
+    private long skuFilterExpectedInsertions;
+
+    /**
+     * Tasa de falsos positivos del filtro de existencia de SKU.
+     */
+    @Value("${products.sku-filter.false-positive-rate:0.01}")
+    private double skuFilterFalsePositiveRate;
+
+    /**
+     * Filtro de existencia de SKU: un "no" evita la consulta en {@link #existsBySku(String)}.
+     */
+    private ExistenceFilter skuFilter;
+
+    /**
+     * Índice de búsqueda por texto sobre nombre y descripción.
+     */
+    private final ProductSearchIndex searchIndex = new ProductSearchIndex();
+
+    /**
+     * Transacción de solo lectura para cargar el índice de búsqueda.
+     */
+    private TransactionTemplate readOnlyTransaction;
+
     /**
      * {@inheritDoc}
      */
     @Transactional(readOnly = true)
     @Override
     public List<Product> findAll() {
-        return (List<Product>) repository.findAll();
+        return repository.findAll();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public ProductPage scroll(ProductCursor.Sort sort, ProductCursor after, int size) {
+        // Una fila adicional indica si hay página siguiente
+        Limit limit = Limit.of(size + 1);
+        List<Product> rows;
+        if (sort == ProductCursor.Sort.PRICE) {
+            rows = after == null
+                ? repository.findByOrderByPriceAscIdAsc(limit)
+                : repository.findAfterPrice(after.price(), after.id(), limit);
+        } else {
+            rows = after == null
+                ? repository.findByOrderByIdAsc(limit)
+                : repository.findByIdGreaterThanOrderByIdAsc(after.id(), limit);
+        }
+        return ProductPage.of(rows, size, sort);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public ProductPage findPage(ProductCursor.Sort sort, int page, int size) {
+        Sort order = sort == ProductCursor.Sort.PRICE ? Sort.by("price", "id") : Sort.by("id");
+        Slice<Product> slice = repository.findBy(PageRequest.of(page, size, order));
+        List<Product> items = slice.getContent();
+        String next = slice.hasNext()
+            ? ProductCursor.after(sort, items.get(items.size() - 1)).encode()
+            : null;
+        return new ProductPage(items, next);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public long forEachProduct(Consumer<? super Product> action) {
+        long count = 0;
+        try (Stream<Product> products = repository.streamAllOrderById(exportFetchSize)) {
+            for (Product product : (Iterable<Product>) products::iterator) {
+                action.accept(product);
+                if (++count % exportClearInterval == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return count;
     }
 
     /**
@@ -45,13 +241,49 @@ public class ProductServiceImpl implements ProductService {
         return repository.findById(id);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public ProductLookupResult findAllById(List<Long> ids) {
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<Product> loaded = repository.findAllByIdInOrder(distinct);
+        List<Product> items = new ArrayList<>(distinct.size());
+        List<Long> missing = new ArrayList<>();
+        for (int i = 0; i < distinct.size(); i++) {
+            if (loaded.get(i) != null) {
+                items.add(loaded.get(i));
+            } else {
+                missing.add(distinct.get(i));
+            }
+        }
+        return new ProductLookupResult(items, missing);
+    }
+
     /**
      * {@inheritDoc}
      */
     @Transactional
     @Override
     public Product save(Product product) {
-        return repository.save(product);
+        Product saved = repository.save(product);
+        catalogChanged(() -> indexed(saved));
+        return saved;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Transactional
+    @Override
+    public int saveAll(List<Product> products) {
+        List<Product> saved = repository.saveAll(products);
+        catalogChanged(() -> saved.forEach(this::indexed));
+        // Con open-in-view el contexto sobrevive a la transacción: se vacía por bloque
+        entityManager.flush();
+        entityManager.clear();
+        return products.size();
     }
 
     /**
@@ -60,35 +292,404 @@ public class ProductServiceImpl implements ProductService {
     @Transactional
     @Override
     public Optional<Product> update(Long id, Product product) {
+        return update(id, product, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Transactional
+    @Override
+    public Optional<Product> update(Long id, Product product, Collection<Long> expectedVersions) {
         Optional<Product> productOptional = repository.findById(id);
         if (productOptional.isPresent()) {
             Product productDb = productOptional.orElseThrow();
-            productDb.setSku(product.getSku());
-            productDb.setName(product.getName());
-            productDb.setDescription(product.getDescription());
-            productDb.setPrice(product.getPrice());
-            return Optional.of(repository.save(productDb));
+            checkVersion(productDb, expectedVersions);
+            copyFields(product, productDb);
+            Product saved = repository.save(productDb);
+            catalogChanged(() -> indexed(saved));
+            return Optional.of(saved);
         }
         return productOptional;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Transactional
+    @Override
+    public boolean patch(Long id, Map<String, ?> changes, Collection<Long> expectedVersions) {
+        if (changes.isEmpty()) {
+            // Un documento vacío no cambia nada, pero las precondiciones se evalúan igual
+            Optional<Product> current = repository.findById(id);
+            current.ifPresent(product -> checkVersion(product, expectedVersions));
+            return current.isPresent();
+        }
+        if (repository.patch(id, changes, expectedVersions) == 1) {
+            String sku = (String) changes.get("sku");
+            // El índice de búsqueda necesita el texto completo: solo se relee
+            // el producto si el parche cambia el nombre o la descripción
+            Product patched = changes.containsKey("name") || changes.containsKey("description")
+                ? repository.findById(id).orElse(null) : null;
+            catalogChanged(() -> {
+                skuFilter.add(sku);
+                if (patched != null) {
+                    searchIndex.put(patched);
+                }
+            });
+            return true;
+        }
+        // Sin filas: el producto no existe o está en otra versión
+        if (expectedVersions != null && repository.existsById(id)) {
+            throw versionMismatch(id);
+        }
+        return false;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Transactional
     @Override
     public Optional<Product> delete(Long id) {
+        return delete(id, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Transactional
+    @Override
+    public Optional<Product> delete(Long id, Collection<Long> expectedVersions) {
         Optional<Product> productOptional = repository.findById(id);
-        productOptional.ifPresent(repository::delete);
+        if (productOptional.isPresent()) {
+            checkVersion(productOptional.orElseThrow(), expectedVersions);
+            repository.delete(productOptional.orElseThrow());
+            catalogChanged(() -> searchIndex.remove(id));
+        }
         return productOptional;
     }
 
     /**
      * {@inheritDoc}
      */
-    @Transactional(readOnly = true)
+    @Transactional
+    @Override
+    public ProductBatchResult batch(ProductBatchRequest request) {
+        List<ProductBatchRequest.Operation> operations = request.operations();
+        // Una sola consulta para todos los productos que se modifican o eliminan
+        List<Long> ids = operations.stream()
+            .filter(Objects::nonNull)
+            .map(ProductBatchRequest.Operation::id)
+            .filter(Objects::nonNull)
+            .distinct()
+            .toList();
+        Map<Long, Product> current = new HashMap<>();
+        for (Product product : repository.findAllByIdInOrder(ids)) {
+            if (product != null) {
+                current.put(product.getId(), product);
+            }
+        }
+        // SKU ya usados, consultados antes de modificar nada para que ninguna
+        // consulta provoque un vaciado anticipado; el filtro descarta la mayoría
+        Set<String> candidates = new HashSet<>();
+        for (ProductBatchRequest.Operation operation : operations) {
+            if (operation != null && operation.product() != null && skuFilter.mightContain(operation.product().getSku())) {
+                candidates.add(operation.product().getSku());
+            }
+        }
+        candidates.remove(null);
+        Set<String> takenSkus = candidates.isEmpty() ? new HashSet<>()
+            : new HashSet<>(repository.findExistingSkus(candidates));
+
+        List<OperationResult> results = new ArrayList<>(operations.size());
+        Set<String> claimedSkus = new HashSet<>();
+        boolean failed = false;
+        for (ProductBatchRequest.Operation operation : operations) {
+            OperationResult result = apply(operation, current, takenSkus, claimedSkus);
+            failed |= result.errors() != null;
+            results.add(result);
+        }
+
+        if (failed && request.mode() != ProductBatchRequest.Mode.BEST_EFFORT) {
+            // Se siguen evaluando todas las operaciones para informar de todos los errores
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            results.replaceAll(result -> result.errors() != null ? result
+                : OperationResult.failed(HttpStatus.FAILED_DEPENDENCY.value(), "operation",
+                    "No se ha aplicado porque ha fallado otra operación del lote"));
+            return new ProductBatchResult(false, results);
+        }
+        if (results.stream().anyMatch(result -> result.errors() == null)) {
+            catalogChanged(() -> {
+                for (int i = 0; i < results.size(); i++) {
+                    if (results.get(i).errors() != null) {
+                        continue;
+                    }
+                    if (operations.get(i).op() == ProductBatchRequest.Type.DELETE) {
+                        searchIndex.remove(operations.get(i).id());
+                    } else {
+                        indexed(results.get(i).product());
+                    }
+                }
+            });
+        }
+        return new ProductBatchResult(true, results);
+    }
+
+    /**
+     * Aplica una operación del lote sobre el contexto de persistencia, sin
+     * vaciarlo.
+     *
+     * @param operation   operación a aplicar.
+     * @param current     productos existentes por id; los eliminados se quitan.
+     * @param takenSkus   SKU de productos existentes antes del lote.
+     * @param claimedSkus SKU asignados por operaciones anteriores del lote.
+     * @return el resultado de la operación.
+     */
+    private OperationResult apply(ProductBatchRequest.Operation operation, Map<Long, Product> current,
+            Set<String> takenSkus, Set<String> claimedSkus) {
+        if (operation == null || operation.op() == null) {
+            return OperationResult.failed(HttpStatus.BAD_REQUEST.value(), "op",
+                "El campo op debe ser create, update o delete");
+        }
+        if (operation.op() != ProductBatchRequest.Type.DELETE) {
+            Map<String, String> errors = validate(operation.product());
+            if (!errors.isEmpty()) {
+                return new OperationResult(HttpStatus.BAD_REQUEST.value(), null, errors);
+            }
+        }
+        if (operation.op() == ProductBatchRequest.Type.CREATE) {
+            Product product = operation.product();
+            if (skuTaken(product.getSku(), null, takenSkus, claimedSkus)) {
+                return skuConflict(product.getSku());
+            }
+            product.setId(null);
+            repository.save(product);
+            return OperationResult.applied(HttpStatus.CREATED.value(), product);
+        }
+
+        Product productDb = operation.id() == null ? null : current.get(operation.id());
+        if (productDb == null) {
+            return OperationResult.failed(HttpStatus.NOT_FOUND.value(), "id",
+                "No existe el producto " + operation.id());
+        }
+        if (operation.version() != null && !operation.version().equals(productDb.getVersion())) {
+            return OperationResult.failed(HttpStatus.PRECONDITION_FAILED.value(), "version",
+                "El producto está en la versión " + productDb.getVersion());
+        }
+        if (operation.op() == ProductBatchRequest.Type.UPDATE) {
+            if (skuTaken(operation.product().getSku(), productDb, takenSkus, claimedSkus)) {
+                return skuConflict(operation.product().getSku());
+            }
+            copyFields(operation.product(), productDb);
+        } else {
+            repository.delete(productDb);
+            current.remove(operation.id());
+        }
+        return OperationResult.applied(HttpStatus.OK.value(), productDb);
+    }
+
+    /**
+     * Indica si un SKU pertenece a otro producto o ya lo ha asignado otra
+     * operación del lote, y si no, lo reserva.
+     *
+     * @param sku         SKU que asigna la operación.
+     * @param owner       producto que se modifica, o {@code null} en un alta.
+     * @param takenSkus   SKU de productos existentes antes del lote.
+     * @param claimedSkus SKU asignados por operaciones anteriores del lote.
+     * @return {@code true} si el SKU no está disponible.
+     */
+    private static boolean skuTaken(String sku, Product owner, Set<String> takenSkus, Set<String> claimedSkus) {
+        if (owner != null && sku.equals(owner.getSku())) {
+            return !claimedSkus.add(sku);
+        }
+        return takenSkus.contains(sku) || !claimedSkus.add(sku);
+    }
+
+    private static OperationResult skuConflict(String sku) {
+        return OperationResult.failed(HttpStatus.CONFLICT.value(), "sku", "El SKU " + sku + " ya existe");
+    }
+
+    /**
+     * Aplica las restricciones de {@link Product} a los datos de una operación.
+     *
+     * @param product datos recibidos.
+     * @return mensajes por campo; vacío si son válidos.
+     */
+    private Map<String, String> validate(Product product) {
+        Map<String, String> errors = new HashMap<>();
+        if (product == null) {
+            errors.put("product", "El campo product es obligatorio");
+            return errors;
+        }
+        for (ConstraintViolation<Product> violation : validator.validate(product)) {
+            String field = violation.getPropertyPath().toString();
+            errors.put(field, "El campo " + field + " " + violation.getMessage());
+        }
+        return errors;
+    }
+
+    /**
+     * Copia los datos editables de un producto sobre otro.
+     *
+     * @param source datos recibidos.
+     * @param target producto gestionado que se modifica.
+     */
+    private static void copyFields(Product source, Product target) {
+        target.setSku(source.getSku());
+        target.setName(source.getName());
+        target.setDescription(source.getDescription());
+        target.setPrice(source.getPrice());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String catalogVersion() {
+        long generation = catalogChanges.get();
+        long now = System.nanoTime();
+        CachedCatalogVersion cached = cachedCatalogVersion;
+        if (cached != null && cached.generation() == generation && now - cached.expiresAt() < 0) {
+            return cached.version();
+        }
+        // Si esta instancia confirma un cambio durante la lectura, la
+        // generación guardada ya no coincide y la siguiente llamada relee
+        ProductChangeRepository.ChangeLogSummary summary = changeRepository.summarize();
+        String version = summary.getMinId() + "-" + summary.getMaxId() + "-" + summary.getCount();
+        cachedCatalogVersion = new CachedCatalogVersion(version, now + catalogVersionTtl.toNanos(), generation);
+        return version;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
     @Override
     public boolean existsBySku(String sku) {
-        return repository.existsBySku(sku);
+        // Sin @Transactional: un "no" del filtro no llega a pedir conexión
+        return skuFilter.mightContain(sku) && repository.existsBySku(sku);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Product> search(String query, int limit) {
+        List<Long> ids = searchIndex.search(query, limit).stream()
+            .map(ProductSearchIndex.Hit::id)
+            .toList();
+        if (ids.isEmpty()) {
+            // Sin resultados no se llega a pedir conexión
+            return List.of();
+        }
+        // Caché de segundo nivel y una consulta IN para el resto, en el orden del ranking
+        return readOnlyTransaction.execute(status -> repository.findAllByIdInOrder(ids)).stream()
+            .filter(Objects::nonNull)
+            .toList();
+    }
+
+    /**
+     * Crea y carga el filtro de existencia de SKU y el índice de búsqueda
+     * al arrancar.
+     */
+    @PostConstruct
+    void loadIndexes() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        skuFilter = new ExistenceFilter(repository::findAllSkus, skuFilterExpectedInsertions,
+            skuFilterFalsePositiveRate);
+        skuFilter.rebuild();
+        rebuildSearchIndex();
+    }
+
+    /**
+     * Reconstruye el filtro de existencia de SKU: descarta los SKU de
+     * productos eliminados, incorpora los creados por otras instancias y
+     * lo redimensiona si el catálogo ha crecido.
+     */
+    @Scheduled(fixedDelayString = "${products.sku-filter.rebuild-interval:PT1H}",
+            initialDelayString = "${products.sku-filter.rebuild-interval:PT1H}")
+    public void rebuildSkuFilter() {
+        skuFilter.rebuild();
+    }
+
+    /**
+     * Purga el registro de cambios conservando los
+     * <code>products.change-log.retained</code> más recientes. Borra todos
+     * los ids hasta un umbral, de modo que el id mínimo cambia siempre que
+     * se elimina algo (ver {@link ProductChangeRepository.ChangeLogSummary}).
+     */
+    @Scheduled(fixedDelayString = "${products.change-log.purge-interval:PT10M}",
+            initialDelayString = "${products.change-log.purge-interval:PT10M}")
+    @Transactional
+    public void purgeChangeLog() {
+        long threshold = changeRepository.summarize().getMaxId() - changeLogRetained;
+        if (threshold > 0) {
+            changeRepository.deleteUpTo(threshold);
+        }
+    }
+
+    /**
+     * Reconstruye el índice de búsqueda recorriendo el catálogo en streaming,
+     * como la exportación. Recoge los cambios hechos por otras instancias.
+     */
+    @Scheduled(fixedDelayString = "${products.search.rebuild-interval:PT1H}",
+            initialDelayString = "${products.search.rebuild-interval:PT1H}")
+    public void rebuildSearchIndex() {
+        searchIndex.rebuild(loader -> readOnlyTransaction.executeWithoutResult(status -> forEachProduct(loader)));
+    }
+
+    /**
+     * Comprueba las versiones que acepta el cliente contra la del producto.
+     * Si alguna coincide, el <code>WHERE version = ?</code> del UPDATE o
+     * DELETE detecta cualquier cambio concurrente posterior.
+     *
+     * @param product          producto cargado en la transacción.
+     * @param expectedVersions versiones esperadas, o {@code null} para no comprobarla.
+     * @throws OptimisticLockingFailureException si ninguna versión coincide.
+     */
+    private void checkVersion(Product product, Collection<Long> expectedVersions) {
+        if (expectedVersions != null && !expectedVersions.contains(product.getVersion())) {
+            throw versionMismatch(product.getId());
+        }
+    }
+
+    private static OptimisticLockingFailureException versionMismatch(Long id) {
+        return new OptimisticLockingFailureException("El producto " + id + " no está en la versión esperada");
+    }
+
+    /**
+     * Actualiza el filtro de SKU y el índice de búsqueda con un producto guardado.
+     */
+    private void indexed(Product product) {
+        skuFilter.add(product.getSku());
+        searchIndex.put(product);
+    }
+
+    /**
+     * Registra el cambio en <code>product_changes</code> dentro de la
+     * transacción actual, y actualiza los índices en memoria e invalida la
+     * versión del catálogo de esta instancia cuando se confirme. Cada
+     * escritura inserta su propia fila, así que no comparten ninguna fila
+     * bloqueada, y el cambio solo es visible tras el commit.
+     *
+     * @param indexUpdate actualización del filtro de SKU y del índice de búsqueda.
+     */
+    private void catalogChanged(Runnable indexUpdate) {
+        changeRepository.save(new ProductChange(Instant.now()));
+        Runnable changed = () -> {
+            indexUpdate.run();
+            catalogChanges.incrementAndGet();
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            changed.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                changed.run();
+            }
+        });
     }
 }
\ No newline at end of file
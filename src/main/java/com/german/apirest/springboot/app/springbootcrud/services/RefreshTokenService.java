@@ -0,0 +1,52 @@
+package com.german.apirest.springboot.app.springbootcrud.services;
+
+/**
+ * Interfaz de servicio para la gestión de tokens de refresco.
+ * <p>
+ * Permite emitir un token de refresco tras el login y canjearlo por un
+ * nuevo token de acceso sin volver a verificar la contraseña. Cada canje
+ * rota el token de refresco; reutilizar uno ya canjeado revoca toda su
+ * familia.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+public interface RefreshTokenService {
+
+    /**
+     * Tokens emitidos tras un canje.
+     *
+     * @param username     nombre del usuario.
+     * @param accessToken  nuevo token de acceso (JWT).
+     * @param refreshToken nuevo token de refresco (en claro, solo se entrega una vez).
+     */
+    record IssuedTokens(String username, String accessToken, String refreshToken) {
+    }
+
+    /**
+     * Emite un token de refresco que inicia una nueva familia de rotación.
+     *
+     * @param username nombre del usuario autenticado.
+     * @return token de refresco en claro.
+     */
+    String issue(String username);
+
+    /**
+     * Canjea un token de refresco por un nuevo token de acceso y un nuevo
+     * token de refresco de la misma familia.
+     *
+     * @param refreshToken token de refresco en claro.
+     * @return los nuevos tokens.
+     * @throws InvalidRefreshTokenException si el token no existe, ha expirado,
+     *         está revocado, ya fue usado o el usuario está deshabilitado.
+     */
+    IssuedTokens refresh(String refreshToken);
+
+    /**
+     * Revoca la familia completa del token de refresco dado, si existe.
+     *
+     * @param refreshToken token de refresco en claro.
+     */
+    void revoke(String refreshToken);
+}
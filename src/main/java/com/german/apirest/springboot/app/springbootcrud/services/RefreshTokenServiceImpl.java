@@ -0,0 +1,168 @@
+package com.german.apirest.springboot.app.springbootcrud.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.german.apirest.springboot.app.springbootcrud.entities.RefreshToken;
+import com.german.apirest.springboot.app.springbootcrud.entities.User;
+import com.german.apirest.springboot.app.springbootcrud.repositories.RefreshTokenRepository;
+import com.german.apirest.springboot.app.springbootcrud.repositories.UserRepository;
+import com.german.apirest.springboot.app.springbootcrud.security.JwtTokenCodec;
+
+/**
+ * Implementación de {@link RefreshTokenService} que utiliza JPA.
+ * <p>
+ * Los tokens son 256 bits aleatorios codificados en Base64URL; en la base
+ * de datos solo se guarda su hash SHA-256. El canje es una búsqueda por
+ * hash y una actualización condicional, sin pasar por BCrypt.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+@Service
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * Repositorio JPA para tokens de refresco.
+     */
+    @Autowired
+    private RefreshTokenRepository repository;
+
+    /**
+     * Repositorio JPA para usuarios.
+     */
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * Codec que genera los tokens de acceso.
+     */
+    @Autowired
+    private JwtTokenCodec tokenCodec;
+
+    /**
+     * Vida de los tokens de refresco.
+     */
+    @Value("${security.jwt.refresh-token.ttl:P30D}")
+    private Duration refreshTokenTtl;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public String issue(String username) {
+        Long userId = userRepository.findIdByUsername(username)
+            .orElseThrow(() -> new InvalidRefreshTokenException("Usuario desconocido"));
+        return create(userRepository.getReferenceById(userId), UUID.randomUUID().toString());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Si el token ya se había usado (o la familia está revocada) se revoca
+     * toda la familia; esa revocación se confirma aunque se lance la excepción.
+     * </p>
+     */
+    @Override
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public IssuedTokens refresh(String refreshToken) {
+        RefreshToken stored = repository.findByTokenHash(hash(refreshToken))
+            .orElseThrow(() -> new InvalidRefreshTokenException("El token de refresco no es válido"));
+
+        Instant now = Instant.now();
+        if (stored.getUsedAt() != null || stored.isRevoked() || repository.markUsed(stored.getId(), now) == 0) {
+            repository.revokeFamily(stored.getFamilyId());
+            throw new InvalidRefreshTokenException("El token de refresco ya fue utilizado o revocado");
+        }
+        if (stored.getExpiresAt().isBefore(now)) {
+            throw new InvalidRefreshTokenException("El token de refresco ha expirado");
+        }
+
+        User user = stored.getUser();
+        if (!user.isEnabled()) {
+            repository.revokeFamily(stored.getFamilyId());
+            throw new InvalidRefreshTokenException("El usuario está deshabilitado");
+        }
+
+        List<GrantedAuthority> authorities = user.getRoles().stream()
+            .map(role -> (GrantedAuthority) tokenCodec.authority(role.getName()))
+            .toList();
+        try {
+            String accessToken = tokenCodec.createToken(user.getId(), user.getTokenVersion(), user.getUsername(),
+                authorities);
+            return new IssuedTokens(user.getUsername(), accessToken, create(user, stored.getFamilyId()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo generar el token de acceso", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void revoke(String refreshToken) {
+        repository.findByTokenHash(hash(refreshToken))
+            .ifPresent(stored -> repository.revokeFamily(stored.getFamilyId()));
+    }
+
+    /**
+     * Elimina periódicamente los tokens de refresco expirados.
+     */
+    @Scheduled(cron = "${security.jwt.refresh-token.purge-cron:0 30 3 * * *}")
+    @Transactional
+    public void purgeExpired() {
+        repository.deleteExpired(Instant.now());
+    }
+
+    /**
+     * Genera y persiste un nuevo token de refresco para la familia dada.
+     */
+    private String create(User user, String familyId) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String raw = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        Instant now = Instant.now();
+        RefreshToken token = new RefreshToken();
+        token.setTokenHash(hash(raw));
+        token.setUser(user);
+        token.setFamilyId(familyId);
+        token.setCreatedAt(now);
+        token.setExpiresAt(now.plus(refreshTokenTtl));
+        repository.save(token);
+        return raw;
+    }
+
+    /**
+     * Calcula el hash SHA-256 en hexadecimal de un token en claro.
+     */
+    private static String hash(String raw) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(raw.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
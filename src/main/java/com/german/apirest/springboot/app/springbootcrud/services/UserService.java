@@ -1,6 +1,7 @@
 package com.german.apirest.springboot.app.springbootcrud.services;
 
 import java.util.List;
+import java.util.Optional;
 import com.german.apirest.springboot.app.springbootcrud.entities.User;
 
 /**
@@ -37,4 +38,23 @@ public interface UserService {
      * @return {@code true} si ya existe, {@code false} en caso contrario.
      */
     boolean existsByUsername(String username);
-}
\ No newline at end of file
+
+    /**
+     * Habilita o deshabilita un usuario e invalida sus tokens emitidos.
+     *
+     * @param id      identificador del usuario.
+     * @param enabled nuevo estado.
+     * @return {@link Optional} con el usuario actualizado, o vacío si no existe.
+     */
+    Optional<User> setEnabled(Long id, boolean enabled);
+
+    /**
+     * Concede o retira el rol <code>ROLE_ADMIN</code> a un usuario e
+     * invalida sus tokens emitidos.
+     *
+     * @param id    identificador del usuario.
+     * @param admin si debe tener rol de administrador.
+     * @return {@link Optional} con el usuario actualizado, o vacío si no existe.
+     */
+    Optional<User> setAdmin(Long id, boolean admin);
+}
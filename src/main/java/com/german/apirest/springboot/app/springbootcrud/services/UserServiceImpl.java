@@ -4,13 +4,20 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import com.german.apirest.springboot.app.springbootcrud.cache.ExistenceFilter;
 import com.german.apirest.springboot.app.springbootcrud.entities.Role;
 import com.german.apirest.springboot.app.springbootcrud.entities.User;
 import com.german.apirest.springboot.app.springbootcrud.repositories.RoleRepository;
 import com.german.apirest.springboot.app.springbootcrud.repositories.UserRepository;
+import com.german.apirest.springboot.app.springbootcrud.security.TokenEpochRegistry;
+import com.german.apirest.springboot.app.springbootcrud.security.UserDetailsCache;
+
+import jakarta.annotation.PostConstruct;
 
 /**
  * Implementación de {@link UserService} que utiliza JPA
@@ -44,13 +51,43 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    /**
+     * Caché de detalles de usuario del login, invalidada en cada escritura.
+     */
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    /**
+     * Épocas de tokens en memoria, actualizadas al cambiar estado o roles.
+     */
+    @Autowired
+    private TokenEpochRegistry tokenEpochRegistry;
+
+    /**
+     * Usuarios esperados, para dimensionar el filtro de existencia.
+     */
+    @Value("${users.username-filter.expected-insertions:1000000}")
+    private long usernameFilterExpectedInsertions;
+
+    /**
+     * Tasa de falsos positivos del filtro de existencia de usernames.
+     */
+    @Value("${users.username-filter.false-positive-rate:0.01}")
+    private double usernameFilterFalsePositiveRate;
+
+    /**
+     * Filtro de existencia de usernames: un "no" evita la consulta en
+     * {@link #existsByUsername(String)}, que se hace en cada registro.
+     */
+    private ExistenceFilter usernameFilter;
+
     /**
      * {@inheritDoc}
      */
     @Override
     @Transactional(readOnly = true)
     public List<User> findAll() {
-        return (List<User>) repository.findAll();
+        return repository.findAll();
     }
 
     /**
@@ -59,15 +96,10 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public User save(User user) {
-        Optional<Role> optionalRolUser = roleRepository.findByName("ROLE_USER");
-        List<Role> roles = new ArrayList<>();
-        optionalRolUser.ifPresent(roles::add);
-        if (user.isAdmin()) {
-            Optional<Role> optionalRolAdmin = roleRepository.findByName("ROLE_ADMIN");
-            optionalRolAdmin.ifPresent(roles::add);
-        }
-        user.setRoles(roles);
+        user.setRoles(rolesFor(user.isAdmin()));
         user.setPassword(passwordEncoder.encode(user.getPassword()));
+        userDetailsCache.evictAfterCommit(user.getUsername());
+        usernameFilter.addAfterCommit(user.getUsername());
         return repository.save(user);
     }
 
@@ -76,6 +108,74 @@ public class UserServiceImpl implements UserService {
      */
     @Override
     public boolean existsByUsername(String username) {
-        return repository.existsByUsername(username);
+        return usernameFilter.mightContain(username) && repository.existsByUsername(username);
+    }
+
+    /**
+     * Crea y carga el filtro de existencia de usernames al arrancar.
+     */
+    @PostConstruct
+    void loadUsernameFilter() {
+        usernameFilter = new ExistenceFilter(repository::findAllUsernames, usernameFilterExpectedInsertions,
+            usernameFilterFalsePositiveRate);
+        usernameFilter.rebuild();
+    }
+
+    /**
+     * Reconstruye periódicamente el filtro de existencia de usernames.
+     */
+    @Scheduled(fixedDelayString = "${users.username-filter.rebuild-interval:PT1H}",
+            initialDelayString = "${users.username-filter.rebuild-interval:PT1H}")
+    public void rebuildUsernameFilter() {
+        usernameFilter.rebuild();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public Optional<User> setEnabled(Long id, boolean enabled) {
+        return repository.findById(id).map(user -> {
+            user.setEnabled(enabled);
+            return invalidateTokens(user);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public Optional<User> setAdmin(Long id, boolean admin) {
+        return repository.findById(id).map(user -> {
+            user.setRoles(rolesFor(admin));
+            return invalidateTokens(user);
+        });
+    }
+
+    /**
+     * Incrementa la versión de tokens del usuario, lo guarda y propaga el
+     * cambio a las cachés de este nodo al confirmar la transacción.
+     */
+    private User invalidateTokens(User user) {
+        user.invalidateTokens();
+        User saved = repository.save(user);
+        userDetailsCache.evictAfterCommit(saved.getUsername());
+        tokenEpochRegistry.updateAfterCommit(saved.getId(), saved.getTokenVersion(), saved.isEnabled());
+        return saved;
+    }
+
+    /**
+     * Obtiene los roles correspondientes: siempre <code>ROLE_USER</code> y,
+     * si se indica, <code>ROLE_ADMIN</code>.
+     */
+    private List<Role> rolesFor(boolean admin) {
+        List<Role> roles = new ArrayList<>();
+        roleRepository.findByName("ROLE_USER").ifPresent(roles::add);
+        if (admin) {
+            roleRepository.findByName("ROLE_ADMIN").ifPresent(roles::add);
+        }
+        return roles;
     }
-}
\ No newline at end of file
+}
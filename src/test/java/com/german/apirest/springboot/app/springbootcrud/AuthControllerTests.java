@@ -0,0 +1,212 @@
+package com.german.apirest.springboot.app.springbootcrud;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.jayway.jsonpath.JsonPath;
+
+import com.german.apirest.springboot.app.springbootcrud.entities.Role;
+import com.german.apirest.springboot.app.springbootcrud.entities.User;
+import com.german.apirest.springboot.app.springbootcrud.repositories.RefreshTokenRepository;
+import com.german.apirest.springboot.app.springbootcrud.repositories.RoleRepository;
+import com.german.apirest.springboot.app.springbootcrud.repositories.UserRepository;
+import com.german.apirest.springboot.app.springbootcrud.security.RoleRegistry;
+import com.german.apirest.springboot.app.springbootcrud.security.UserDetailsCache;
+import com.german.apirest.springboot.app.springbootcrud.services.UserService;
+
+/**
+ * Pruebas de comportamiento de la sesión: canje y rotación de tokens de
+ * refresco, detección de reutilización, cierre de sesión e invalidación
+ * de tokens al deshabilitar un usuario o cambiar sus roles.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AuthControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+        if (roleRepository.findByName("ROLE_USER").isEmpty()) {
+            roleRepository.save(new Role("ROLE_USER"));
+            roleRepository.save(new Role("ROLE_ADMIN"));
+            roleRegistry.reload();
+        }
+        createUser("admin", true);
+        user = createUser("anita", false);
+    }
+
+    @Test
+    void refreshRotatesTheRefreshToken() throws Exception {
+        String login = login("anita");
+        String first = JsonPath.read(login, "$.refreshToken");
+
+        String refreshed = refresh(first)
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.username").value("anita"))
+            .andReturn().getResponse().getContentAsString();
+        String second = JsonPath.read(refreshed, "$.refreshToken");
+        assertNotEquals(first, second);
+
+        mockMvc.perform(get("/api/products").param("size", "1")
+                .header("Authorization", "Bearer " + JsonPath.read(refreshed, "$.token")))
+            .andExpect(status().isOk());
+        refresh(second).andExpect(status().isOk());
+    }
+
+    @Test
+    void reusingARefreshTokenRevokesTheWholeFamily() throws Exception {
+        String first = JsonPath.read(login("anita"), "$.refreshToken");
+        String second = JsonPath.read(refresh(first).andReturn().getResponse().getContentAsString(), "$.refreshToken");
+
+        refresh(first)
+            .andExpect(status().isUnauthorized())
+            .andExpect(jsonPath("$.error", containsString("ya fue utilizado")));
+        // La revocación se confirma aunque el canje falle: el token vigente tampoco vale
+        refresh(second)
+            .andExpect(status().isUnauthorized())
+            .andExpect(jsonPath("$.error", containsString("ya fue utilizado o revocado")));
+
+        // Otra sesión del mismo usuario no se ve afectada
+        String other = JsonPath.read(login("anita"), "$.refreshToken");
+        refresh(other).andExpect(status().isOk());
+    }
+
+    @Test
+    void disabledUsersCannotRefresh() throws Exception {
+        String refreshToken = JsonPath.read(login("anita"), "$.refreshToken");
+        String adminToken = JsonPath.read(login("admin"), "$.token");
+
+        setFlag("Bearer " + adminToken, "enabled", false);
+
+        refresh(refreshToken)
+            .andExpect(status().isUnauthorized())
+            .andExpect(jsonPath("$.error").value("El usuario está deshabilitado"));
+    }
+
+    @Test
+    void logoutRevokesTheAccessTokenAndTheRefreshSession() throws Exception {
+        String login = login("anita");
+        String token = "Bearer " + JsonPath.read(login, "$.token");
+        String refreshToken = JsonPath.read(login, "$.refreshToken");
+
+        mockMvc.perform(post("/api/auth/logout")
+                .header("Authorization", token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"refreshToken\":\"" + refreshToken + "\"}"))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/products").param("size", "1").header("Authorization", token))
+            .andExpect(status().isUnauthorized())
+            .andExpect(jsonPath("$.error").value("El token ha sido revocado"));
+        refresh(refreshToken).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void accessTokensAreRejectedAfterDisablingOrChangingRoles() throws Exception {
+        String adminToken = "Bearer " + JsonPath.read(login("admin"), "$.token");
+        String userToken = "Bearer " + JsonPath.read(login("anita"), "$.token");
+        products(userToken).andExpect(status().isOk());
+
+        setFlag(adminToken, "admin", true);
+        products(userToken)
+            .andExpect(status().isUnauthorized())
+            .andExpect(jsonPath("$.error", containsString("sus tokens han sido invalidados")));
+
+        // Un login nuevo recoge la nueva versión; deshabilitar la vuelve a invalidar
+        userToken = "Bearer " + JsonPath.read(login("anita"), "$.token");
+        products(userToken).andExpect(status().isOk());
+        setFlag(adminToken, "enabled", false);
+        products(userToken).andExpect(status().isUnauthorized());
+
+        // Los tokens de otros usuarios no se ven afectados
+        products(adminToken).andExpect(status().isOk());
+    }
+
+    @Test
+    void unknownAndMissingRefreshTokensAreRejected() throws Exception {
+        refresh("no-existe").andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/api/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+            .andExpect(status().isBadRequest());
+    }
+
+    private User createUser(String username, boolean admin) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("secret");
+        user.setAdmin(admin);
+        User saved = userService.save(user);
+        userDetailsCache.evict(username);
+        return saved;
+    }
+
+    private String login(String username) throws Exception {
+        return mockMvc.perform(post("/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"" + username + "\",\"password\":\"secret\"}"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+    }
+
+    private ResultActions products(String token) throws Exception {
+        return mockMvc.perform(get("/api/products").param("size", "1").header("Authorization", token));
+    }
+
+    private void setFlag(String adminToken, String flag, boolean value) throws Exception {
+        mockMvc.perform(put("/api/users/{id}/" + flag, user.getId())
+                .header("Authorization", adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"" + flag + "\":" + value + "}"))
+            .andExpect(status().isOk());
+    }
+
+    private ResultActions refresh(String refreshToken) throws Exception {
+        return mockMvc.perform(post("/api/auth/refresh")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"refreshToken\":\"" + refreshToken + "\"}"));
+    }
+}
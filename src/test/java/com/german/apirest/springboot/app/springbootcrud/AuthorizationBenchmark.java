@@ -0,0 +1,114 @@
+package com.german.apirest.springboot.app.springbootcrud;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.util.SimpleMethodInvocation;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.german.apirest.springboot.app.springbootcrud.controllers.ProductController;
+import com.german.apirest.springboot.app.springbootcrud.entities.Role;
+import com.german.apirest.springboot.app.springbootcrud.repositories.RoleRepository;
+import com.german.apirest.springboot.app.springbootcrud.security.CompiledPreAuthorizeAuthorizationManager;
+import com.german.apirest.springboot.app.springbootcrud.security.RoleRegistry;
+
+/**
+ * Compara el coste de comprobar {@code @PreAuthorize} en
+ * {@link ProductController} con el manager SpEL estándar y con
+ * {@link CompiledPreAuthorizeAuthorizationManager}.
+ * <p>
+ * No forma parte de los tests; se ejecuta con su método {@code main}
+ * (ver README).
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthorizationBenchmark {
+
+    private PreAuthorizeAuthorizationManager spel;
+
+    private CompiledPreAuthorizeAuthorizationManager compiled;
+
+    private Authentication user;
+
+    private MethodInvocation view;
+
+    private MethodInvocation delete;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        Role admin = new Role("ROLE_ADMIN");
+        admin.setId(1L);
+        Role userRole = new Role("ROLE_USER");
+        userRole.setId(2L);
+        RoleRepository roleRepository = Mockito.mock(RoleRepository.class);
+        Mockito.when(roleRepository.findAll()).thenReturn(List.of(admin, userRole));
+        RoleRegistry roleRegistry = new RoleRegistry();
+        ReflectionTestUtils.setField(roleRegistry, "roleRepository", roleRepository);
+
+        spel = new PreAuthorizeAuthorizationManager();
+        compiled = new CompiledPreAuthorizeAuthorizationManager(() -> roleRegistry, spel);
+
+        // Lista de autoridades compartida, como la que construye el filtro de validación
+        user = UsernamePasswordAuthenticationToken.authenticated("user", null, roleRegistry.authoritiesOf(0b10));
+
+        ProductController controller = new ProductController();
+        Method viewMethod = ProductController.class.getMethod("view", Long.class);
+        Method deleteMethod = ProductController.class.getMethod("delete", Long.class);
+        view = new SimpleMethodInvocation(controller, viewMethod, 1L);
+        delete = new SimpleMethodInvocation(controller, deleteMethod, 1L);
+    }
+
+    @Benchmark
+    public AuthorizationResult spelGranted() {
+        return spel.authorize(() -> user, view);
+    }
+
+    @Benchmark
+    public AuthorizationResult compiledGranted() {
+        return compiled.authorize(() -> user, view);
+    }
+
+    @Benchmark
+    public AuthorizationResult spelDenied() {
+        return spel.authorize(() -> user, delete);
+    }
+
+    @Benchmark
+    public AuthorizationResult compiledDenied() {
+        return compiled.authorize(() -> user, delete);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(AuthorizationBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
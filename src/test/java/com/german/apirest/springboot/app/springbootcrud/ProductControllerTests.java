@@ -0,0 +1,803 @@
+package com.german.apirest.springboot.app.springbootcrud;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.options;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.jayway.jsonpath.JsonPath;
+
+import com.german.apirest.springboot.app.springbootcrud.entities.Product;
+import com.german.apirest.springboot.app.springbootcrud.entities.ProductChange;
+import com.german.apirest.springboot.app.springbootcrud.entities.Role;
+import com.german.apirest.springboot.app.springbootcrud.entities.User;
+import com.german.apirest.springboot.app.springbootcrud.repositories.ProductChangeRepository;
+import com.german.apirest.springboot.app.springbootcrud.repositories.ProductRepository;
+import com.german.apirest.springboot.app.springbootcrud.repositories.RefreshTokenRepository;
+import com.german.apirest.springboot.app.springbootcrud.repositories.RoleRepository;
+import com.german.apirest.springboot.app.springbootcrud.repositories.UserRepository;
+import com.german.apirest.springboot.app.springbootcrud.security.RoleRegistry;
+import com.german.apirest.springboot.app.springbootcrud.security.UserDetailsCache;
+import com.german.apirest.springboot.app.springbootcrud.services.ProductService;
+import com.german.apirest.springboot.app.springbootcrud.services.ProductServiceImpl;
+import com.german.apirest.springboot.app.springbootcrud.services.UserService;
+
+/**
+ * Pruebas de comportamiento de los endpoints de productos: cabeceras,
+ * paginación, precondiciones, lotes, importación y búsqueda. El número de
+ * sentencias SQL se comprueba en {@link SqlStatementCountTests}.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProductControllerTests {
+
+    private static final int PRODUCTS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductChangeRepository productChangeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    private String adminToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+        if (roleRepository.findByName("ROLE_USER").isEmpty()) {
+            roleRepository.save(new Role("ROLE_USER"));
+            roleRepository.save(new Role("ROLE_ADMIN"));
+            roleRegistry.reload();
+        }
+        User admin = new User();
+        admin.setUsername("admin");
+        admin.setPassword("secret");
+        admin.setAdmin(true);
+        userService.save(admin);
+        userDetailsCache.evict(admin.getUsername());
+
+        productRepository.deleteAll();
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = new Product();
+            product.setSku("sku" + i);
+            product.setName("product" + i);
+            product.setDescription("description" + i);
+            product.setPrice(1000 - i * 100);
+            productRepository.save(product);
+        }
+
+        String body = mockMvc.perform(post("/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"admin\",\"password\":\"secret\"}"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        adminToken = "Bearer " + JsonPath.read(body, "$.token");
+    }
+
+    @Test
+    void keysetPagesFollowTheSortOrder() throws Exception {
+        // Por precio ascendente: 600, 700 | 800, 900 | 1000
+        String cursor = null;
+        int[][] pages = {{600, 700}, {800, 900}, {1000}};
+        for (int[] prices : pages) {
+            MockHttpServletRequestBuilder request = get("/api/products")
+                .header("Authorization", adminToken)
+                .param("sort", "price")
+                .param("size", "2");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            String body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(prices.length))
+                .andExpect(jsonPath("$.items[0].price").value(prices[0]))
+                .andReturn().getResponse().getContentAsString();
+            cursor = JsonPath.read(body, "$.nextCursor");
+        }
+        assertNull(cursor);
+    }
+
+    @Test
+    void listWithoutParametersReturnsTheFirstPage() throws Exception {
+        // Primera página de products.page.max-size por id, no la tabla completa
+        mockMvc.perform(get("/api/products").header("Authorization", adminToken))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items.length()").value(PRODUCTS))
+            .andExpect(jsonPath("$.items[0].sku").value("sku0"))
+            .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void tamperedAndForeignCursorsAreRejected() throws Exception {
+        String priceCursor = JsonPath.read(mockMvc.perform(get("/api/products")
+                .header("Authorization", adminToken)
+                .param("sort", "price")
+                .param("size", "2"))
+            .andReturn().getResponse().getContentAsString(), "$.nextCursor");
+
+        // Sin sort, el cursor continúa en su propio orden
+        mockMvc.perform(get("/api/products")
+                .header("Authorization", adminToken)
+                .param("cursor", priceCursor)
+                .param("size", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items[0].price").value(800));
+        // Un cursor de otro orden no se aplica
+        mockMvc.perform(get("/api/products")
+                .header("Authorization", adminToken)
+                .param("cursor", priceCursor)
+                .param("sort", "id"))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/products")
+                .header("Authorization", adminToken)
+                .param("cursor", priceCursor)
+                .param("page", "1"))
+            .andExpect(status().isBadRequest());
+
+        for (String tampered : new String[] {"no base64!", cursor("i:abc"), cursor("p:1"), cursor("x:1"),
+                cursor("i:1:2"), cursor("p:1:99999999999999999999"), ""}) {
+            mockMvc.perform(get("/api/products")
+                    .header("Authorization", adminToken)
+                    .param("cursor", tampered))
+                .andExpect(status().isBadRequest());
+        }
+        mockMvc.perform(get("/api/products")
+                .header("Authorization", adminToken)
+                .param("sort", "name"))
+            .andExpect(status().isBadRequest());
+
+        // Bien formado pero más allá del último producto: página vacía
+        mockMvc.perform(get("/api/products")
+                .header("Authorization", adminToken)
+                .param("cursor", cursor("i:" + Long.MAX_VALUE)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items.length()").value(0))
+            .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void lookupByIdsKeepsTheRequestOrderAndReportsMissingIds() throws Exception {
+        List<Product> products = productRepository.findByOrderByIdAsc(Limit.of(3));
+        Long id0 = products.get(0).getId();
+        Long id1 = products.get(1).getId();
+        Long id2 = products.get(2).getId();
+
+        // Los repetidos salen una vez, en la posición de su primera aparición
+        mockMvc.perform(get("/api/products")
+                .header("Authorization", adminToken)
+                .param("ids", id2 + "," + id0 + ",999999," + id1 + "," + id2))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items.length()").value(3))
+            .andExpect(jsonPath("$.items[0].id").value(id2))
+            .andExpect(jsonPath("$.items[1].id").value(id0))
+            .andExpect(jsonPath("$.items[2].id").value(id1))
+            .andExpect(jsonPath("$.missing.length()").value(1))
+            .andExpect(jsonPath("$.missing[0]").value(999999));
+        mockMvc.perform(post("/api/products/lookup")
+                .header("Authorization", adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[" + id1 + "," + id0 + "]"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items[0].id").value(id1))
+            .andExpect(jsonPath("$.items[1].id").value(id0))
+            .andExpect(jsonPath("$.missing.length()").value(0));
+        mockMvc.perform(post("/api/products/lookup")
+                .header("Authorization", adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items.length()").value(0));
+    }
+
+    @Test
+    void lookupRejectsTooManyOrNullIds() throws Exception {
+        lookup(LongStream.rangeClosed(1, 100).boxed().toList().toString()).andExpect(status().isOk());
+        lookup(LongStream.rangeClosed(1, 101).boxed().toList().toString()).andExpect(status().isBadRequest());
+        lookup("[1,null,2]").andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/products")
+                .header("Authorization", adminToken)
+                .param("ids", "1,2")
+                .param("size", "2"))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/products")
+                .header("Authorization", adminToken)
+                .param("ids", "1,x"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void duplicateSkusAreConflicts() throws Exception {
+        List<Product> products = productRepository.findByOrderByIdAsc(Limit.of(2));
+
+        // El índice único rechaza el duplicado que no detecta la validación
+        mockMvc.perform(post("/api/products")
+                .header("Authorization", adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"sku\":\"sku0\",\"name\":\"dup\",\"price\":900,\"description\":\"d\"}"))
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.sku").exists());
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/products/{id}", products.get(1).getId())
+                .header("Authorization", adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"sku\":\"sku0\",\"name\":\"dup\",\"price\":900,\"description\":\"d\"}"))
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.sku").exists());
+        assertEquals(PRODUCTS, productRepository.count());
+        assertEquals("sku1", productRepository.findById(products.get(1).getId()).orElseThrow().getSku());
+
+        // Conservar el propio SKU no es un duplicado
+        put(products.get(0).getId(), null).andExpect(status().isCreated());
+    }
+
+    @Test
+    void atomicBatchesApplyEveryOperationOrNone() throws Exception {
+        List<Product> products = productRepository.findByOrderByIdAsc(Limit.of(3));
+        batch("{\"operations\":[" + createOp("b1", 900) + "," + updateOp(products.get(0).getId(), "u0", "updated0") + ","
+                + deleteOp(products.get(2).getId()) + "]}")
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.committed").value(true))
+            .andExpect(jsonPath("$.results[0].status").value(201))
+            .andExpect(jsonPath("$.results[0].product.id").exists())
+            .andExpect(jsonPath("$.results[1].status").value(200))
+            .andExpect(jsonPath("$.results[1].product.name").value("updated0"))
+            .andExpect(jsonPath("$.results[2].status").value(200));
+        assertEquals(PRODUCTS, productRepository.count());
+
+        // Todo o nada: el id inexistente deshace también la modificación y el alta
+        batch("{\"operations\":[" + updateOp(products.get(0).getId(), "u9", "updated9") + ","
+                + createOp("b2", 900) + "," + deleteOp(999999L) + "]}")
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.committed").value(false))
+            .andExpect(jsonPath("$.results[0].status").value(424))
+            .andExpect(jsonPath("$.results[1].status").value(424))
+            .andExpect(jsonPath("$.results[2].status").value(404));
+        assertEquals("updated0", productRepository.findById(products.get(0).getId()).orElseThrow().getName());
+        assertEquals(PRODUCTS, productRepository.count());
+
+        batch("{\"operations\":[]}").andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void bestEffortBatchesSkipOnlyTheFailedOperations() throws Exception {
+        // Los productos de prueba se guardan con el repositorio, fuera del filtro de SKU
+        AopTestUtils.<ProductServiceImpl>getTargetObject(productService).rebuildSkuFilter();
+        List<Product> products = productRepository.findByOrderByIdAsc(Limit.of(4));
+        Product stale = products.get(3);
+        batch("{\"mode\":\"best-effort\",\"operations\":["
+                + createOp("ok1", 900) + ","
+                + createOp("bad", 100) + ","
+                + createOp("sku1", 900) + ","
+                + createOp("ok1", 900) + ","
+                + updateOp(999999L, "u9", "missing") + ","
+                + deleteOp(999999L) + ","
+                + "{\"op\":\"update\",\"id\":" + stale.getId() + ",\"version\":" + (stale.getVersion() + 1)
+                + ",\"product\":{\"sku\":\"u3\",\"name\":\"stale3\",\"price\":900,\"description\":\"d\"}},"
+                + "{\"id\":1},"
+                + updateOp(products.get(0).getId(), "u0", "updated0") + ","
+                + deleteOp(products.get(1).getId()) + "]}")
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.committed").value(true))
+            .andExpect(jsonPath("$.results[0].status").value(201))
+            .andExpect(jsonPath("$.results[1].status").value(400))
+            .andExpect(jsonPath("$.results[1].errors.price").exists())
+            .andExpect(jsonPath("$.results[2].status").value(409))
+            .andExpect(jsonPath("$.results[3].status").value(409))
+            .andExpect(jsonPath("$.results[4].status").value(404))
+            .andExpect(jsonPath("$.results[5].status").value(404))
+            .andExpect(jsonPath("$.results[6].status").value(412))
+            .andExpect(jsonPath("$.results[7].status").value(400))
+            .andExpect(jsonPath("$.results[8].status").value(200))
+            .andExpect(jsonPath("$.results[9].status").value(200));
+
+        // Se aplican el alta, la modificación y el borrado válidos; nada más
+        assertEquals(PRODUCTS, productRepository.count());
+        assertEquals("updated0", productRepository.findById(products.get(0).getId()).orElseThrow().getName());
+        assertFalse(productRepository.existsById(products.get(1).getId()));
+        assertEquals("product3", productRepository.findById(stale.getId()).orElseThrow().getName());
+        assertEquals(1, productRepository.findAll().stream().filter(product -> "ok1".equals(product.getSku())).count());
+    }
+
+    @Test
+    void searchRanksMatchesAndFollowsCommittedChanges() throws Exception {
+        // Los productos de prueba se guardan con el repositorio, fuera del índice
+        AopTestUtils.<ProductServiceImpl>getTargetObject(productService).rebuildSearchIndex();
+        search("PRODUCT2 nada")
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].sku").value("sku2"));
+        search("inexistente").andExpect(jsonPath("$.length()").value(0));
+
+        // El nombre pesa más que la descripción
+        String created = mockMvc.perform(post("/api/products")
+                .header("Authorization", adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"sku\":\"lamp\",\"name\":\"Lámpara de mesa\",\"price\":900,"
+                    + "\"description\":\"Luz cálida\"}"))
+            .andExpect(status().isCreated())
+            .andReturn().getResponse().getContentAsString();
+        mockMvc.perform(post("/api/products")
+                .header("Authorization", adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"sku\":\"bulb\",\"name\":\"Bombilla\",\"price\":600,"
+                    + "\"description\":\"Para lampara de pie\"}"))
+            .andExpect(status().isCreated());
+        search("lampara")
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[0].sku").value("lamp"))
+            .andExpect(jsonPath("$[1].sku").value("bulb"));
+
+        Integer id = JsonPath.read(created, "$.id");
+        mockMvc.perform(patch("/api/products/" + id)
+                .header("Authorization", adminToken)
+                .contentType("application/merge-patch+json")
+                .content("{\"name\":\"Flexo\"}"))
+            .andExpect(status().isOk());
+        search("flexo").andExpect(jsonPath("$[0].sku").value("lamp"));
+        search("mesa").andExpect(jsonPath("$.length()").value(0));
+
+        // Un lote deshecho no llega al índice
+        batch("{\"operations\":[" + createOp("desk", 900).replace("batch desk", "Escritorio") + ","
+                + deleteOp(999999L) + "]}")
+            .andExpect(status().isConflict());
+        search("escritorio").andExpect(jsonPath("$.length()").value(0));
+
+        mockMvc.perform(delete("/api/products/" + id).header("Authorization", adminToken))
+            .andExpect(status().isOk());
+        search("flexo").andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    void exportStreamsEveryProductAsOneJsonLine() throws Exception {
+        String body = export(null).andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(PRODUCTS, lines.length);
+        for (int i = 0; i < PRODUCTS; i++) {
+            assertEquals("sku" + i, JsonPath.read(lines[i], "$.sku"));
+            assertEquals(1000 - i * 100, (int) JsonPath.read(lines[i], "$.price"));
+        }
+
+        // Comprimido, el contenido es el mismo
+        byte[] gzipped = export("gzip").andReturn().getResponse().getContentAsByteArray();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            assertEquals(body, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void importReportsRowErrorsAndRejectsBadCsvHeaders() throws Exception {
+        mockMvc.perform(post("/api/products/import")
+                .header("Authorization", adminToken)
+                .contentType("text/csv")
+                .content("sku,name,price,description\ncsv1,csvimport1,700,d\ncsv2,csvimport2,100,d\n"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.received").value(2))
+            .andExpect(jsonPath("$.imported").value(1))
+            .andExpect(jsonPath("$.errors[0].row").value(3))
+            .andExpect(jsonPath("$.errors[0].errors.price").exists());
+
+        mockMvc.perform(post("/api/products/import")
+                .header("Authorization", adminToken)
+                .contentType("text/csv")
+                .content("sku;name;price;description\ncsv3;csvimport3;700;d\n"))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/products/import")
+                .header("Authorization", adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+            .andExpect(status().isUnsupportedMediaType());
+    }
+
+    @Test
+    void exportIsCompressedOnlyWhenGzipIsAcceptable() throws Exception {
+        export("gzip").andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+        export("GZIP;Q=0.5").andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+        export("br, *;q=0.1").andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+
+        // q=0 rechaza la codificación, también frente a un comodín que la admitiría
+        export("gzip;q=0").andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+        export("gzip; q=0.0, *").andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+        export("*;q=0").andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+        export("identity, deflate").andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+        export("gzipped").andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+        export(null).andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+            .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)));
+    }
+
+    @Test
+    void patchHonoursPreferReturnMinimal() throws Exception {
+        Long id = productRepository.findByOrderByIdAsc(Limit.of(1)).get(0).getId();
+
+        patchPrice(id, 900, "return=minimal")
+            .andExpect(status().isNoContent())
+            .andExpect(header().string("Preference-Applied", "return=minimal"));
+        patchPrice(id, 901, "respond-async, RETURN = \"Minimal\"; foo=bar")
+            .andExpect(status().isNoContent());
+
+        patchPrice(id, 902, "return=representation")
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.price").value(902));
+        patchPrice(id, 903, "handling=return=minimal")
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("Preference-Applied"));
+    }
+
+    @Test
+    void mergePatchKeepsOmittedFieldsAndValidatesTheResult() throws Exception {
+        Product product = productRepository.findByOrderByIdAsc(Limit.of(1)).get(0);
+        String tag = "\"" + product.getVersion() + "\"";
+        patchPrice(product.getId(), 1500, "return=minimal").andExpect(status().isNoContent());
+
+        // La versión anterior ya no sirve; el resto de campos no cambia
+        mockMvc.perform(patch("/api/products/{id}", product.getId())
+                .header("Authorization", adminToken)
+                .header(HttpHeaders.IF_MATCH, tag)
+                .contentType("application/merge-patch+json")
+                .content("{\"name\":\"patched\"}"))
+            .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(patch("/api/products/{id}", product.getId())
+                .header("Authorization", adminToken)
+                .contentType("application/merge-patch+json")
+                .content("{\"name\":\"patched\"}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.name").value("patched"))
+            .andExpect(jsonPath("$.price").value(1500))
+            .andExpect(jsonPath("$.sku").value("sku0"))
+            .andExpect(jsonPath("$.description").value("description0"));
+
+        mockMvc.perform(patch("/api/products/{id}", product.getId())
+                .header("Authorization", adminToken)
+                .contentType("application/merge-patch+json")
+                .content("{\"price\":100,\"sku\":null,\"id\":7}"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.id").exists());
+        mockMvc.perform(patch("/api/products/{id}", product.getId())
+                .header("Authorization", adminToken)
+                .contentType("application/merge-patch+json")
+                .content("{\"price\":100,\"sku\":null}"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.price").exists())
+            .andExpect(jsonPath("$.sku").exists());
+        // Los rechazos no modifican el producto
+        assertEquals(1500, productRepository.findById(product.getId()).orElseThrow().getPrice());
+    }
+
+    @Test
+    void ifMatchIsCheckedAgainstTheCurrentVersion() throws Exception {
+        Long id = productRepository.findByOrderByIdAsc(Limit.of(1)).get(0).getId();
+        String tag = mockMvc.perform(get("/api/products/{id}", id).header("Authorization", adminToken))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // If-Match usa comparación fuerte: la versión correcta como ETag débil no coincide
+        put(id, "W/" + tag).andExpect(status().isPreconditionFailed());
+        put(id, "\"otro\"").andExpect(status().isPreconditionFailed());
+        put(id, "\"999\", " + tag).andExpect(status().isCreated());
+        put(id, tag).andExpect(status().isPreconditionFailed());
+        put(id, "*").andExpect(status().isCreated());
+
+        mockMvc.perform(delete("/api/products/{id}", id)
+                .header("Authorization", adminToken)
+                .header(HttpHeaders.IF_MATCH, tag))
+            .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete("/api/products/{id}", id)
+                .header("Authorization", adminToken)
+                .header(HttpHeaders.IF_MATCH, "*"))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void etagsChangeWhenTheProductChanges() throws Exception {
+        Long id = productRepository.findByOrderByIdAsc(Limit.of(1)).get(0).getId();
+        String productTag = mockMvc.perform(get("/api/products/{id}", id).header("Authorization", adminToken))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String catalogTag = mockMvc.perform(get("/api/products").header("Authorization", adminToken))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/products/{id}", id)
+                .header("Authorization", adminToken)
+                .header(HttpHeaders.IF_NONE_MATCH, "W/" + productTag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+
+        String updatedTag = put(id, productTag)
+            .andExpect(status().isCreated())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(productTag, updatedTag);
+
+        // Tras el cambio, los ETags anteriores ya no valen
+        mockMvc.perform(get("/api/products/{id}", id)
+                .header("Authorization", adminToken)
+                .header(HttpHeaders.IF_NONE_MATCH, productTag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, updatedTag));
+        mockMvc.perform(get("/api/products")
+                .header("Authorization", adminToken)
+                .header(HttpHeaders.IF_NONE_MATCH, catalogTag))
+            .andExpect(status().isOk());
+        mockMvc.perform(get("/api/products/{id}", id)
+                .header("Authorization", adminToken)
+                .header(HttpHeaders.IF_NONE_MATCH, productTag + ", " + updatedTag))
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void ifMatchOnMissingProductIsPreconditionFailed() throws Exception {
+        long missing = 999999;
+        put(missing, null).andExpect(status().isNotFound());
+        put(missing, "*").andExpect(status().isPreconditionFailed());
+        put(missing, "\"0\"").andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(delete("/api/products/{id}", missing).header("Authorization", adminToken))
+            .andExpect(status().isNotFound());
+        mockMvc.perform(delete("/api/products/{id}", missing)
+                .header("Authorization", adminToken)
+                .header(HttpHeaders.IF_MATCH, "*"))
+            .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(patch("/api/products/{id}", missing)
+                .header("Authorization", adminToken)
+                .contentType("application/merge-patch+json")
+                .content("{\"price\":700}"))
+            .andExpect(status().isNotFound());
+        mockMvc.perform(patch("/api/products/{id}", missing)
+                .header("Authorization", adminToken)
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .contentType("application/merge-patch+json")
+                .content("{\"price\":700}"))
+            .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void catalogVersionIsSharedThroughTheChangeLog() throws Throwable {
+        withoutCachedCatalogVersion(() -> {
+            String before = listTag();
+            mockMvc.perform(get("/api/products")
+                    .header("Authorization", adminToken)
+                    .header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isNotModified());
+
+            // Cambio confirmado por otra instancia: no pasa por el servicio de esta
+            Long id = productRepository.findByOrderByIdAsc(Limit.of(1)).get(0).getId();
+            otherInstance(() -> productRepository.patch(id, Map.of("price", 777), null));
+
+            String after = mockMvc.perform(get("/api/products")
+                    .header("Authorization", adminToken)
+                    .header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+            assertNotEquals(before, after);
+        });
+    }
+
+    @Test
+    void catalogVersionDetectsADeleteCancelledByALowerIdInsert() throws Throwable {
+        withoutCachedCatalogVersion(() -> {
+            mockMvc.perform(post("/api/products")
+                    .header("Authorization", adminToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"sku\":\"lamp\",\"name\":\"Lámpara de pie\",\"price\":900,"
+                        + "\"description\":\"Luz fría\"}"))
+                .andExpect(status().isCreated());
+            long count = productRepository.count();
+            String before = listTag();
+
+            // Se elimina un producto sin modificar y otra instancia confirma tarde
+            // un alta con un id de su bloque, menor que el de A: el número de
+            // productos, el id máximo y la suma de versiones no cambian
+            Product deleted = productRepository.findByOrderByIdAsc(Limit.of(1)).get(0);
+            assertEquals(0, deleted.getVersion());
+            otherInstance(() -> productRepository.deleteById(deleted.getId()));
+            otherInstance(() -> jdbcTemplate.update(
+                "insert into products (id, sku, name, description, price, version) values (?, ?, ?, ?, ?, 0)",
+                deleted.getId(), "desk", "Escritorio", "Madera", 900));
+            assertEquals(count, productRepository.count());
+
+            mockMvc.perform(get("/api/products")
+                    .header("Authorization", adminToken)
+                    .header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk());
+        });
+    }
+
+    /**
+     * Ejecuta el cuerpo sin reutilizar la versión del catálogo leída, para
+     * ver al momento los cambios de otras instancias.
+     */
+    private void withoutCachedCatalogVersion(Executable body) throws Throwable {
+        ProductService target = AopTestUtils.getTargetObject(productService);
+        Object ttl = ReflectionTestUtils.getField(target, "catalogVersionTtl");
+        ReflectionTestUtils.setField(target, "catalogVersionTtl", Duration.ZERO);
+        ReflectionTestUtils.setField(target, "cachedCatalogVersion", null);
+        try {
+            body.execute();
+        } finally {
+            ReflectionTestUtils.setField(target, "catalogVersionTtl", ttl);
+        }
+    }
+
+    /**
+     * Confirma un cambio como lo haría otra instancia: en su propia
+     * transacción y con su fila en el registro de cambios, sin pasar por el
+     * servicio de esta.
+     */
+    private void otherInstance(Runnable change) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            change.run();
+            productChangeRepository.save(new ProductChange(Instant.now()));
+        });
+    }
+
+    private String listTag() throws Exception {
+        return mockMvc.perform(get("/api/products").header("Authorization", adminToken))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    @Test
+    void corsAllowsConditionalRequestsFromBrowsers() throws Exception {
+        mockMvc.perform(options("/api/products/{id}", 1)
+                .header(HttpHeaders.ORIGIN, "https://app.example.com")
+                .header(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD, "PATCH")
+                .header(HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS, "authorization, content-type, if-match, prefer"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ACCESS_CONTROL_ALLOW_METHODS, containsString("PATCH")))
+            .andExpect(header().string(HttpHeaders.ACCESS_CONTROL_ALLOW_HEADERS, containsString("if-match")));
+
+        mockMvc.perform(get("/api/products")
+                .header("Authorization", adminToken)
+                .header(HttpHeaders.ORIGIN, "https://app.example.com"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS,
+                "ETag, Preference-Applied, Retry-After"));
+    }
+
+    private static String cursor(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private ResultActions put(long id, String ifMatch) throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.put("/api/products/{id}", id)
+            .header("Authorization", adminToken)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"sku\":\"sku0\",\"name\":\"renamed\",\"price\":1000,\"description\":\"d\"}");
+        if (ifMatch != null) {
+            request.header(HttpHeaders.IF_MATCH, ifMatch);
+        }
+        return mockMvc.perform(request);
+    }
+
+    private ResultActions search(String query) throws Exception {
+        return mockMvc.perform(get("/api/products/search").param("q", query).header("Authorization", adminToken))
+            .andExpect(status().isOk());
+    }
+
+    private ResultActions batch(String body) throws Exception {
+        return mockMvc.perform(post("/api/products/batch")
+            .header("Authorization", adminToken)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(body));
+    }
+
+    private static String createOp(String sku, int price) {
+        return "{\"op\":\"create\",\"product\":{\"sku\":\"" + sku + "\",\"name\":\"batch " + sku
+            + "\",\"price\":" + price + ",\"description\":\"d\"}}";
+    }
+
+    private static String updateOp(Long id, String sku, String name) {
+        return "{\"op\":\"update\",\"id\":" + id + ",\"product\":{\"sku\":\"" + sku + "\",\"name\":\""
+            + name + "\",\"price\":900,\"description\":\"d\"}}";
+    }
+
+    private static String deleteOp(Long id) {
+        return "{\"op\":\"delete\",\"id\":" + id + "}";
+    }
+
+    private ResultActions lookup(String ids) throws Exception {
+        return mockMvc.perform(post("/api/products/lookup")
+            .header("Authorization", adminToken)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(ids));
+    }
+
+    private ResultActions export(String acceptEncoding) throws Exception {
+        MockHttpServletRequestBuilder request = get("/api/products/export").header("Authorization", adminToken);
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        MvcResult result = mockMvc.perform(request)
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        return mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_NDJSON));
+    }
+
+    private ResultActions patchPrice(Long id, int price, String prefer) throws Exception {
+        return mockMvc.perform(patch("/api/products/{id}", id)
+            .header("Authorization", adminToken)
+            .header("Prefer", prefer)
+            .contentType("application/merge-patch+json")
+            .content("{\"price\":" + price + "}"));
+    }
+}
@@ -0,0 +1,415 @@
+package com.german.apirest.springboot.app.springbootcrud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.jayway.jsonpath.JsonPath;
+
+import com.german.apirest.springboot.app.springbootcrud.entities.Product;
+import com.german.apirest.springboot.app.springbootcrud.entities.Role;
+import com.german.apirest.springboot.app.springbootcrud.entities.User;
+import com.german.apirest.springboot.app.springbootcrud.repositories.ProductRepository;
+import com.german.apirest.springboot.app.springbootcrud.repositories.RefreshTokenRepository;
+import com.german.apirest.springboot.app.springbootcrud.repositories.RoleRepository;
+import com.german.apirest.springboot.app.springbootcrud.repositories.UserRepository;
+import com.german.apirest.springboot.app.springbootcrud.security.RoleRegistry;
+import com.german.apirest.springboot.app.springbootcrud.security.UserDetailsCache;
+import com.german.apirest.springboot.app.springbootcrud.services.ProductService;
+import com.german.apirest.springboot.app.springbootcrud.services.ProductServiceImpl;
+import com.german.apirest.springboot.app.springbootcrud.services.UserService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Comprueba el número de sentencias SQL que ejecuta cada endpoint, de modo
+ * que un N+1 o una consulta de más hagan fallar el build. El contenido de
+ * las respuestas se comprueba en las pruebas de cada funcionalidad, como
+ * {@link ProductControllerTests}.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SqlStatementCountTests {
+
+    private static final int USERS = 5;
+
+    private static final int PRODUCTS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+        if (roleRepository.findByName("ROLE_USER").isEmpty()) {
+            roleRepository.save(new Role("ROLE_USER"));
+            roleRepository.save(new Role("ROLE_ADMIN"));
+            roleRegistry.reload();
+        }
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setUsername("user" + i);
+            user.setPassword("secret" + i);
+            user.setAdmin(i % 2 == 0);
+            userService.save(user);
+            userDetailsCache.evict(user.getUsername());
+        }
+        productRepository.deleteAll();
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = new Product();
+            product.setSku("sku" + i);
+            product.setName("product" + i);
+            product.setDescription("description" + i);
+            product.setPrice(1000 - i * 100);
+            productRepository.save(product);
+        }
+        // La versión del catálogo queda leída, como en una instancia en marcha
+        productService.catalogVersion();
+        SqlStatementCounter.reset();
+    }
+
+    @Test
+    void listUsersRunsSingleQuery() throws Exception {
+        mockMvc.perform(get("/api/users"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(USERS))
+            .andExpect(jsonPath("$[0].roles[0].name").exists());
+
+        assertEquals(1, SqlStatementCounter.count(), SqlStatementCounter.statements()::toString);
+    }
+
+    @Test
+    void loginLoadsUserWithRolesInOneQuery() throws Exception {
+        // Usuario con roles, id del usuario para el token de refresco e insert del token
+        login();
+        assertEquals(3, SqlStatementCounter.count(), SqlStatementCounter.statements()::toString);
+
+        // El segundo login sale de la caché de UserDetails
+        SqlStatementCounter.reset();
+        login();
+        assertEquals(2, SqlStatementCounter.count(), SqlStatementCounter.statements()::toString);
+    }
+
+    @Test
+    void productPagesRunSingleQueryEach() throws Exception {
+        String token = "Bearer " + JsonPath.read(login(), "$.token");
+
+        String cursor = null;
+        do {
+            SqlStatementCounter.reset();
+            MockHttpServletRequestBuilder request = get("/api/products")
+                .header("Authorization", token)
+                .param("sort", "price")
+                .param("size", "2");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            String body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+            assertEquals(1, SqlStatementCounter.count(), SqlStatementCounter.statements()::toString);
+            cursor = JsonPath.read(body, "$.nextCursor");
+        } while (cursor != null);
+    }
+
+    @Test
+    void listWithoutParametersRunsSingleQuery() throws Exception {
+        String token = "Bearer " + JsonPath.read(login(), "$.token");
+
+        // Sin parámetros no se carga la tabla completa
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/api/products").header("Authorization", token))
+            .andExpect(status().isOk());
+        assertEquals(1, SqlStatementCounter.count(), SqlStatementCounter.statements()::toString);
+    }
+
+    @Test
+    void exportStreamsCatalogInSingleQuery() throws Exception {
+        String token = "Bearer " + JsonPath.read(login(), "$.token");
+        SqlStatementCounter.reset();
+
+        MvcResult result = mockMvc.perform(get("/api/products/export").header("Authorization", token))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk());
+        assertEquals(1, SqlStatementCounter.count(), SqlStatementCounter.statements()::toString);
+    }
+
+    @Test
+    void productsAndRolesComeFromSecondLevelCache() throws Exception {
+        String token = "Bearer " + JsonPath.read(adminLogin(), "$.token");
+        Long id = productRepository.findByOrderByIdAsc(Limit.of(1)).get(0).getId();
+
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/api/products/{id}", id).header("Authorization", token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.sku").value("sku0"));
+        roleRepository.findByName("ROLE_USER");
+        assertEquals(0, SqlStatementCounter.count(), SqlStatementCounter.statements()::toString);
+
+        // La actualización refresca la entrada de la caché
+        mockMvc.perform(put("/api/products/{id}", id)
+                .header("Authorization", token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"sku\":\"sku0\",\"name\":\"renamed\",\"price\":1000,\"description\":\"d\"}"))
+            .andExpect(status().isCreated());
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/api/products/{id}", id).header("Authorization", token))
+            .andExpect(jsonPath("$.name").value("renamed"));
+        assertEquals(0, SqlStatementCounter.count(), SqlStatementCounter.statements()::toString);
+    }
+
+    @Test
+    void bulkScansBypassSecondLevelCache() {
+        Long id = productRepository.findByOrderByIdAsc(Limit.of(1)).get(0).getId();
+        entityManagerFactory.getCache().evict(Product.class);
+
+        // El índice de búsqueda recorre el catálogo como la exportación
+        ((ProductServiceImpl) productService).rebuildSearchIndex();
+        assertFalse(entityManagerFactory.getCache().contains(Product.class, id));
+    }
+
+    @Test
+    void conditionalRequestsUseProductAndCatalogETags() throws Exception {
+        String token = "Bearer " + JsonPath.read(adminLogin(), "$.token");
+        Long id = productRepository.findByOrderByIdAsc(Limit.of(1)).get(0).getId();
+        String productTag = mockMvc.perform(get("/api/products/{id}", id).header("Authorization", token))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String catalogTag = mockMvc.perform(get("/api/products").header("Authorization", token))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Sin cambios: 304 sin consultar la base de datos
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/api/products/{id}", id)
+                .header("Authorization", token)
+                .header(HttpHeaders.IF_NONE_MATCH, productTag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+        mockMvc.perform(get("/api/products")
+                .header("Authorization", token)
+                .header(HttpHeaders.IF_NONE_MATCH, catalogTag))
+            .andExpect(status().isNotModified());
+        assertEquals(0, SqlStatementCounter.count(), SqlStatementCounter.statements()::toString);
+    }
+
+    @Test
+    void patchRunsSingleUpdate() throws Exception {
+        String token = "Bearer " + JsonPath.read(adminLogin(), "$.token");
+        Product product = productRepository.findByOrderByIdAsc(Limit.of(1)).get(0);
+        String tag = "\"" + product.getVersion() + "\"";
+
+        SqlStatementCounter.reset();
+        mockMvc.perform(patch("/api/products/{id}", product.getId())
+                .header("Authorization", token)
+                .header(HttpHeaders.IF_MATCH, tag)
+                .header("Prefer", "return=minimal")
+                .contentType("application/merge-patch+json")
+                .content("{\"price\":1500}"))
+            .andExpect(status().isNoContent())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + (product.getVersion() + 1) + "\""));
+        assertEquals(2, SqlStatementCounter.count(), SqlStatementCounter.statements()::toString);
+        // Solo se escriben el precio y la versión, y se registra el cambio del catálogo sin bloquear filas compartidas
+        assertTrue(SqlStatementCounter.statements().get(0).matches("update products \\w+ set price=\\?,version=.*"),
+            SqlStatementCounter.statements()::toString);
+        assertTrue(SqlStatementCounter.statements().get(1).startsWith("insert into product_changes"),
+            SqlStatementCounter.statements()::toString);
+
+    }
+
+    @Test
+    void lookupByIdsRunsSingleQuery() throws Exception {
+        String token = "Bearer " + JsonPath.read(login(), "$.token");
+        List<Product> products = productRepository.findByOrderByIdAsc(Limit.of(3));
+        Long id0 = products.get(0).getId();
+        Long id1 = products.get(1).getId();
+        Long id2 = products.get(2).getId();
+        entityManagerFactory.getCache().evict(Product.class);
+        mockMvc.perform(get("/api/products/{id}", id0).header("Authorization", token))
+            .andExpect(status().isOk());
+
+        // id0 sale de la caché; id2, id1 y el inexistente, de una sola consulta
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/api/products")
+                .header("Authorization", token)
+                .param("ids", id2 + "," + id0 + ",999999," + id1 + "," + id2))
+            .andExpect(status().isOk());
+        assertEquals(1, SqlStatementCounter.count(), SqlStatementCounter.statements()::toString);
+        assertTrue(SqlStatementCounter.statements().get(0).endsWith("in (?,?,?)"),
+            SqlStatementCounter.statements()::toString);
+
+        SqlStatementCounter.reset();
+        mockMvc.perform(post("/api/products/lookup")
+                .header("Authorization", token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[" + id1 + "," + id0 + "]"))
+            .andExpect(status().isOk());
+        assertEquals(0, SqlStatementCounter.count(), SqlStatementCounter.statements()::toString);
+    }
+
+    @Test
+    void batchAppliesOperationsInOneFlush() throws Exception {
+        String token = "Bearer " + JsonPath.read(adminLogin(), "$.token");
+        List<Product> products = productRepository.findByOrderByIdAsc(Limit.of(3));
+        String create = "{\"op\":\"create\",\"product\":{\"sku\":\"b%d\",\"name\":\"batch%d\","
+            + "\"price\":900,\"description\":\"d\"}}";
+        String update = "{\"op\":\"update\",\"id\":%d,\"product\":{\"sku\":\"u%d\",\"name\":\"updated%d\","
+            + "\"price\":900,\"description\":\"d\"}}";
+        String batch = "{\"operations\":["
+            + String.format(create, 1, 1) + "," + String.format(create, 2, 2) + ","
+            + String.format(update, products.get(0).getId(), 0, 0) + ","
+            + String.format(update, products.get(1).getId(), 1, 1) + ","
+            + "{\"op\":\"delete\",\"id\":" + products.get(2).getId() + "}]}";
+
+        SqlStatementCounter.reset();
+        mockMvc.perform(post("/api/products/batch")
+                .header("Authorization", token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(batch))
+            .andExpect(status().isOk());
+        // Un lote JDBC por tipo de sentencia
+        for (String prefix : new String[] {"insert into products", "update products", "delete from products"}) {
+            assertEquals(1, SqlStatementCounter.statements().stream().filter(sql -> sql.startsWith(prefix)).count(),
+                SqlStatementCounter.statements()::toString);
+        }
+        assertEquals(PRODUCTS + 1, productRepository.count());
+    }
+
+    @Test
+    void existenceChecksSkipDatabaseForNewKeys() throws Exception {
+        // Los productos de prueba se guardan con el repositorio, fuera del filtro
+        ((ProductServiceImpl) productService).rebuildSkuFilter();
+        SqlStatementCounter.reset();
+
+        assertFalse(userService.existsByUsername("nobody"));
+        assertFalse(productService.existsBySku("nosku"));
+        assertEquals(0, SqlStatementCounter.count(), SqlStatementCounter.statements()::toString);
+
+        assertTrue(userService.existsByUsername("user1"));
+        assertTrue(productService.existsBySku("sku0"));
+        assertEquals(2, SqlStatementCounter.count(), SqlStatementCounter.statements()::toString);
+
+    }
+
+    @Test
+    void searchUsesInvertedIndex() throws Exception {
+        // Los productos de prueba se guardan con el repositorio, fuera del índice
+        ((ProductServiceImpl) productService).rebuildSearchIndex();
+        entityManagerFactory.getCache().evict(Product.class);
+        String token = "Bearer " + JsonPath.read(adminLogin(), "$.token");
+
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/api/products/search").param("q", "PRODUCT2 nada").header("Authorization", token))
+            .andExpect(status().isOk());
+        // Solo la lectura por id de los resultados, sin LIKE
+        assertEquals(1, SqlStatementCounter.count(), SqlStatementCounter.statements()::toString);
+        assertFalse(SqlStatementCounter.statements().get(0).contains(" like "),
+            SqlStatementCounter.statements()::toString);
+
+        SqlStatementCounter.reset();
+        mockMvc.perform(get("/api/products/search").param("q", "inexistente").header("Authorization", token))
+            .andExpect(status().isOk());
+        assertEquals(0, SqlStatementCounter.count(), SqlStatementCounter.statements()::toString);
+
+    }
+
+    @Test
+    void importBatchesInserts() throws Exception {
+        String token = "Bearer " + JsonPath.read(adminLogin(), "$.token");
+        String ndjson = ""
+            + "{\"sku\":\"imp1\",\"name\":\"imported1\",\"price\":700,\"description\":\"d\"}\n"
+            + "{\"sku\":\"imp2\",\"name\":\"imported2\",\"price\":100,\"description\":\"d\"}\n"
+            + "{\"sku\":\"imp3\",\"name\":\"imported3\",\"price\":800,\"description\":\"d\"}\n"
+            + "{\"sku\":\"imp4\",\"name\":\"imported4\",\"price\":900,\"description\":\"d\"}\n";
+        SqlStatementCounter.reset();
+
+        mockMvc.perform(post("/api/products/import")
+                .header("Authorization", token)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(ndjson))
+            .andExpect(status().isOk());
+
+        // Los tres INSERT van en un único lote JDBC
+        long inserts = SqlStatementCounter.statements().stream()
+            .filter(sql -> sql.startsWith("insert into products"))
+            .count();
+        assertEquals(1, inserts, SqlStatementCounter.statements()::toString);
+        assertEquals(PRODUCTS + 3, productRepository.count());
+    }
+
+    private String adminLogin() throws Exception {
+        return mockMvc.perform(post("/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"user0\",\"password\":\"secret0\"}"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+    }
+
+    private String login() throws Exception {
+        return mockMvc.perform(post("/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"user1\",\"password\":\"secret1\"}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.token").exists())
+            .andReturn().getResponse().getContentAsString();
+    }
+}
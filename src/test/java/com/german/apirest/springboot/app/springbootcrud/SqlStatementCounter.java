@@ -0,0 +1,57 @@
+package com.german.apirest.springboot.app.springbootcrud;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * {@link StatementInspector} de Hibernate que registra las sentencias SQL
+ * ejecutadas, para comprobar en las pruebas cuántas consultas lanza cada
+ * endpoint.
+ * <p>
+ * Se registra con la propiedad
+ * <code>spring.jpa.properties.hibernate.session_factory.statement_inspector</code>
+ * del perfil <code>test</code>.
+ * </p>
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final List<String> statements = new CopyOnWriteArrayList<>();
+
+    /**
+     * Registra la sentencia y la devuelve sin modificar.
+     *
+     * @param sql sentencia SQL.
+     * @return la misma sentencia.
+     */
+    @Override
+    public String inspect(String sql) {
+        statements.add(sql);
+        return sql;
+    }
+
+    /**
+     * Descarta las sentencias registradas.
+     */
+    public static void reset() {
+        statements.clear();
+    }
+
+    /**
+     * @return número de sentencias registradas desde el último {@link #reset()}.
+     */
+    public static int count() {
+        return statements.size();
+    }
+
+    /**
+     * @return sentencias registradas desde el último {@link #reset()}.
+     */
+    public static List<String> statements() {
+        return List.copyOf(statements);
+    }
+}
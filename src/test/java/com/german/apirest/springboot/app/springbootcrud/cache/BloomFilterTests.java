@@ -0,0 +1,96 @@
+package com.german.apirest.springboot.app.springbootcrud.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de {@link BloomFilter}: dimensionado, ausencia de falsos
+ * negativos (también con escrituras concurrentes) y tasa de falsos
+ * positivos.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+class BloomFilterTests {
+
+    @Test
+    void sizingFollowsTheExpectedInsertionsAndRate() {
+        // m = -n ln p / (ln 2)^2 = 9586 bits, redondeado a palabras de 64; k = m/n ln 2 = 7
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        assertEquals(9600, filter.getBitCount());
+        assertEquals(7, filter.getHashFunctions());
+
+        BloomFilter small = new BloomFilter(1, 0.5);
+        assertEquals(64, small.getBitCount());
+        assertTrue(small.getHashFunctions() >= 1);
+
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(10, 1));
+    }
+
+    @Test
+    void noFalseNegativesAndBoundedFalsePositives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        List<String> added = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            String value = UUID.randomUUID().toString();
+            filter.add(value);
+            added.add(value);
+        }
+        for (String value : added) {
+            assertTrue(filter.mightContain(value), value);
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("ausente-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < probes * 0.02, "falsos positivos: " + falsePositives);
+        assertFalse(new BloomFilter(10, 0.01).mightContain("vacío"));
+    }
+
+    @Test
+    void concurrentAddsAreNotLost() throws Exception {
+        // Filtro pequeño: muchos hilos escriben en las mismas palabras a la vez
+        BloomFilter filter = new BloomFilter(2000, 0.2);
+        int threads = 8;
+        int perThread = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        filter.add(thread + ":" + i);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < perThread; i++) {
+                assertTrue(filter.mightContain(t + ":" + i));
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.german.apirest.springboot.app.springbootcrud.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de {@link BoundedExpiringCache}: caducidad, límite de capacidad
+ * y contadores.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+class BoundedExpiringCacheTests {
+
+    @Test
+    void entriesExpireAtTheirDeadline() {
+        BoundedExpiringCache<String, String> cache = new BoundedExpiringCache<>(10);
+        cache.put("a", "A", 100, 0);
+
+        assertEquals("A", cache.get("a", 99));
+        assertNull(cache.get("a", 100));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getEvictions());
+
+        // Un valor ya caducado no llega a guardarse
+        cache.put("b", "B", 50, 50);
+        assertEquals(0, cache.size());
+        assertNull(cache.get("b", 0));
+    }
+
+    @Test
+    void fullCachePurgesExpiredEntriesBeforeEvicting() {
+        BoundedExpiringCache<String, String> cache = new BoundedExpiringCache<>(3);
+        cache.put("a", "A", 100, 0);
+        cache.put("b", "B", 1000, 0);
+        cache.put("c", "C", 1000, 0);
+
+        cache.put("d", "D", 1000, 200);
+        assertEquals(3, cache.size());
+        assertNull(cache.get("a", 200));
+        assertEquals("B", cache.get("b", 200));
+        assertEquals("C", cache.get("c", 200));
+        assertEquals("D", cache.get("d", 200));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void fullCacheEvictsWhenNothingHasExpired() {
+        BoundedExpiringCache<Integer, Integer> cache = new BoundedExpiringCache<>(4);
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, i, 1000, 0);
+            assertEquals(Math.min(i + 1, 4), cache.size());
+        }
+        assertEquals(99, cache.get(99, 0));
+        assertEquals(96, cache.getEvictions());
+
+        // Reemplazar una clave existente no expulsa a nadie
+        cache.put(99, -1, 1000, 0);
+        assertEquals(-1, cache.get(99, 0));
+        assertEquals(96, cache.getEvictions());
+    }
+
+    @Test
+    void invalidateClearAndHitRatio() {
+        BoundedExpiringCache<String, String> cache = new BoundedExpiringCache<>(10);
+        assertEquals(0, cache.getHitRatio());
+        cache.put("a", "A", 1000, 0);
+        cache.put("b", "B", 1000, 0);
+
+        cache.get("a", 0);
+        cache.invalidate("a");
+        cache.get("a", 0);
+        assertEquals(0.5, cache.getHitRatio());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertThrows(IllegalArgumentException.class, () -> new BoundedExpiringCache<String, String>(0));
+    }
+}
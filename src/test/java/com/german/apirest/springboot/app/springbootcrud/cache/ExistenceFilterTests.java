@@ -0,0 +1,92 @@
+package com.german.apirest.springboot.app.springbootcrud.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de {@link ExistenceFilter}: estado sin cargar y altas
+ * confirmadas mientras se reconstruye el filtro.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+class ExistenceFilterTests {
+
+    @Test
+    void everythingMightExistUntilLoaded() {
+        ExistenceFilter filter = new ExistenceFilter(() -> List.of("a", "b"), 100, 0.01);
+        assertTrue(filter.mightContain("z"));
+
+        filter.rebuild();
+        assertTrue(filter.mightContain("a"));
+        assertFalse(filter.mightContain("z"));
+        assertEquals(2, filter.size());
+        assertTrue(filter.mightContain(null));
+    }
+
+    @Test
+    void keysAddedWhileLoadingAreKept() {
+        List<String> database = new ArrayList<>(List.of("a"));
+        ExistenceFilter[] holder = new ExistenceFilter[1];
+        ExistenceFilter filter = new ExistenceFilter(() -> {
+            List<String> read = List.copyOf(database);
+            // Alta confirmada después de que la lectura haya pasado por su posición
+            database.add("b");
+            holder[0].add("b");
+            return read;
+        }, 100, 0.01);
+        holder[0] = filter;
+
+        filter.rebuild();
+        assertTrue(filter.mightContain("a"));
+        assertTrue(filter.mightContain("b"));
+        assertEquals(1, filter.size());
+    }
+
+    @Test
+    void rebuildRacingAddLosesNoKey() throws Exception {
+        List<String> database = new CopyOnWriteArrayList<>();
+        ExistenceFilter filter = new ExistenceFilter(() -> List.copyOf(database), 16, 0.01);
+        filter.rebuild();
+
+        AtomicInteger published = new AtomicInteger();
+        AtomicBoolean stop = new AtomicBoolean();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; !stop.get() && i < 20_000; i++) {
+                    // Primero el commit y después el aviso al filtro, como en los servicios
+                    database.add("k" + i);
+                    filter.add("k" + i);
+                    published.set(i + 1);
+                }
+            });
+
+            int rebuilds = 0;
+            while (!writer.isDone()) {
+                filter.rebuild();
+                rebuilds++;
+                int visible = published.get();
+                for (int i = 0; i < visible; i++) {
+                    assertTrue(filter.mightContain("k" + i), "k" + i + " tras " + rebuilds + " reconstrucciones");
+                }
+            }
+            writer.get();
+        } finally {
+            stop.set(true);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.german.apirest.springboot.app.springbootcrud.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de {@link LongIntHashMap} comparando con un {@link HashMap}:
+ * inserción, sustitución, crecimiento y copias independientes.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+class LongIntHashMapTests {
+
+    private static final int MISSING = Integer.MIN_VALUE;
+
+    @Test
+    void putAndGetMatchAHashMapWhileGrowing() {
+        LongIntHashMap map = new LongIntHashMap(1);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            // Rango pequeño para repetir claves; incluye 0 y negativas
+            long key = random.nextInt(5000) - 100;
+            int value = random.nextInt();
+            map.put(key, value);
+            expected.put(key, value);
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = -200; key < 5100; key++) {
+            assertEquals(expected.getOrDefault(key, MISSING), map.get(key, MISSING), "clave " + key);
+        }
+    }
+
+    @Test
+    void zeroAndExtremeKeysAreRegularKeys() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        assertEquals(MISSING, map.get(0, MISSING));
+
+        map.put(0, 1);
+        map.put(Long.MIN_VALUE, 2);
+        map.put(Long.MAX_VALUE, 3);
+        map.put(0, 4);
+
+        assertEquals(3, map.size());
+        assertEquals(4, map.get(0, MISSING));
+        assertEquals(2, map.get(Long.MIN_VALUE, MISSING));
+        assertEquals(3, map.get(Long.MAX_VALUE, MISSING));
+    }
+
+    @Test
+    void collidingKeysSurviveResizes() {
+        // Múltiplos de una potencia de dos: mismas posiciones bajas antes de mezclar
+        LongIntHashMap map = new LongIntHashMap(4);
+        for (int i = 1; i <= 1000; i++) {
+            map.put((long) i << 32, i);
+        }
+        assertEquals(1000, map.size());
+        for (int i = 1; i <= 1000; i++) {
+            assertEquals(i, map.get((long) i << 32, MISSING));
+        }
+        assertEquals(MISSING, map.get(1001L << 32, MISSING));
+    }
+
+    @Test
+    void copiesAreIndependent() {
+        LongIntHashMap original = new LongIntHashMap(4);
+        original.put(1, 10);
+        original.put(0, 0);
+
+        LongIntHashMap copy = original.copy();
+        for (int i = 2; i < 100; i++) {
+            copy.put(i, i * 10);
+        }
+        copy.put(1, -1);
+        copy.put(0, -2);
+
+        assertEquals(2, original.size());
+        assertEquals(10, original.get(1, MISSING));
+        assertEquals(0, original.get(0, MISSING));
+        assertEquals(MISSING, original.get(50, MISSING));
+
+        assertEquals(100, copy.size());
+        assertEquals(-1, copy.get(1, MISSING));
+        assertEquals(-2, copy.get(0, MISSING));
+        assertEquals(500, copy.get(50, MISSING));
+    }
+}
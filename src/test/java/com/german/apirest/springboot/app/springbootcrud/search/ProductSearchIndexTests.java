@@ -0,0 +1,148 @@
+package com.german.apirest.springboot.app.springbootcrud.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+import com.german.apirest.springboot.app.springbootcrud.entities.Product;
+
+/**
+ * Pruebas de {@link ProductSearchIndex}: normalización, ranking BM25 y
+ * mantenimiento de las listas de apariciones al modificar y borrar.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+class ProductSearchIndexTests {
+
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    @Test
+    void textIsNormalized() {
+        assertEquals(List.of("cafe", "con", "leche", "2x1"), ProductSearchIndex.tokenize("  Café CON-leche, 2x1! "));
+        assertEquals(List.of(), ProductSearchIndex.tokenize(null));
+        assertEquals(List.of(), ProductSearchIndex.tokenize(" ,;- "));
+
+        index.put(product(1, "Camión", "Rojo"));
+        assertEquals(List.of(1L), ids(index.search("CAMION", 10)));
+        assertEquals(List.of(), index.search("", 10));
+        assertEquals(List.of(), index.search("camion", 0));
+    }
+
+    @Test
+    void rankingFollowsBm25() {
+        index.put(product(1, "Lámpara", "De mesa con luz cálida"));
+        index.put(product(2, "Mesa", "Mesa de roble"));
+        index.put(product(3, "Silla", "Silla de roble para mesa"));
+        index.put(product(4, "Estantería", "Madera de roble"));
+        index.put(product(5, "Taburete", "Alto"));
+
+        // El nombre pesa más que la descripción, y una frecuencia mayor suma
+        List<Long> mesa = ids(index.search("mesa", 10));
+        assertEquals(List.of(2L, 1L, 3L), mesa);
+
+        // Coincidir con más términos puntúa más; "lampara" es el término más raro
+        List<ProductSearchIndex.Hit> hits = index.search("roble lampara", 10);
+        assertEquals(1L, hits.get(0).id());
+        assertEquals(Set.of(1L, 2L, 3L, 4L), Set.copyOf(ids(hits)));
+        for (int i = 1; i < hits.size(); i++) {
+            assertTrue(hits.get(i - 1).score() >= hits.get(i).score());
+        }
+
+        // Con la misma puntuación, primero el id menor
+        index.put(product(7, "Cojín", "Verde"));
+        index.put(product(6, "Cojín", "Azul"));
+        assertEquals(List.of(6L, 7L), ids(index.search("cojin", 10)));
+        assertEquals(List.of(6L), ids(index.search("cojin", 1)));
+    }
+
+    @Test
+    void putReplacesThePreviousVersion() {
+        index.put(product(1, "Mesa", "Roble"));
+        index.put(product(1, "Silla", "Pino"));
+
+        assertEquals(List.of(), index.search("mesa roble", 10));
+        assertEquals(List.of(1L), ids(index.search("silla", 10)));
+        assertEquals(1, index.size());
+
+        index.remove(1);
+        index.remove(1);
+        assertEquals(List.of(), index.search("silla pino", 10));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void removalsKeepPostingsConsistentAndReuseSlots() {
+        // Todos comparten "comun": cada borrado mueve apariciones dentro de esa lista
+        Random random = new Random(42);
+        Set<Long> expected = new TreeSet<>();
+        long nextId = 1;
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 50; i++) {
+                long id = nextId++;
+                index.put(product(id, "comun p" + id, "grupo" + (id % 3)));
+                expected.add(id);
+            }
+            List<Long> candidates = new ArrayList<>(expected);
+            Collections.shuffle(candidates, random);
+            for (Long id : candidates.subList(0, candidates.size() / 2)) {
+                index.remove(id);
+                expected.remove(id);
+            }
+
+            assertEquals(expected.size(), index.size());
+            assertEquals(expected, new TreeSet<>(ids(index.search("comun", Integer.MAX_VALUE))));
+            for (Long id : expected) {
+                assertEquals(List.of(id), ids(index.search("p" + id, 10)));
+            }
+            for (int group = 0; group < 3; group++) {
+                Set<Long> inGroup = new TreeSet<>();
+                for (Long id : expected) {
+                    if (id % 3 == group) {
+                        inGroup.add(id);
+                    }
+                }
+                assertEquals(inGroup, new TreeSet<>(ids(index.search("grupo" + group, Integer.MAX_VALUE))));
+            }
+        }
+    }
+
+    @Test
+    void rebuildKeepsWritesMadeWhileLoading() {
+        index.put(product(1, "Mesa", "Roble"));
+        index.put(product(2, "Silla", "Roble"));
+
+        index.rebuild(loader -> {
+            loader.accept(product(1, "Mesa", "Roble"));
+            // Escrituras confirmadas mientras se carga: la carga ya leyó 1 en su versión anterior
+            index.put(product(1, "Mesa", "Pino"));
+            index.put(product(3, "Banco", "Roble"));
+            index.remove(2);
+            loader.accept(product(2, "Silla", "Roble"));
+        });
+
+        assertEquals(List.of(3L), ids(index.search("roble", 10)));
+        assertEquals(List.of(1L), ids(index.search("pino", 10)));
+        assertEquals(2, index.size());
+    }
+
+    private static Product product(long id, String name, String description) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription(description);
+        return product;
+    }
+
+    private static List<Long> ids(List<ProductSearchIndex.Hit> hits) {
+        return hits.stream().map(ProductSearchIndex.Hit::id).toList();
+    }
+}
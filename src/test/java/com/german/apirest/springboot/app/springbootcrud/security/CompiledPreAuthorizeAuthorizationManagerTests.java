@@ -0,0 +1,171 @@
+package com.german.apirest.springboot.app.springbootcrud.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.util.SimpleMethodInvocation;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.german.apirest.springboot.app.springbootcrud.controllers.ProductController;
+import com.german.apirest.springboot.app.springbootcrud.controllers.UserController;
+import com.german.apirest.springboot.app.springbootcrud.entities.Role;
+import com.german.apirest.springboot.app.springbootcrud.repositories.RoleRepository;
+
+/**
+ * Comprueba que {@link CompiledPreAuthorizeAuthorizationManager} concede y
+ * deniega exactamente lo mismo que {@link PreAuthorizeAuthorizationManager}
+ * y que las expresiones no válidas se detectan al compilar.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+class CompiledPreAuthorizeAuthorizationManagerTests {
+
+    private PreAuthorizeAuthorizationManager spel;
+
+    private CompiledPreAuthorizeAuthorizationManager compiled;
+
+    @BeforeEach
+    void setUp() {
+        Role admin = new Role("ROLE_ADMIN");
+        admin.setId(1L);
+        Role user = new Role("ROLE_USER");
+        user.setId(2L);
+        RoleRepository roleRepository = mock(RoleRepository.class);
+        when(roleRepository.findAll()).thenReturn(List.of(admin, user));
+        RoleRegistry roleRegistry = new RoleRegistry();
+        ReflectionTestUtils.setField(roleRegistry, "roleRepository", roleRepository);
+
+        spel = new PreAuthorizeAuthorizationManager();
+        compiled = new CompiledPreAuthorizeAuthorizationManager(() -> roleRegistry, spel);
+    }
+
+    @Test
+    void compiledAndSpelDecideTheSame() throws Exception {
+        List<Object> targets = List.of(new ProductController(), new UserController(), new Expressions());
+        for (Object target : targets) {
+            assertTrue(compiled.compile(target.getClass()) > 0);
+        }
+
+        Map<String, Authentication> callers = Map.of(
+            "admin", authenticated("ROLE_ADMIN"),
+            "user", authenticated("ROLE_USER"),
+            "ambos", authenticated("ROLE_ADMIN", "ROLE_USER"),
+            "sin roles", authenticated(),
+            "rol desconocido", authenticated("ROLE_AUDITOR"),
+            "autoridad suelta", authenticated("products:read"),
+            "anónimo", new AnonymousAuthenticationToken("key", "anonymous",
+                AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+
+        int compared = 0;
+        for (Object target : targets) {
+            for (Method method : target.getClass().getDeclaredMethods()) {
+                if (!AnnotatedElementUtils.hasAnnotation(method, PreAuthorize.class)) {
+                    continue;
+                }
+                MethodInvocation invocation = new SimpleMethodInvocation(target, method,
+                    new Object[method.getParameterCount()]);
+                for (Map.Entry<String, Authentication> caller : callers.entrySet()) {
+                    AuthorizationResult expected = spel.authorize(caller::getValue, invocation);
+                    AuthorizationResult actual = compiled.authorize(caller::getValue, invocation);
+                    assertEquals(expected.isGranted(), actual.isGranted(),
+                        method.getName() + " con " + caller.getKey());
+                    compared++;
+                }
+            }
+        }
+        assertTrue(compared > 0);
+    }
+
+    @Test
+    void invalidExpressionFailsAtCompileTime() {
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> compiled.compile(Invalid.class));
+        assertTrue(e.getMessage().contains("broken"));
+    }
+
+    @Test
+    void classesWithoutPreAuthorizeAreIgnored() {
+        assertEquals(0, compiled.compile(String.class));
+        assertEquals(0, compiled.compile(ArrayList.class));
+    }
+
+    private static Authentication authenticated(String... authorities) {
+        return UsernamePasswordAuthenticationToken.authenticated("ana", null,
+            AuthorityUtils.createAuthorityList(authorities));
+    }
+
+    /**
+     * Expresiones que el manager compila y otras que delega en SpEL.
+     */
+    static class Expressions {
+
+        @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+        public void authority() {
+        }
+
+        @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_USER')")
+        public void anyAuthority() {
+        }
+
+        @PreAuthorize("hasRole('ROLE_ADMIN')")
+        public void prefixedRole() {
+        }
+
+        @PreAuthorize("hasRole('AUDITOR')")
+        public void unregisteredRole() {
+        }
+
+        @PreAuthorize("hasAnyRole('AUDITOR', 'USER')")
+        public void partlyRegisteredRoles() {
+        }
+
+        @PreAuthorize("hasAuthority('products:read')")
+        public void plainAuthority() {
+        }
+
+        @PreAuthorize("isAuthenticated()")
+        public void authenticated() {
+        }
+
+        @PreAuthorize("hasRole('ADMIN') and hasRole('USER')")
+        public void both() {
+        }
+
+        @PreAuthorize("hasRole('ADMIN') or isAnonymous()")
+        public void adminOrAnonymous() {
+        }
+
+        @PreAuthorize("permitAll()")
+        public void everyone() {
+        }
+    }
+
+    /**
+     * Clase con una expresión que no es SpEL válido.
+     */
+    static class Invalid {
+
+        @PreAuthorize("hasRole('ADMIN') and and broken(")
+        public void broken() {
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.german.apirest.springboot.app.springbootcrud.security;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+
+/**
+ * Pruebas de rotación de {@link JwtKeyRing} con un almacén PKCS12
+ * temporal: retraso de activación de las claves nuevas, solapamiento de
+ * las sustituidas y recarga fallida.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+class JwtKeyRingTests {
+
+    private static final char[] PASSWORD = "secret".toCharArray();
+
+    private static final Duration LONG = Duration.ofHours(1);
+
+    private final Map<String, Key> keys = new HashMap<>();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void newKeysVerifyAtOnceButSignOnlyAfterTheActivationDelay() throws Exception {
+        addKey("k1");
+        JwtKeyRing ring = keyRing(LONG, LONG);
+        // Ninguna clave ha cumplido el retraso: firma la más antigua
+        assertEquals("k1", ring.activeKey().kid());
+
+        addKey("k2");
+        ring.reload();
+        assertEquals("k1", ring.activeKey().kid());
+        assertDoesNotThrow(() -> parse(ring, sign("k2")));
+        assertDoesNotThrow(() -> parse(ring, sign("k1")));
+    }
+
+    @Test
+    void replacedKeysVerifyDuringTheOverlap() throws Exception {
+        addKey("k1");
+        JwtKeyRing ring = keyRing(Duration.ZERO, LONG);
+        String oldToken = sign("k1");
+
+        addKey("k2");
+        ring.reload();
+        assertEquals("k2", ring.activeKey().kid());
+        assertDoesNotThrow(() -> parse(ring, oldToken));
+    }
+
+    @Test
+    void replacedKeysAreRetiredAfterTheOverlap() throws Exception {
+        addKey("k1");
+        JwtKeyRing ring = keyRing(Duration.ZERO, Duration.ZERO);
+        String oldToken = sign("k1");
+
+        addKey("k2");
+        Thread.sleep(5);
+        ring.reload();
+        assertEquals("k2", ring.activeKey().kid());
+        JwtException e = assertThrows(JwtException.class, () -> parse(ring, oldToken));
+        assertTrue(e.getMessage().contains("k1"), e.getMessage());
+        assertDoesNotThrow(() -> parse(ring, sign("k2")));
+    }
+
+    @Test
+    void failedReloadKeepsTheCurrentKeys() throws Exception {
+        addKey("k1");
+        JwtKeyRing ring = keyRing(Duration.ZERO, LONG);
+        String token = sign("k1");
+
+        Files.write(keystore(), new byte[] { 1, 2, 3 });
+        ring.reload();
+        assertEquals("k1", ring.activeKey().kid());
+        assertDoesNotThrow(() -> parse(ring, token));
+    }
+
+    @Test
+    void unknownKidsAndMissingKeystoresAreRejected() throws Exception {
+        addKey("k1");
+        JwtKeyRing ring = keyRing(Duration.ZERO, LONG);
+        JwtKeyRing other = new JwtKeyRing(null, "PKCS12", "", Duration.ZERO, LONG);
+        assertThrows(JwtException.class, () -> parse(ring, sign(other.activeKey().kid(), other.activeKey().signingKey())));
+
+        FileSystemResource missing = new FileSystemResource(dir.resolve("missing.p12"));
+        assertThrows(IllegalStateException.class,
+            () -> new JwtKeyRing(missing, "PKCS12", "secret", Duration.ZERO, LONG));
+    }
+
+    private JwtKeyRing keyRing(Duration activationDelay, Duration overlap) {
+        return new JwtKeyRing(new FileSystemResource(keystore()), "PKCS12", new String(PASSWORD),
+            activationDelay, overlap);
+    }
+
+    /**
+     * Añade una clave HS256 al almacén conservando las existentes y su
+     * fecha de creación. Espera unos milisegundos para que las fechas de
+     * creación de claves sucesivas sean distintas.
+     */
+    private void addKey(String alias) throws Exception {
+        Thread.sleep(5);
+        KeyStore ks = KeyStore.getInstance("PKCS12");
+        if (Files.exists(keystore())) {
+            try (InputStream in = Files.newInputStream(keystore())) {
+                ks.load(in, PASSWORD);
+            }
+        } else {
+            ks.load(null, PASSWORD);
+        }
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        SecretKeySpec key = new SecretKeySpec(secret, "HmacSHA256");
+        keys.put(alias, key);
+        ks.setEntry(alias, new KeyStore.SecretKeyEntry(key),
+            new KeyStore.PasswordProtection(PASSWORD));
+        try (OutputStream out = Files.newOutputStream(keystore())) {
+            ks.store(out, PASSWORD);
+        }
+    }
+
+    private Path keystore() {
+        return dir.resolve("jwt.p12");
+    }
+
+    /**
+     * Firma un token con la clave del almacén de alias dado.
+     */
+    private String sign(String kid) {
+        return sign(kid, keys.get(kid));
+    }
+
+    private static String sign(String kid, Key key) {
+        return Jwts.builder()
+            .header().keyId(kid).and()
+            .subject("ana")
+            .signWith(key)
+            .compact();
+    }
+
+    private static void parse(JwtKeyRing ring, String token) {
+        Jwts.parser().keyLocator(ring.keyLocator()).build().parseSignedClaims(token);
+    }
+}
@@ -0,0 +1,215 @@
+package com.german.apirest.springboot.app.springbootcrud.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.german.apirest.springboot.app.springbootcrud.entities.Role;
+import com.german.apirest.springboot.app.springbootcrud.repositories.RoleRepository;
+import com.german.apirest.springboot.app.springbootcrud.security.JwtTokenCodec.TokenFormat;
+import com.german.apirest.springboot.app.springbootcrud.security.JwtTokenCodec.VerifiedToken;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas de {@link JwtTokenCodec} en los formatos compacto y heredado,
+ * y de la codificación de roles de {@link RoleRegistry}.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+class JwtTokenCodecTests {
+
+    private static final Duration TTL = Duration.ofMinutes(15);
+
+    private final List<Role> roles = new ArrayList<>();
+
+    private JwtKeyRing keyRing;
+
+    private RoleRegistry roleRegistry;
+
+    @BeforeEach
+    void setUp() {
+        roles.add(role(1, "ROLE_ADMIN"));
+        roles.add(role(2, "ROLE_USER"));
+        roleRegistry = roleRegistry(roles);
+        keyRing = new JwtKeyRing(null, "PKCS12", "", Duration.ZERO, Duration.ofHours(2));
+    }
+
+    @Test
+    void compactTokensCarryARoleMask() throws Exception {
+        JwtTokenCodec codec = codec(TokenFormat.COMPACT, TTL);
+        long before = System.currentTimeMillis();
+        String token = codec.createToken(7, 3, "ana", AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN"));
+
+        String payload = payload(token);
+        assertTrue(payload.contains("\"rl\":3"), payload);
+        assertFalse(payload.contains("authorities"), payload);
+        assertFalse(payload.contains("username"), payload);
+
+        VerifiedToken verified = codec.verify(token);
+        assertEquals("ana", verified.username());
+        assertEquals(AuthorityUtils.createAuthorityList("ROLE_ADMIN", "ROLE_USER"), verified.authorities());
+        assertEquals(7, verified.userId());
+        assertEquals(3, verified.tokenVersion());
+        assertNotNull(verified.jti());
+        assertTrue(verified.expiresAt() >= before + TTL.toMillis() - 1000);
+        assertTrue(verified.expiresAt() <= System.currentTimeMillis() + TTL.toMillis());
+
+        // Misma máscara, misma lista compartida
+        String other = codec.createToken(8, 0, "eva", AuthorityUtils.createAuthorityList("ROLE_ADMIN", "ROLE_USER"));
+        assertSame(verified.authorities(), codec.verify(other).authorities());
+        assertNotEquals(verified.jti(), codec.verify(other).jti());
+    }
+
+    @Test
+    void legacyTokensCarryJsonAuthorities() throws Exception {
+        JwtTokenCodec codec = codec(TokenFormat.LEGACY, TTL);
+        String token = codec.createToken(7, 3, "ana", AuthorityUtils.createAuthorityList("ROLE_USER"));
+
+        String payload = payload(token);
+        assertTrue(payload.contains("\"authorities\""), payload);
+        assertTrue(payload.contains("\"username\":\"ana\""), payload);
+        assertFalse(payload.contains("\"rl\""), payload);
+
+        VerifiedToken verified = codec.verify(token);
+        assertEquals("ana", verified.username());
+        assertEquals(AuthorityUtils.createAuthorityList("ROLE_USER"), verified.authorities());
+        assertEquals(7, verified.userId());
+        assertEquals(3, verified.tokenVersion());
+        assertSame(verified.authorities(), codec.verify(token).authorities());
+    }
+
+    @Test
+    void bothFormatsAreAcceptedWhateverTheIssuingFormat() throws Exception {
+        JwtTokenCodec compact = codec(TokenFormat.COMPACT, TTL);
+        JwtTokenCodec legacy = codec(TokenFormat.LEGACY, TTL);
+        List<GrantedAuthority> authorities = AuthorityUtils.createAuthorityList("ROLE_USER");
+
+        assertEquals(authorities, legacy.verify(compact.createToken(1, 0, "ana", authorities)).authorities());
+        assertEquals(authorities, compact.verify(legacy.createToken(1, 0, "ana", authorities)).authorities());
+    }
+
+    @Test
+    void unregisteredAuthoritiesFallBackToLegacy() throws Exception {
+        JwtTokenCodec codec = codec(TokenFormat.COMPACT, TTL);
+        String token = codec.createToken(7, 0, "ana", AuthorityUtils.createAuthorityList("ROLE_USER", "products:read"));
+
+        assertTrue(payload(token).contains("\"authorities\""));
+        assertEquals(AuthorityUtils.createAuthorityList("ROLE_USER", "products:read"), codec.verify(token).authorities());
+    }
+
+    @Test
+    void rolesCreatedAfterStartupAreEncodedAfterReloading() throws Exception {
+        JwtTokenCodec codec = codec(TokenFormat.COMPACT, TTL);
+        codec.createToken(7, 0, "ana", AuthorityUtils.createAuthorityList("ROLE_USER"));
+
+        roles.add(role(5, "ROLE_AUDITOR"));
+        assertEquals(0b10010, roleRegistry.maskOf(AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_AUDITOR")));
+        assertEquals(AuthorityUtils.createAuthorityList("ROLE_AUDITOR"), roleRegistry.authoritiesOf(0b10000));
+        assertEquals(RoleRegistry.NOT_ENCODABLE, roleRegistry.maskOf(AuthorityUtils.createAuthorityList("ROLE_X")));
+        assertThrows(IllegalArgumentException.class, () -> roleRegistry.authoritiesOf(1L << 40));
+    }
+
+    @Test
+    void unknownRoleBitsAreRejected() throws Exception {
+        String token = codec(TokenFormat.COMPACT, TTL)
+            .createToken(7, 0, "ana", AuthorityUtils.createAuthorityList("ROLE_ADMIN"));
+
+        // Otro nodo cuyo registro no conoce el rol
+        RoleRegistry other = roleRegistry(List.of(role(2, "ROLE_USER")));
+        JwtTokenCodec codec = new JwtTokenCodec(keyRing, other, TokenFormat.COMPACT, TTL, false,
+            new SimpleMeterRegistry());
+        assertThrows(MalformedJwtException.class, () -> codec.verify(token));
+    }
+
+    @Test
+    void tamperedForeignAndExpiredTokensAreRejected() throws Exception {
+        JwtTokenCodec codec = codec(TokenFormat.COMPACT, TTL);
+        String token = codec.createToken(7, 0, "ana", AuthorityUtils.createAuthorityList("ROLE_USER"));
+
+        String[] parts = token.split("\\.");
+        String forged = parts[0] + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(
+            payload(token).replace("\"rl\":2", "\"rl\":1").getBytes(StandardCharsets.UTF_8)) + "." + parts[2];
+        assertThrows(JwtException.class, () -> codec.verify(forged));
+
+        JwtKeyRing foreignKeys = new JwtKeyRing(null, "PKCS12", "", Duration.ZERO, Duration.ofHours(2));
+        String foreign = new JwtTokenCodec(foreignKeys, roleRegistry, TokenFormat.COMPACT, TTL, false,
+                new SimpleMeterRegistry())
+            .createToken(7, 0, "ana", AuthorityUtils.createAuthorityList("ROLE_USER"));
+        assertThrows(JwtException.class, () -> codec.verify(foreign));
+
+        String expired = codec(TokenFormat.COMPACT, Duration.ofMinutes(-1))
+            .createToken(7, 0, "ana", AuthorityUtils.createAuthorityList("ROLE_USER"));
+        assertThrows(ExpiredJwtException.class, () -> codec.verify(expired));
+    }
+
+    @Test
+    void allocationsPerDecodeArePublishedWhenTracked() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        JwtTokenCodec codec = new JwtTokenCodec(keyRing, roleRegistry, TokenFormat.COMPACT, TTL, true, registry);
+        String token = codec.createToken(7, 0, "ana", AuthorityUtils.createAuthorityList("ROLE_USER"));
+        codec.verify(token);
+        codec.verify(token);
+
+        assertEquals(2, registry.get("security.jwt.codec.decoded").functionCounter().count());
+        double perDecode = registry.get("security.jwt.codec.allocated.bytes.per.decode").gauge().value();
+        assertTrue(perDecode > 0, "bytes por decodificación: " + perDecode);
+        assertEquals(codec.getAllocatedBytesPerDecode(), perDecode);
+    }
+
+    @Test
+    void allocationsAreNotTrackedByDefault() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        JwtTokenCodec codec = new JwtTokenCodec(keyRing, roleRegistry, TokenFormat.COMPACT, TTL, false, registry);
+        codec.verify(codec.createToken(7, 0, "ana", AuthorityUtils.createAuthorityList("ROLE_USER")));
+
+        assertEquals(0, codec.getDecodedTokens());
+        assertEquals(-1, codec.getAllocatedBytesPerDecode());
+        assertNull(registry.find("security.jwt.codec.allocated.bytes.per.decode").gauge());
+    }
+
+    private JwtTokenCodec codec(TokenFormat format, Duration ttl) {
+        return new JwtTokenCodec(keyRing, roleRegistry, format, ttl, false, new SimpleMeterRegistry());
+    }
+
+    private static String payload(String token) {
+        return new String(Base64.getUrlDecoder().decode(token.split("\\.")[1]), StandardCharsets.UTF_8);
+    }
+
+    private static RoleRegistry roleRegistry(List<Role> roles) {
+        RoleRepository roleRepository = mock(RoleRepository.class);
+        when(roleRepository.findAll()).thenAnswer(invocation -> List.copyOf(roles));
+        RoleRegistry registry = new RoleRegistry();
+        ReflectionTestUtils.setField(registry, "roleRepository", roleRepository);
+        return registry;
+    }
+
+    private static Role role(long id, String name) {
+        Role role = new Role(name);
+        role.setId(id);
+        return role;
+    }
+}
@@ -0,0 +1,133 @@
+package com.german.apirest.springboot.app.springbootcrud.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.german.apirest.springboot.app.springbootcrud.security.LoginRateLimiter.EvictionPolicy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas de {@link LoginRateLimiter} con un reloj manual.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+class LoginRateLimiterTests {
+
+    private static final Duration REFILL = Duration.ofMinutes(1);
+
+    private final AtomicLong now = new AtomicLong();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private LoginRateLimiter limiter(int capacity, int maxEntries) {
+        return limiter(capacity, maxEntries, EvictionPolicy.OLDEST);
+    }
+
+    private LoginRateLimiter limiter(int capacity, int maxEntries, EvictionPolicy eviction) {
+        return new LoginRateLimiter(true, capacity, REFILL, capacity, REFILL, maxEntries, 1, eviction, registry,
+            now::get);
+    }
+
+    @Test
+    void burstIsLimitedAndRefillsOverTime() {
+        LoginRateLimiter limiter = limiter(3, 100);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquireIp("10.0.0.1"));
+        }
+        // Un token cada 20 s
+        assertEquals(20, limiter.tryAcquireIp("10.0.0.1"));
+        assertEquals(0, limiter.tryAcquireIp("10.0.0.2"));
+
+        now.addAndGet(Duration.ofSeconds(19).toNanos());
+        assertEquals(1, limiter.tryAcquireIp("10.0.0.1"));
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertEquals(0, limiter.tryAcquireIp("10.0.0.1"));
+        assertTrue(limiter.tryAcquireIp("10.0.0.1") > 0);
+
+        assertEquals(3, registry.get("security.login.throttle.rejected").tag("key", "ip").counter().count());
+    }
+
+    @Test
+    void usernamesAreCaseInsensitiveAndResetOnSuccess() {
+        LoginRateLimiter limiter = limiter(2, 100);
+        assertEquals(0, limiter.tryAcquireUsername("Ana"));
+        assertEquals(0, limiter.tryAcquireUsername("ANA"));
+        assertTrue(limiter.tryAcquireUsername("ana") > 0);
+
+        limiter.onSuccess("aNa");
+        assertEquals(0, limiter.tryAcquireUsername("ana"));
+    }
+
+    @Test
+    void newKeysAreNeverRejectedBecauseTheTableIsFull() {
+        for (EvictionPolicy eviction : EvictionPolicy.values()) {
+            LoginRateLimiter limiter = limiter(2, 4, eviction);
+            for (int i = 0; i < 4; i++) {
+                limiter.tryAcquireUsername("draining" + i);
+                limiter.tryAcquireUsername("draining" + i);
+            }
+            // Todas las cubetas se están vaciando: las claves nuevas se admiten igualmente
+            for (int i = 0; i < 100; i++) {
+                assertEquals(0, limiter.tryAcquireUsername("new" + i), eviction.name());
+            }
+        }
+    }
+
+    @Test
+    void oldestEvictionReplacesTheLeastRecentlyUsedBucket() {
+        LoginRateLimiter limiter = limiter(2, 2);
+        limiter.tryAcquireUsername("a");
+        limiter.tryAcquireUsername("a");
+        limiter.tryAcquireUsername("b");
+        limiter.tryAcquireUsername("b");
+        assertTrue(limiter.tryAcquireUsername("a") > 0);
+
+        // "b" es la usada hace más tiempo: la expulsa "c" y vuelve a empezar llena
+        assertEquals(0, limiter.tryAcquireUsername("c"));
+        assertEquals(0, limiter.tryAcquireUsername("b"));
+        // "a" se expulsó para hacer sitio a "b"; "c" conserva su estado
+        assertEquals(0, limiter.tryAcquireUsername("c"));
+        assertTrue(limiter.tryAcquireUsername("c") > 0);
+    }
+
+    @Test
+    void refilledEvictionKeepsThrottledBucketsAndAdmitsNewKeysUntracked() {
+        LoginRateLimiter limiter = limiter(2, 2, EvictionPolicy.REFILLED);
+        limiter.tryAcquireUsername("a");
+        limiter.tryAcquireUsername("b");
+        limiter.tryAcquireUsername("b");
+        assertTrue(limiter.tryAcquireUsername("b") > 0);
+
+        // "a" aún no se ha rellenado: "c" se admite sin cubeta y no se limita
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquireUsername("c"));
+        }
+        assertTrue(limiter.tryAcquireUsername("b") > 0);
+
+        // Cada cubeta recupera un token en 30 s: "a" vuelve a estar llena y "c" ocupa su sitio
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertEquals(0, limiter.tryAcquireUsername("c"));
+        assertEquals(0, limiter.tryAcquireUsername("c"));
+        assertTrue(limiter.tryAcquireUsername("c") > 0);
+        // "b" conserva su estado: le queda un token y después se limita
+        assertEquals(0, limiter.tryAcquireUsername("b"));
+        assertTrue(limiter.tryAcquireUsername("b") > 0);
+    }
+
+    @Test
+    void disabledLimiterAllowsEverything() {
+        LoginRateLimiter limiter = new LoginRateLimiter(false, 1, REFILL, 1, REFILL, 1, 1, EvictionPolicy.OLDEST,
+            registry, now::get);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, limiter.tryAcquireIp("10.0.0.1"));
+            assertEquals(0, limiter.tryAcquireUsername("ana"));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.german.apirest.springboot.app.springbootcrud.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas de la contrapresión de {@link PasswordHashingExecutor}: con la
+ * cola llena o el tiempo máximo agotado se rechaza con
+ * {@link PasswordHashingRejectedException}.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+class PasswordHashingExecutorTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private PasswordHashingExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void fullQueueIsRejectedImmediately() throws Exception {
+        // Un hilo y un hueco en la cola
+        executor = new PasswordHashingExecutor(1, 1, Duration.ofSeconds(10), 3, registry);
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> executor.matches(() -> {
+            started.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        }));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> executor.matches(() -> true));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (executor.getQueueDepth() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(1, executor.getQueueDepth());
+
+        PasswordHashingRejectedException rejected = assertThrows(PasswordHashingRejectedException.class,
+            () -> executor.encode(() -> "hash"));
+        assertEquals(3, rejected.getRetryAfterSeconds());
+        assertEquals(1, registry.get("security.password.hashing.rejected").counter().count());
+
+        // Al liberar el hilo, las tareas admitidas terminan con normalidad
+        release.countDown();
+        assertTrue(running.get(10, TimeUnit.SECONDS));
+        assertTrue(queued.get(10, TimeUnit.SECONDS));
+        assertEquals("hash", executor.encode(() -> "hash"));
+    }
+
+    @Test
+    void slowHashIsRejectedAfterTheTimeout() throws Exception {
+        executor = new PasswordHashingExecutor(1, 1, Duration.ofMillis(50), 2, registry);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        PasswordHashingRejectedException rejected = assertThrows(PasswordHashingRejectedException.class,
+            () -> executor.matches(() -> {
+                try {
+                    return release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw e;
+                }
+            }));
+        assertEquals(2, rejected.getRetryAfterSeconds());
+        assertEquals(1, registry.get("security.password.hashing.rejected").counter().count());
+        // La tarea se cancela y deja libre el hilo
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+        assertTrue(executor.matches(() -> true));
+    }
+}
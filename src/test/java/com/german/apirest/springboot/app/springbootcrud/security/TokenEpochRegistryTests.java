@@ -0,0 +1,113 @@
+package com.german.apirest.springboot.app.springbootcrud.security;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.german.apirest.springboot.app.springbootcrud.repositories.UserRepository;
+import com.german.apirest.springboot.app.springbootcrud.repositories.UserTokenEpoch;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas de {@link TokenEpochRegistry}: rechazo de versiones antiguas y
+ * de usuarios deshabilitados, aplicación tras la confirmación y lectura
+ * de los cambios de otros nodos.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+class TokenEpochRegistryTests {
+
+    private final UserRepository repository = mock(UserRepository.class);
+
+    private TokenEpochRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new TokenEpochRegistry(repository, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void unknownUsersAndTokensWithoutUidAreAccepted() {
+        assertTrue(registry.isCurrent(7, 0));
+        assertTrue(registry.isCurrent(-1, 5));
+        assertTrue(registry.isUpToDate(7, 0, true));
+    }
+
+    @Test
+    void newVersionsAndDisabledUsersRejectOldTokens() {
+        registry.updateAfterCommit(7, 1, true);
+        assertFalse(registry.isCurrent(7, 0));
+        assertTrue(registry.isCurrent(7, 1));
+        assertTrue(registry.isCurrent(8, 0));
+
+        // Deshabilitar incrementa la versión, pero ninguna versión es válida
+        registry.updateAfterCommit(7, 2, false);
+        assertFalse(registry.isCurrent(7, 1));
+        assertFalse(registry.isCurrent(7, 2));
+        assertFalse(registry.isUpToDate(7, 2, true));
+        assertTrue(registry.isUpToDate(7, 2, false));
+    }
+
+    @Test
+    void changesApplyOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        registry.updateAfterCommit(7, 1, true);
+        assertTrue(registry.isCurrent(7, 0));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertFalse(registry.isCurrent(7, 0));
+        assertTrue(registry.isCurrent(7, 1));
+    }
+
+    @Test
+    void refreshReadsChangesFromOtherNodes() {
+        List<UserTokenEpoch> first = List.of(epoch(7, 3, true), epoch(8, 1, false));
+        List<UserTokenEpoch> second = List.of(epoch(7, 4, true));
+        when(repository.findByUpdatedAtAfter(any()))
+            .thenReturn(first)
+            .thenThrow(new IllegalStateException("sin conexión"))
+            .thenReturn(second);
+
+        registry.refresh();
+        assertTrue(registry.isCurrent(7, 3));
+        assertFalse(registry.isCurrent(8, 1));
+
+        // Un fallo conserva lo conocido
+        registry.refresh();
+        assertTrue(registry.isCurrent(7, 3));
+
+        registry.refresh();
+        assertFalse(registry.isCurrent(7, 3));
+        assertTrue(registry.isCurrent(7, 4));
+    }
+
+    private static UserTokenEpoch epoch(long id, int tokenVersion, boolean enabled) {
+        UserTokenEpoch epoch = mock(UserTokenEpoch.class);
+        when(epoch.getId()).thenReturn(id);
+        when(epoch.getTokenVersion()).thenReturn(tokenVersion);
+        when(epoch.getEnabled()).thenReturn(enabled);
+        when(epoch.getUpdatedAt()).thenReturn(Instant.now());
+        return epoch;
+    }
+}
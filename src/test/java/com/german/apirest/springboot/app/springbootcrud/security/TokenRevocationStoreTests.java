@@ -0,0 +1,121 @@
+package com.german.apirest.springboot.app.springbootcrud.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.german.apirest.springboot.app.springbootcrud.entities.RevokedToken;
+import com.german.apirest.springboot.app.springbootcrud.repositories.RevokedTokenRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas de {@link TokenRevocationStore} con un repositorio simulado:
+ * revocación local, sincronización incremental entre nodos y purga de
+ * revocaciones expiradas.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+class TokenRevocationStoreTests {
+
+    private final RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private TokenRevocationStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new TokenRevocationStore(repository, 100, 0.01, registry);
+    }
+
+    @Test
+    void revokedTokensAreRejectedUntilTheyExpire() {
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        store.revoke("a", expiresAt);
+
+        assertTrue(store.isRevoked("a"));
+        assertFalse(store.isRevoked("b"));
+        assertFalse(store.isRevoked(null));
+        verify(repository).save(any(RevokedToken.class));
+
+        // Un token ya expirado no necesita revocarse
+        store.revoke("c", System.currentTimeMillis() - 1);
+        assertFalse(store.isRevoked("c"));
+        assertEquals(1, size());
+    }
+
+    @Test
+    void syncLoadsLiveRevocationsThenReadsIncrementally() {
+        Instant expiresAt = Instant.now().plus(Duration.ofMinutes(5));
+        when(repository.findByExpiresAtAfter(any())).thenReturn(List.of(revoked("a", expiresAt)));
+        store.sync();
+        assertTrue(store.isRevoked("a"));
+
+        // Siguientes lecturas: solo lo revocado desde la última, con margen
+        Instant before = Instant.now();
+        when(repository.findByRevokedAtAfter(any())).thenReturn(List.of(revoked("b", expiresAt)));
+        store.sync();
+        assertTrue(store.isRevoked("b"));
+
+        ArgumentCaptor<Instant> since = ArgumentCaptor.forClass(Instant.class);
+        verify(repository).findByRevokedAtAfter(since.capture());
+        assertTrue(since.getValue().isBefore(before.minusSeconds(59)));
+        verify(repository).findByExpiresAtAfter(any());
+    }
+
+    @Test
+    void failedSyncIsRetriedFromTheSamePoint() {
+        when(repository.findByExpiresAtAfter(any()))
+            .thenThrow(new IllegalStateException("sin conexión"))
+            .thenReturn(List.of(revoked("a", Instant.now().plusSeconds(60))));
+
+        store.sync();
+        assertFalse(store.isRevoked("a"));
+        store.sync();
+        assertTrue(store.isRevoked("a"));
+        verify(repository, never()).findByRevokedAtAfter(any());
+    }
+
+    @Test
+    void purgeDropsExpiredRevocationsAndKeepsTheRest() throws Exception {
+        Instant soon = Instant.now().plusMillis(50);
+        Instant later = Instant.now().plus(Duration.ofMinutes(5));
+        when(repository.findByExpiresAtAfter(any())).thenReturn(List.of(revoked("a", soon), revoked("b", later)));
+        store.sync();
+        assertEquals(2, size());
+
+        Thread.sleep(100);
+        store.purgeExpired();
+        assertEquals(1, size());
+        assertFalse(store.isRevoked("a"));
+        assertTrue(store.isRevoked("b"));
+        verify(repository).deleteExpired(any());
+
+        // El filtro reconstruido sigue admitiendo nuevas revocaciones
+        store.revoke("c", later.toEpochMilli());
+        assertTrue(store.isRevoked("c"));
+    }
+
+    private double size() {
+        return registry.get("security.jwt.revocation.size").gauge().value();
+    }
+
+    private static RevokedToken revoked(String jti, Instant expiresAt) {
+        return new RevokedToken(jti, expiresAt, Instant.now());
+    }
+}
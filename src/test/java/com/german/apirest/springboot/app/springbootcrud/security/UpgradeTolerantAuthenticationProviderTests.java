@@ -0,0 +1,96 @@
+package com.german.apirest.springboot.app.springbootcrud.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Comprueba que la recodificación de hashes obsoletos no hace fallar un
+ * login correcto cuando el pool de hashing está saturado.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+class UpgradeTolerantAuthenticationProviderTests {
+
+    private final PasswordEncoder encoder = mock(PasswordEncoder.class);
+
+    private final UserDetailsService users = mock(UserDetailsService.class);
+
+    private final UserDetailsPasswordService passwords = mock(UserDetailsPasswordService.class);
+
+    private UpgradeTolerantAuthenticationProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        UserDetails user = User.withUsername("ana").password("{bcrypt}old")
+            .authorities(new SimpleGrantedAuthority("ROLE_USER")).build();
+        when(users.loadUserByUsername("ana")).thenReturn(user);
+        when(encoder.matches("secret", "{bcrypt}old")).thenReturn(true);
+        when(encoder.upgradeEncoding("{bcrypt}old")).thenReturn(true);
+
+        provider = new UpgradeTolerantAuthenticationProvider(encoder);
+        provider.setUserDetailsService(users);
+        provider.setUserDetailsPasswordService(passwords);
+    }
+
+    @Test
+    void rejectedUpgradeStillAuthenticates() {
+        when(encoder.encode("secret")).thenThrow(new PasswordHashingRejectedException("saturado", 2));
+
+        Authentication result = provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("ana", "secret"));
+
+        assertTrue(result.isAuthenticated());
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_USER")), List.copyOf(result.getAuthorities()));
+        verify(passwords, never()).updatePassword(any(), anyString());
+    }
+
+    @Test
+    void upgradeIsRetriedOnNextLogin() {
+        when(encoder.encode("secret"))
+            .thenThrow(new PasswordHashingRejectedException("saturado", 2))
+            .thenReturn("{bcrypt}new");
+        UserDetails upgraded = User.withUsername("ana").password("{bcrypt}new").authorities("ROLE_USER").build();
+        when(passwords.updatePassword(any(), anyString())).thenReturn(upgraded);
+
+        provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("ana", "secret"));
+        provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("ana", "secret"));
+
+        verify(passwords).updatePassword(any(), any());
+    }
+
+    @Test
+    void rejectionBeforeVerificationIsNotSwallowed() {
+        // Solo la recodificación es de mejor esfuerzo: si no se puede verificar, el login falla
+        when(encoder.matches("secret", "{bcrypt}old")).thenThrow(new PasswordHashingRejectedException("saturado", 2));
+
+        assertThrows(PasswordHashingRejectedException.class,
+            () -> provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("ana", "secret")));
+    }
+
+    @Test
+    void wrongPasswordIsRejected() {
+        assertThrows(BadCredentialsException.class,
+            () -> provider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("ana", "wrong")));
+    }
+}
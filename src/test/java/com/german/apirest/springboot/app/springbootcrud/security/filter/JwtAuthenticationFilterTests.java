@@ -0,0 +1,131 @@
+package com.german.apirest.springboot.app.springbootcrud.security.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.german.apirest.springboot.app.springbootcrud.security.JwtTokenCodec;
+import com.german.apirest.springboot.app.springbootcrud.security.LoginRateLimiter;
+import com.german.apirest.springboot.app.springbootcrud.security.PasswordHashingRejectedException;
+import com.german.apirest.springboot.app.springbootcrud.services.RefreshTokenService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas de {@link JwtAuthenticationFilter} con el limitador de intentos
+ * de login: las respuestas 429 con <code>Retry-After</code> se emiten sin
+ * llegar a comprobar la contraseña, y la saturación del pool de hashing
+ * responde 503 con <code>Retry-After</code>.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+class JwtAuthenticationFilterTests {
+
+    private final AuthenticationManager authenticationManager = mock(AuthenticationManager.class);
+
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        // Reposición lenta: ningún intento se recupera durante la prueba
+        LoginRateLimiter limiter = new LoginRateLimiter(true, 3, Duration.ofHours(1), 2, Duration.ofHours(1),
+            1000, 4, LoginRateLimiter.EvictionPolicy.OLDEST, new SimpleMeterRegistry());
+        JwtTokenCodec tokenCodec = mock(JwtTokenCodec.class);
+        when(tokenCodec.getJsonMapper()).thenReturn(new ObjectMapper());
+        filter = new JwtAuthenticationFilter(authenticationManager, tokenCodec, mock(RefreshTokenService.class),
+            limiter, 1024);
+        when(authenticationManager.authenticate(any())).thenThrow(new BadCredentialsException("Bad credentials"));
+    }
+
+    @Test
+    void repeatedFailuresForAUsernameAreThrottled() throws Exception {
+        assertThrows(BadCredentialsException.class, () -> attempt("10.0.0.1", "anita"));
+        assertThrows(BadCredentialsException.class, () -> attempt("10.0.0.2", "ANITA"));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertNull(filter.attemptAuthentication(login("10.0.0.3", "Anita"), response));
+        assertTooManyRequests(response);
+        verify(authenticationManager, times(2)).authenticate(any());
+
+        // Otros usuarios desde la misma IP siguen pudiendo intentarlo
+        assertThrows(BadCredentialsException.class, () -> attempt("10.0.0.3", "maria"));
+    }
+
+    @Test
+    void repeatedAttemptsFromAnIpAreThrottledBeforeReadingTheBody() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            String username = "user" + i;
+            assertThrows(BadCredentialsException.class, () -> attempt("10.0.0.1", username));
+        }
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+        request.setRemoteAddr("10.0.0.1");
+        request.setContent("no es json".getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertNull(filter.attemptAuthentication(request, response));
+        // Sin el límite, el cuerpo no válido habría dado 400
+        assertTooManyRequests(response);
+        verify(authenticationManager, times(3)).authenticate(any());
+    }
+
+    @Test
+    void invalidBodiesAreRejectedWithoutAuthenticating() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+        request.setContent(new byte[2048]);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertNull(filter.attemptAuthentication(request, response));
+        assertEquals(400, response.getStatus());
+        verify(authenticationManager, times(0)).authenticate(any());
+    }
+
+    @Test
+    void saturatedHashingPoolAnswersServiceUnavailable() throws Exception {
+        doThrow(new PasswordHashingRejectedException("Demasiadas operaciones de contraseña en curso", 2))
+            .when(authenticationManager).authenticate(any());
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertNull(filter.attemptAuthentication(login("10.0.0.1", "ana"), response));
+        assertEquals(503, response.getStatus());
+        assertEquals("2", response.getHeader("Retry-After"));
+        assertTrue(response.getContentAsString(StandardCharsets.UTF_8).contains("Servicio saturado"));
+    }
+
+    private void attempt(String ip, String username) {
+        filter.attemptAuthentication(login(ip, username), new MockHttpServletResponse());
+    }
+
+    private static MockHttpServletRequest login(String ip, String username) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(("{\"username\":\"" + username + "\",\"password\":\"wrong\"}")
+            .getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static void assertTooManyRequests(MockHttpServletResponse response) throws Exception {
+        assertEquals(429, response.getStatus());
+        assertTrue(Long.parseLong(response.getHeader("Retry-After")) > 0);
+        assertTrue(response.getContentAsString(StandardCharsets.UTF_8).contains("Demasiados intentos de login"));
+    }
+}
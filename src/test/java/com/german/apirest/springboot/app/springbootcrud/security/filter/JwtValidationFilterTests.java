@@ -0,0 +1,170 @@
+package com.german.apirest.springboot.app.springbootcrud.security.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.german.apirest.springboot.app.springbootcrud.security.JwtTokenCodec;
+import com.german.apirest.springboot.app.springbootcrud.security.JwtTokenCodec.VerifiedToken;
+import com.german.apirest.springboot.app.springbootcrud.security.TokenAuthenticationCache;
+import com.german.apirest.springboot.app.springbootcrud.security.TokenEpochRegistry;
+import com.german.apirest.springboot.app.springbootcrud.security.TokenRevocationStore;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas de {@link JwtValidationFilter} con la caché de tokens
+ * verificados: los aciertos evitan la verificación de firma, pero la
+ * revocación y la época se comprueban en cada petición.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+class JwtValidationFilterTests {
+
+    private static final String TOKEN = "cabecera.cuerpo.firma";
+
+    private final JwtTokenCodec tokenCodec = mock(JwtTokenCodec.class);
+
+    private final TokenRevocationStore revocationStore = mock(TokenRevocationStore.class);
+
+    private final TokenEpochRegistry tokenEpochs = mock(TokenEpochRegistry.class);
+
+    private TokenAuthenticationCache tokenCache;
+
+    private JwtValidationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        tokenCache = new TokenAuthenticationCache(100, new SimpleMeterRegistry());
+        filter = new JwtValidationFilter(mock(AuthenticationManager.class), tokenCodec, tokenCache,
+            revocationStore, tokenEpochs);
+        when(tokenEpochs.isCurrent(anyLong(), anyInt())).thenReturn(true);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void cachedTokensAreNotVerifiedAgain() throws Exception {
+        when(tokenCodec.verify(TOKEN)).thenReturn(verified(System.currentTimeMillis() + 60_000));
+
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletResponse response = filter(TOKEN);
+            assertEquals(200, response.getStatus());
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            assertNotNull(authentication);
+            assertEquals("ana", authentication.getName());
+            assertEquals(AuthorityUtils.createAuthorityList("ROLE_USER"), List.copyOf(authentication.getAuthorities()));
+            SecurityContextHolder.clearContext();
+        }
+        verify(tokenCodec, times(1)).verify(TOKEN);
+        assertEquals(2, tokenCache.getHits());
+        assertEquals(1, tokenCache.size());
+    }
+
+    @Test
+    void expiredCacheEntriesAreVerifiedAgain() throws Exception {
+        // Caduca antes de la siguiente petición: no se guarda en la caché
+        when(tokenCodec.verify(TOKEN)).thenReturn(verified(System.currentTimeMillis() - 1));
+
+        filter(TOKEN);
+        filter(TOKEN);
+        verify(tokenCodec, times(2)).verify(TOKEN);
+        assertEquals(0, tokenCache.size());
+    }
+
+    @Test
+    void revocationIsCheckedOnCacheHits() throws Exception {
+        when(tokenCodec.verify(TOKEN)).thenReturn(verified(System.currentTimeMillis() + 60_000));
+        assertEquals(200, filter(TOKEN).getStatus());
+        SecurityContextHolder.clearContext();
+
+        when(revocationStore.isRevoked("jti-1")).thenReturn(true);
+        MockHttpServletResponse response = filter(TOKEN);
+        assertEquals(401, response.getStatus());
+        assertTrue(response.getContentAsString().contains("El token ha sido revocado"));
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(tokenCodec, times(1)).verify(TOKEN);
+    }
+
+    @Test
+    void tokenEpochIsCheckedOnCacheHits() throws Exception {
+        when(tokenCodec.verify(TOKEN)).thenReturn(verified(System.currentTimeMillis() + 60_000));
+        assertEquals(200, filter(TOKEN).getStatus());
+        SecurityContextHolder.clearContext();
+
+        when(tokenEpochs.isCurrent(7L, 3)).thenReturn(false);
+        MockHttpServletResponse response = filter(TOKEN);
+        assertEquals(401, response.getStatus());
+        assertTrue(response.getContentAsString().contains("sus tokens han sido invalidados"));
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void invalidAndExpiredTokensAreRejected() throws Exception {
+        when(tokenCodec.verify("caducado")).thenThrow(new ExpiredJwtException(null, null, "exp"));
+        when(tokenCodec.verify("roto")).thenThrow(new MalformedJwtException("roto"));
+
+        MockHttpServletResponse expired = filter("caducado");
+        assertEquals(401, expired.getStatus());
+        assertTrue(expired.getContentAsString().contains("El token ha expirado"));
+
+        MockHttpServletResponse invalid = filter("roto");
+        assertEquals(401, invalid.getStatus());
+        assertEquals("{\"message\":\"El token JWT no es válido\"}", invalid.getContentAsString());
+        assertEquals(0, tokenCache.size());
+    }
+
+    @Test
+    void requestsWithoutBearerTokenPassThrough() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+        request.addHeader("Authorization", "Basic YW5hOnNlY3JldA==");
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+
+        assertNotNull(chain.getRequest());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(tokenCodec, never()).verify(anyString());
+    }
+
+    private MockHttpServletResponse filter(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+        request.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setCharacterEncoding("UTF-8");
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static VerifiedToken verified(long expiresAt) {
+        return new VerifiedToken("ana", AuthorityUtils.createAuthorityList("ROLE_USER"), expiresAt, "jti-1", 7, 3);
+    }
+}
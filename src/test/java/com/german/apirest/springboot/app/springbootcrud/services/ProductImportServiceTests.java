@@ -0,0 +1,165 @@
+package com.german.apirest.springboot.app.springbootcrud.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.german.apirest.springboot.app.springbootcrud.dto.ProductImportResult;
+import com.german.apirest.springboot.app.springbootcrud.entities.Product;
+import com.german.apirest.springboot.app.springbootcrud.repositories.ProductRepository;
+import com.german.apirest.springboot.app.springbootcrud.services.ProductImportService.Format;
+
+/**
+ * Pruebas de {@link ProductImportService}: lectura de NDJSON y CSV,
+ * errores por fila y SKU duplicados. El agrupamiento de los INSERT se
+ * comprueba en {@code SqlStatementCountTests}.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+// Misma configuración que las pruebas de los controladores para compartir
+// contexto: otro contexto volvería a crear el esquema de la misma base H2
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProductImportServiceTests {
+
+    @Autowired
+    private ProductImportService importService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Object chunkSize;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        Product existing = new Product();
+        existing.setSku("sku0");
+        existing.setName("existing");
+        existing.setDescription("d");
+        existing.setPrice(1000);
+        productService.save(existing);
+        chunkSize = ReflectionTestUtils.getField(target(), "chunkSize");
+    }
+
+    @AfterEach
+    void restoreChunkSize() {
+        ReflectionTestUtils.setField(target(), "chunkSize", chunkSize);
+    }
+
+    @Test
+    void ndjsonRowsAreValidatedOneByOne() throws Exception {
+        ProductImportResult result = importProducts(Format.NDJSON, ""
+            + "{\"sku\":\"imp1\",\"name\":\"imported1\",\"price\":700,\"description\":\"d\"}\n"
+            + "{\"sku\":\"imp2\",\"name\":\"imported2\",\"price\":100,\"description\":\"d\"}\n"
+            + "not json\n"
+            + "\n"
+            + "[1, 2]\n"
+            + "{\"id\":1,\"sku\":\"imp3\",\"name\":\"imported3\",\"price\":800,\"description\":\"d\"}\n");
+
+        assertEquals(5, result.received());
+        assertEquals(2, result.imported());
+        assertEquals(3, result.failed());
+        assertEquals(List.of(2, 3, 5), rows(result));
+        assertTrue(result.errors().get(0).errors().containsKey("price"));
+        assertEquals("JSON no válido", result.errors().get(1).errors().get("row"));
+        // El id de la fila se ignora: siempre es un alta
+        assertTrue(productService.existsBySku("imp3"));
+        assertEquals(3, productRepository.count());
+    }
+
+    @Test
+    void csvHandlesQuotingAndColumnOrder() throws Exception {
+        ProductImportResult result = importProducts(Format.CSV, ""
+            + "\uFEFF Price ,SKU,name,description\n"
+            + "900,c1,\"Mesa, roble\",\"Dice \"\"hola\"\"\"\n"
+            + "\n"
+            + "800,c2,Silla,\"\"\n"
+            + "caro,c3,Banco,d\n"
+            + ",c4,Taburete,d\n"
+            + "700,c5,Solo tres\n"
+            + "700,\"c6\",\"Lámpara\",\"con \"\"comillas\"\" y, comas\"\n");
+
+        assertEquals(6, result.received());
+        assertEquals(2, result.imported());
+        assertEquals(List.of(4, 5, 6, 7), rows(result));
+        assertTrue(result.errors().get(0).errors().containsKey("description"));
+        assertEquals("El campo price debe ser un número entero", result.errors().get(1).errors().get("price"));
+        assertTrue(result.errors().get(2).errors().containsKey("price"));
+        assertEquals("Se esperaban 4 columnas", result.errors().get(3).errors().get("row"));
+
+        Product mesa = productByName("Mesa, roble");
+        assertEquals("c1", mesa.getSku());
+        assertEquals(900, mesa.getPrice());
+        assertEquals("Dice \"hola\"", mesa.getDescription());
+        assertEquals("con \"comillas\" y, comas", productByName("Lámpara").getDescription());
+    }
+
+    @Test
+    void csvWithoutARequiredColumnIsRejected() throws Exception {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> importProducts(Format.CSV, "sku,name,description\nc1,Mesa,d\n"));
+        assertTrue(e.getMessage().contains("[sku, name, price, description]"), e.getMessage());
+        assertEquals(1, productRepository.count());
+
+        ProductImportResult empty = importProducts(Format.CSV, "");
+        assertEquals(0, empty.received());
+    }
+
+    @Test
+    void duplicateSkusAreRejectedAcrossChunks() throws Exception {
+        ReflectionTestUtils.setField(target(), "chunkSize", 2);
+        ProductImportResult result = importProducts(Format.CSV, ""
+            + "sku,name,price,description\n"
+            + "d1,Primero,900,d\n"
+            + "d1,Repetido,900,d\n"
+            + "d2,Segundo,900,d\n"
+            + "d1,Otro bloque,900,d\n"
+            + "sku0,Existente,900,d\n");
+
+        assertEquals(2, result.imported());
+        assertEquals(List.of(3, 5, 6), rows(result));
+        for (ProductImportResult.RowError error : result.errors()) {
+            assertEquals(Map.of("sku", "El campo sku ya existe en la base de datos"), error.errors());
+        }
+        assertEquals("Primero", productByName("Primero").getName());
+    }
+
+    private ProductImportResult importProducts(Format format, String content) throws Exception {
+        return importService.importProducts(new StringReader(content), format);
+    }
+
+    private ProductImportServiceImpl target() {
+        return AopTestUtils.getTargetObject(importService);
+    }
+
+    private Product productByName(String name) {
+        return productService.findAll().stream()
+            .filter(product -> product.getName().equals(name))
+            .findFirst()
+            .orElseThrow();
+    }
+
+    private static List<Integer> rows(ProductImportResult result) {
+        return result.errors().stream().map(ProductImportResult.RowError::row).toList();
+    }
+}
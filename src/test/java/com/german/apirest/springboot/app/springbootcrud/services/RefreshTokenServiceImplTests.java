@@ -0,0 +1,148 @@
+package com.german.apirest.springboot.app.springbootcrud.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.german.apirest.springboot.app.springbootcrud.entities.RefreshToken;
+import com.german.apirest.springboot.app.springbootcrud.entities.Role;
+import com.german.apirest.springboot.app.springbootcrud.entities.User;
+import com.german.apirest.springboot.app.springbootcrud.repositories.RefreshTokenRepository;
+import com.german.apirest.springboot.app.springbootcrud.repositories.UserRepository;
+import com.german.apirest.springboot.app.springbootcrud.security.JwtTokenCodec;
+import com.german.apirest.springboot.app.springbootcrud.services.RefreshTokenService.IssuedTokens;
+
+/**
+ * Pruebas unitarias de {@link RefreshTokenServiceImpl}: rotación dentro de
+ * la familia y revocación de la familia ante reutilizaciones, incluida la
+ * carrera en la que otro canje marca el token primero.
+ *
+ * @version 1.0
+ * @since   1.0
+ */
+class RefreshTokenServiceImplTests {
+
+    private static final String RAW = "token-en-claro";
+
+    private final RefreshTokenRepository repository = mock(RefreshTokenRepository.class);
+
+    private final JwtTokenCodec tokenCodec = mock(JwtTokenCodec.class);
+
+    private final RefreshTokenServiceImpl service = new RefreshTokenServiceImpl();
+
+    private RefreshToken stored;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(service, "repository", repository);
+        ReflectionTestUtils.setField(service, "userRepository", mock(UserRepository.class));
+        ReflectionTestUtils.setField(service, "tokenCodec", tokenCodec);
+        ReflectionTestUtils.setField(service, "refreshTokenTtl", Duration.ofDays(30));
+
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("anita");
+        user.setEnabled(true);
+        user.setRoles(List.of(new Role("ROLE_USER")));
+
+        stored = new RefreshToken();
+        stored.setId(1L);
+        stored.setUser(user);
+        stored.setFamilyId("familia");
+        stored.setTokenHash(sha256(RAW));
+        stored.setExpiresAt(Instant.now().plus(Duration.ofDays(1)));
+        when(repository.findByTokenHash(sha256(RAW))).thenReturn(Optional.of(stored));
+        when(tokenCodec.createToken(any(Long.class), any(Integer.class), anyString(), any())).thenReturn("acceso");
+    }
+
+    @Test
+    void refreshIssuesANewTokenInTheSameFamily() {
+        when(repository.markUsed(any(), any())).thenReturn(1);
+
+        IssuedTokens tokens = service.refresh(RAW);
+        assertEquals("anita", tokens.username());
+        assertEquals("acceso", tokens.accessToken());
+        assertNotEquals(RAW, tokens.refreshToken());
+
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(repository).save(saved.capture());
+        assertEquals("familia", saved.getValue().getFamilyId());
+        // Solo se guarda el hash del nuevo token
+        assertEquals(sha256(tokens.refreshToken()), saved.getValue().getTokenHash());
+        verify(repository, never()).revokeFamily(anyString());
+    }
+
+    @Test
+    void losingTheMarkUsedRaceRevokesTheFamily() {
+        // Otro canje concurrente marcó el token entre la lectura y la actualización
+        when(repository.markUsed(any(), any())).thenReturn(0);
+
+        assertThrows(InvalidRefreshTokenException.class, () -> service.refresh(RAW));
+        verify(repository).revokeFamily("familia");
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void usedOrRevokedTokensRevokeTheFamilyWithoutMarking() {
+        stored.setUsedAt(Instant.now());
+        assertThrows(InvalidRefreshTokenException.class, () -> service.refresh(RAW));
+
+        stored.setUsedAt(null);
+        stored.setRevoked(true);
+        assertThrows(InvalidRefreshTokenException.class, () -> service.refresh(RAW));
+
+        verify(repository, never()).markUsed(any(), any());
+        verify(repository, times(2)).revokeFamily("familia");
+    }
+
+    @Test
+    void disabledUsersRevokeTheFamily() throws Exception {
+        when(repository.markUsed(any(), any())).thenReturn(1);
+        stored.getUser().setEnabled(false);
+
+        InvalidRefreshTokenException e = assertThrows(InvalidRefreshTokenException.class, () -> service.refresh(RAW));
+        assertEquals("El usuario está deshabilitado", e.getMessage());
+        verify(repository).revokeFamily("familia");
+        verify(tokenCodec, never()).createToken(any(Long.class), any(Integer.class), anyString(), any());
+    }
+
+    @Test
+    void expiredAndUnknownTokensAreRejected() {
+        when(repository.markUsed(any(), any())).thenReturn(1);
+        stored.setExpiresAt(Instant.now().minusSeconds(1));
+
+        InvalidRefreshTokenException e = assertThrows(InvalidRefreshTokenException.class, () -> service.refresh(RAW));
+        assertEquals("El token de refresco ha expirado", e.getMessage());
+        assertThrows(InvalidRefreshTokenException.class, () -> service.refresh("otro"));
+        verify(repository, never()).revokeFamily(anyString());
+    }
+
+    private static String sha256(String raw) {
+        try {
+            return HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest(raw.getBytes(StandardCharsets.US_ASCII)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}